@@ -2412,10 +2412,21 @@ public class JvbConference
      */
     public void sendJsonMessage(JSONObject jsonMessage)
     {
-        xmppSendQueue.add(() -> sendJsonMessageInternal(jsonMessage));
+        sendJsonMessage(jsonMessage, null);
     }
 
-    private void sendJsonMessageInternal(JSONObject jsonMessage)
+    /**
+     * Send a json-message to the muc room
+     *
+     * @param jsonMessage the json message to send
+     * @param onSent called once the message was sent, can be null
+     */
+    public void sendJsonMessage(JSONObject jsonMessage, Runnable onSent)
+    {
+        xmppSendQueue.add(() -> sendJsonMessageInternal(jsonMessage, onSent));
+    }
+
+    private void sendJsonMessageInternal(JSONObject jsonMessage, Runnable onSent)
     {
         if (this.mucRoom == null)
         {
@@ -2440,6 +2451,10 @@ public class JvbConference
             {
                 logger.trace("Sending json message: \"" + messageString + "\"");
             }
+            if (onSent != null)
+            {
+                onSent.run();
+            }
         }
         catch (OperationFailedException e)
         {
@@ -264,11 +264,76 @@ public class TranscriptionGatewaySession
             return e;
         }
 
+        String passthroughEncoding = transcriber.getPassthroughEncoding();
+        Iterator<? extends CallPeer> peers = jvbConferenceCall.getCallPeers();
+        CallPeer peer = passthroughEncoding != null && peers.hasNext() ? peers.next() : null;
+        if (passthroughEncoding != null && peer == null)
+        {
+            logger.warn("No call peer to take the " + passthroughEncoding + " audio from, using decoded audio");
+        }
+        else if (peer != null && !addEncodedAudioTap(peer, passthroughEncoding))
+        {
+            peer.addCallPeerListener(new CallPeerAdapter()
+            {
+                @Override
+                public void peerStateChanged(CallPeerChangeEvent evt)
+                {
+                    CallPeer peer = evt.getSourceCallPeer();
+                    CallPeerState peerState = peer.getState();
+
+                    if (CallPeerState.CONNECTED.equals(peerState))
+                    {
+                        peer.removeCallPeerListener(this);
+                        if (!addEncodedAudioTap(peer, passthroughEncoding))
+                        {
+                            logger.warn("Cannot take the " + passthroughEncoding + " audio of " + peer
+                                + ", using decoded audio");
+                        }
+                    }
+                }
+            });
+        }
+
         logger.debug("TranscriptionGatewaySession started transcribing");
 
         return null;
     }
 
+    /**
+     * Adds an {@link EncodedAudioTap} to the audio stream of the peer, so the
+     * audio is given to the transcriber without decoding it. The packets are
+     * still decoded when the audio is recorded.
+     *
+     * @param peer the peer which media stream to tap
+     * @param encoding the encoding accepted by the transcription service
+     * @return true if the tap was added to peer's media stream.
+     */
+    private boolean addEncodedAudioTap(CallPeer peer, String encoding)
+    {
+        if (peer instanceof MediaAwareCallPeer)
+        {
+            MediaAwareCallPeer peerMedia = (MediaAwareCallPeer) peer;
+
+            CallPeerMediaHandler mediaHandler = peerMedia.getMediaHandler();
+            if (mediaHandler != null)
+            {
+                MediaStream stream = mediaHandler.getStream(MediaType.AUDIO);
+                if (stream != null)
+                {
+                    boolean recordAudio = JigasiBundleActivator.getConfigurationService().getBoolean(
+                        AbstractTranscriptPublisher.P_NAME_RECORD_AUDIO,
+                        AbstractTranscriptPublisher.RECORD_AUDIO_DEFAULT_VALUE);
+
+                    stream.setExternalTransformer(new EncodedAudioTap(transcriber, stream, encoding, !recordAudio));
+                    logger.info("Transcribing " + encoding + " audio without decoding it");
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     @Override
     void onJvbConferenceStopped(JvbConference jvbConference,
                                 int reasonCode, String reason)
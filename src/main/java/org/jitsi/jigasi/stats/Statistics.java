@@ -24,6 +24,7 @@ import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.*;
 
+import io.prometheus.client.*;
 import jakarta.servlet.http.*;
 
 import net.java.sip.communicator.impl.protocol.jabber.*;
@@ -178,6 +179,51 @@ public class Statistics
      */
     public static final String TOTAL_TRANSCRIBER_SESSION_CREATION_ERRORS = "total_transcriber_session_creation_errors";
 
+    /**
+     * The name of the number of audio tasks waiting in the per-participant transcriber queues.
+     */
+    public static final String TRANSCRIBER_QUEUED_TASKS = "transcriber_queued_tasks";
+
+    /**
+     * The total number of audio tasks dropped because the transcriber queues were full.
+     */
+    public static final String TOTAL_TRANSCRIBER_DROPPED_TASKS = "total_transcriber_dropped_tasks";
+
+    /**
+     * The name of the number of bytes of audio waiting to be sent to the Whisper service.
+     */
+    public static final String TRANSCRIBER_WHISPER_QUEUED_BYTES = "transcriber_whisper_queued_bytes";
+
+    /**
+     * The total number of audio frames dropped because the Whisper service did not keep up.
+     */
+    public static final String TOTAL_TRANSCRIBER_WHISPER_DROPPED_FRAMES = "total_transcriber_whisper_dropped_frames";
+
+    /**
+     * The total number of ms of participant audio held back by the silence gate of the transcriber.
+     */
+    public static final String TOTAL_TRANSCRIBER_GATED_MILLIS = "total_transcriber_gated_millis";
+
+    /**
+     * The total number of ms of participant audio dropped while connecting to the transcription service.
+     */
+    public static final String TOTAL_TRANSCRIBER_PREROLL_DROPPED_MILLIS = "total_transcriber_preroll_dropped_millis";
+
+    /**
+     * The total number of translations which did not complete before their deadline.
+     */
+    public static final String TOTAL_TRANSLATION_TIMEOUTS = "total_translation_timeouts";
+
+    /**
+     * The total number of translations answered from the translation cache.
+     */
+    public static final String TOTAL_TRANSLATION_CACHE_HITS = "total_translation_cache_hits";
+
+    /**
+     * The total number of translations looked up in the translation cache and not found.
+     */
+    public static final String TOTAL_TRANSLATION_CACHE_MISSES = "total_translation_cache_misses";
+
     /**
      * The name of the property that holds the normalizing constant that is used to reduce the number of
      * current conferences to a stress level metric {@link #CONFERENCES_THRESHOLD}.
@@ -383,6 +429,131 @@ public class Statistics
             TOTAL_CONFERENCE_SECONDS,
             "Cumulative number of seconds of all conferences");
 
+    /**
+     * The number of audio tasks waiting in the per-participant transcriber queues.
+     */
+    private static final LongGaugeMetric transcriberQueuedTasks = JigasiMetricsContainer.INSTANCE.registerLongGauge(
+            TRANSCRIBER_QUEUED_TASKS,
+            "Number of audio tasks waiting in the per-participant transcriber queues.");
+
+    /**
+     * Number of audio tasks dropped because the transcriber queues were full.
+     */
+    private static final CounterMetric totalTranscriberDroppedTasks = JigasiMetricsContainer.INSTANCE.registerCounter(
+            TOTAL_TRANSCRIBER_DROPPED_TASKS,
+            "Number of audio tasks dropped because the transcriber queues were full.");
+
+    /**
+     * The time audio tasks spent waiting in a participant queue before being processed.
+     */
+    private static final HistogramMetric transcriberQueueLatency = JigasiMetricsContainer.INSTANCE.registerHistogram(
+            "transcriber_queue_latency_ms",
+            "Time in ms audio tasks waited in a participant queue before being processed.",
+            1.0, 5.0, 10.0, 20.0, 50.0, 100.0, 250.0, 500.0, 1000.0, 5000.0);
+
+    /**
+     * The depth of a participant queue observed when adding a new audio task to it.
+     */
+    private static final HistogramMetric transcriberQueueDepth = JigasiMetricsContainer.INSTANCE.registerHistogram(
+            "transcriber_participant_queue_depth",
+            "Number of tasks already waiting in a participant queue when a new audio task is added.",
+            0.0, 1.0, 2.0, 5.0, 10.0, 25.0, 50.0, 100.0, 250.0);
+
+    /**
+     * The duration of the audio sent at once by a participant to the transcription service.
+     */
+    private static final HistogramMetric transcriberFlushSize = JigasiMetricsContainer.INSTANCE.registerHistogram(
+            "transcriber_flush_size_ms",
+            "Duration in ms of the audio sent at once by a participant to the transcription service.",
+            20.0, 50.0, 100.0, 200.0, 300.0, 500.0, 750.0, 1000.0, 1500.0, 3000.0);
+
+    /**
+     * The time from receiving audio of a participant to receiving the first result after it was sent.
+     */
+    private static final HistogramMetric transcriberResultLatency = JigasiMetricsContainer.INSTANCE.registerHistogram(
+            "transcriber_result_latency_ms",
+            "Time in ms from receiving the audio of a participant to the first result after sending it.",
+            100.0, 200.0, 300.0, 500.0, 750.0, 1000.0, 1500.0, 2000.0, 3000.0, 5000.0, 10000.0);
+
+    /**
+     * The time spent in the stages of the transcription pipeline, labelled with the service and the stage, see
+     * {@link #observeTranscriberLatency(String, String, long)}. Registered directly in the prometheus registry of
+     * {@link JigasiMetricsContainer}, as its metrics have no labels.
+     */
+    private static final Histogram transcriberLatencies = Histogram.build()
+            .namespace("jitsi_jigasi")
+            .name("transcriber_latency_ms")
+            .help("Time in ms spent in a stage of the transcription pipeline.")
+            .labelNames("service", "stage")
+            .buckets(1.0, 5.0, 10.0, 25.0, 50.0, 100.0, 250.0, 500.0, 1000.0, 2000.0, 5000.0, 10000.0)
+            .register(CollectorRegistry.defaultRegistry);
+
+    /**
+     * The histograms of the time spent waiting for a pooled HTTP connection, per translation service, see
+     * {@link #observeTranslationHttpLeaseTime(String, long)}. Registered when first used.
+     */
+    private static final Map<String, HistogramMetric> translationHttpLeaseTimes = new ConcurrentHashMap<>();
+
+    /**
+     * The number of bytes of audio waiting to be sent to the Whisper service.
+     */
+    private static final LongGaugeMetric transcriberWhisperQueuedBytes
+        = JigasiMetricsContainer.INSTANCE.registerLongGauge(
+            TRANSCRIBER_WHISPER_QUEUED_BYTES,
+            "Number of bytes of audio waiting to be sent to the Whisper service.");
+
+    /**
+     * Number of audio frames dropped because the Whisper service did not keep up.
+     */
+    private static final CounterMetric totalTranscriberWhisperDroppedFrames
+        = JigasiMetricsContainer.INSTANCE.registerCounter(
+            TOTAL_TRANSCRIBER_WHISPER_DROPPED_FRAMES,
+            "Number of audio frames dropped because the Whisper service did not keep up.");
+
+    /**
+     * Number of ms of participant audio held back by the silence gate of the transcriber.
+     */
+    private static final CounterMetric totalTranscriberGatedMillis = JigasiMetricsContainer.INSTANCE.registerCounter(
+            TOTAL_TRANSCRIBER_GATED_MILLIS,
+            "Number of ms of participant audio not sent to the transcription service during silences.");
+
+    /**
+     * Number of ms of participant audio dropped while connecting to the transcription service.
+     */
+    private static final CounterMetric totalTranscriberPrerollDroppedMillis
+        = JigasiMetricsContainer.INSTANCE.registerCounter(
+            TOTAL_TRANSCRIBER_PREROLL_DROPPED_MILLIS,
+            "Number of ms of participant audio dropped while connecting to the transcription service.");
+
+    /**
+     * Number of translations which did not complete before their deadline.
+     */
+    private static final CounterMetric totalTranslationTimeouts = JigasiMetricsContainer.INSTANCE.registerCounter(
+            TOTAL_TRANSLATION_TIMEOUTS,
+            "Number of translations which did not complete before their deadline.");
+
+    /**
+     * Number of translations answered from the translation cache.
+     */
+    private static final CounterMetric totalTranslationCacheHits = JigasiMetricsContainer.INSTANCE.registerCounter(
+            TOTAL_TRANSLATION_CACHE_HITS,
+            "Number of translations answered from the translation cache.");
+
+    /**
+     * Number of translations looked up in the translation cache and not found.
+     */
+    private static final CounterMetric totalTranslationCacheMisses = JigasiMetricsContainer.INSTANCE.registerCounter(
+            TOTAL_TRANSLATION_CACHE_MISSES,
+            "Number of translations looked up in the translation cache and not found.");
+
+    /**
+     * The time from receiving a final transcription result to having its translation in a target language.
+     */
+    private static final HistogramMetric translationLatency = JigasiMetricsContainer.INSTANCE.registerHistogram(
+            "translation_latency_ms",
+            "Time in ms from receiving a final transcription result to having its translation in a language.",
+            50.0, 100.0, 200.0, 300.0, 500.0, 750.0, 1000.0, 1500.0, 2000.0, 3000.0, 5000.0);
+
     private static final LongGaugeMetric threadsMetric = JigasiMetricsContainer.INSTANCE.registerLongGauge(
             "threads",
             "Number of JVM threads.");
@@ -476,6 +647,15 @@ public class Statistics
         stats.put(TOTAL_TRANSCRIBER_NO_RESUL_ERRORS, totalTrasnscriberNoResultErrors.get());
         stats.put(TOTAL_TRANSCRIBER_SEND_ERRORS, totalTrasnscriberSendErrors.get());
         stats.put(TOTAL_TRANSCRIBER_SESSION_CREATION_ERRORS, totalTrasnscriberSessionCreationErrors.get());
+        stats.put(TRANSCRIBER_QUEUED_TASKS, transcriberQueuedTasks.get());
+        stats.put(TOTAL_TRANSCRIBER_DROPPED_TASKS, totalTranscriberDroppedTasks.get());
+        stats.put(TRANSCRIBER_WHISPER_QUEUED_BYTES, transcriberWhisperQueuedBytes.get());
+        stats.put(TOTAL_TRANSCRIBER_WHISPER_DROPPED_FRAMES, totalTranscriberWhisperDroppedFrames.get());
+        stats.put(TOTAL_TRANSCRIBER_GATED_MILLIS, totalTranscriberGatedMillis.get());
+        stats.put(TOTAL_TRANSCRIBER_PREROLL_DROPPED_MILLIS, totalTranscriberPrerollDroppedMillis.get());
+        stats.put(TOTAL_TRANSLATION_TIMEOUTS, totalTranslationTimeouts.get());
+        stats.put(TOTAL_TRANSLATION_CACHE_HITS, totalTranslationCacheHits.get());
+        stats.put(TOTAL_TRANSLATION_CACHE_MISSES, totalTranslationCacheMisses.get());
 
         stats.put(SHUTDOWN_IN_PROGRESS, shutdownMetric.get());
 
@@ -776,6 +956,155 @@ public class Statistics
         totalTrasnscriberSessionCreationErrors.inc();
     }
 
+    /**
+     * Records that an audio task was added to a participant queue.
+     * @param queueDepth the number of tasks which were already waiting in the queue.
+     */
+    public static void transcriberTaskQueued(int queueDepth)
+    {
+        transcriberQueuedTasks.addAndGet(1);
+        transcriberQueueDepth.observe(queueDepth);
+    }
+
+    /**
+     * Records that an audio task was taken out of a participant queue.
+     * @param waitedMs the time in ms the task waited in the queue, or -1 when it was dropped.
+     */
+    public static void transcriberTaskDequeued(long waitedMs)
+    {
+        transcriberQueuedTasks.addAndGet(-1);
+        if (waitedMs >= 0)
+        {
+            transcriberQueueLatency.observe(waitedMs);
+        }
+    }
+
+    /**
+     * Records that audio tasks were dropped from, or not added to, a participant queue because the
+     * transcriber queues were full.
+     * @param count the number of dropped tasks.
+     */
+    public static void transcriberTasksDropped(int count)
+    {
+        transcriberQueuedTasks.addAndGet(-count);
+        totalTranscriberDroppedTasks.add(count);
+    }
+
+    /**
+     * Records the duration of the audio sent at once by a participant to the transcription service.
+     * @param durationMs the duration in ms.
+     */
+    public static void observeTranscriberFlushSize(long durationMs)
+    {
+        transcriberFlushSize.observe(durationMs);
+    }
+
+    /**
+     * Records the time from receiving audio of a participant to receiving the first result after it was sent.
+     * @param latencyMs the time in ms.
+     */
+    public static void observeTranscriberResultLatency(long latencyMs)
+    {
+        transcriberResultLatency.observe(latencyMs);
+    }
+
+    /**
+     * Records the time spent in a stage of the transcription pipeline, in the histogram
+     * <tt>transcriber_latency_ms</tt> with the labels <tt>service</tt> and <tt>stage</tt>.
+     * @param service the name of the transcription service, e.g. <tt>whisper</tt>.
+     * @param stage the name of the stage, e.g. <tt>queue</tt>.
+     * @param latencyMs the time in ms.
+     */
+    public static void observeTranscriberLatency(String service, String stage, long latencyMs)
+    {
+        transcriberLatencies.labels(service, stage).observe(Math.max(0, latencyMs));
+    }
+
+    /**
+     * Updates the number of bytes of audio waiting to be sent to the Whisper service.
+     * @param delta the number of bytes queued, or negative when bytes were sent or dropped.
+     */
+    public static void addTranscriberWhisperQueuedBytes(long delta)
+    {
+        transcriberWhisperQueuedBytes.addAndGet(delta);
+    }
+
+    /**
+     * Increment the number of audio frames dropped because the Whisper service did not keep up.
+     */
+    public static void incrementTotalTranscriberWhisperDroppedFrames()
+    {
+        totalTranscriberWhisperDroppedFrames.inc();
+    }
+
+    /**
+     * Adds to the number of ms of participant audio held back by the silence gate of the transcriber.
+     * @param value the ms of audio which were not sent.
+     */
+    public static void incrementTotalTranscriberGatedMillis(long value)
+    {
+        totalTranscriberGatedMillis.add(value);
+    }
+
+    /**
+     * Adds to the number of ms of participant audio dropped while connecting to the transcription service.
+     * @param value the ms of audio which were dropped.
+     */
+    public static void incrementTotalTranscriberPrerollDroppedMillis(long value)
+    {
+        totalTranscriberPrerollDroppedMillis.add(value);
+    }
+
+    /**
+     * Increment the number of translations which did not complete before their deadline.
+     */
+    public static void incrementTotalTranslationTimeouts()
+    {
+        totalTranslationTimeouts.inc();
+    }
+
+    /**
+     * Increment the number of translations answered from the translation cache.
+     */
+    public static void incrementTotalTranslationCacheHits()
+    {
+        totalTranslationCacheHits.inc();
+    }
+
+    /**
+     * Increment the number of translations looked up in the translation cache and not found.
+     */
+    public static void incrementTotalTranslationCacheMisses()
+    {
+        totalTranslationCacheMisses.inc();
+    }
+
+    /**
+     * Records the time from receiving a final transcription result to having its translation in a target language.
+     * @param latencyMs the time in ms.
+     */
+    public static void observeTranslationLatency(long latencyMs)
+    {
+        translationLatency.observe(latencyMs);
+    }
+
+    /**
+     * Records the time a translation service waited for a pooled HTTP connection, in the histogram named
+     * <tt>translation_[service]_http_lease_ms</tt>.
+     * @param service the name of the translation service, e.g. <tt>bing</tt>.
+     * @param leaseMs the time in ms.
+     */
+    public static void observeTranslationHttpLeaseTime(String service, long leaseMs)
+    {
+        String name = "translation_" + service + "_http_lease_ms";
+
+        translationHttpLeaseTimes.computeIfAbsent(name, key -> JigasiMetricsContainer.INSTANCE.registerHistogram(
+                key,
+                "Time in ms the " + service + " translation service waited for a pooled HTTP connection.",
+                0.0, 1.0, 5.0, 10.0, 25.0, 50.0, 100.0, 250.0, 500.0, 1000.0))
+            .observe(Math.max(0, leaseMs));
+    }
+
     /**
      * Adds the value to the number of total conference seconds.
      * @param value the value to add to the number of total conference seconds.
@@ -19,9 +19,23 @@ package org.jitsi.jigasi.transcription;
 
 import org.jitsi.impl.neomedia.device.*;
 
+import javax.media.format.*;
+import java.util.*;
+
 public abstract class AbstractTranscriptionService
         implements TranscriptionService
 {
+    /**
+     * The encoding of the audio decoded by the mixer, signed 16 bit PCM.
+     */
+    public static final String ENCODING_PCM = AudioFormat.LINEAR;
+
+    /**
+     * The encoding of Opus, as found in the RTP payload. Opus audio is given
+     * to the service as received, one packet per request.
+     */
+    public static final String ENCODING_OPUS = "opus";
+
     protected TranscribingAudioMixerMediaDevice mediaDevice = null;
 
     /**
@@ -48,4 +62,29 @@ public abstract class AbstractTranscriptionService
     {
         return false;
     }
+
+    /**
+     * Returns the encodings of the audio this service accepts. When the
+     * service accepts Opus and the SilenceFilter is not used, the Opus
+     * payload of the participants is forwarded without being decoded.
+     * Services accepting only encoded audio must disable the SilenceFilter,
+     * which needs PCM.
+     *
+     * @return the accepted encodings, by default only {@link #ENCODING_PCM}
+     */
+    public Set<String> getAcceptedEncodings()
+    {
+        return Collections.singleton(ENCODING_PCM);
+    }
+
+    /**
+     * Returns whether this service accepts audio in the given encoding.
+     *
+     * @param encoding the encoding
+     * @return true if the encoding is in {@link #getAcceptedEncodings()}
+     */
+    public boolean acceptsEncoding(String encoding)
+    {
+        return getAcceptedEncodings().contains(encoding);
+    }
 }
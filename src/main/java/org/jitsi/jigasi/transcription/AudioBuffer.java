@@ -0,0 +1,217 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A reference counted chunk of audio. Buffers obtained from an
+ * {@link AudioBufferPool} go back to the pool once every holder released
+ * them, so the backing array is never reused while someone (e.g. a send to a
+ * transcription service which is still in flight) is still reading it.
+ * <p>
+ * A new buffer has a reference count of 1, owned by whoever acquired it.
+ * Code which keeps using the audio asynchronously must call
+ * {@link #retain()} before handing it over and {@link #release()} once done.
+ */
+public class AudioBuffer
+{
+    /**
+     * The backing array.
+     */
+    private final byte[] data;
+
+    /**
+     * The number of valid bytes in {@link #data}.
+     */
+    private int length = 0;
+
+    /**
+     * The number of holders of this buffer.
+     */
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    /**
+     * The pool to return this buffer to, or null if it is not pooled.
+     */
+    private final AudioBufferPool pool;
+
+    /**
+     * Creates new buffer.
+     *
+     * @param data the backing array
+     * @param length the number of valid bytes in the array
+     * @param pool the pool which owns this buffer, or null
+     */
+    AudioBuffer(byte[] data, int length, AudioBufferPool pool)
+    {
+        this.data = data;
+        this.length = length;
+        this.pool = pool;
+    }
+
+    /**
+     * Wraps an array in a buffer which is not pooled. No copy is made.
+     *
+     * @param audio the audio
+     * @return the new buffer holding the whole array
+     */
+    public static AudioBuffer wrap(byte[] audio)
+    {
+        return new AudioBuffer(audio, audio.length, null);
+    }
+
+    /**
+     * Appends audio to this buffer.
+     *
+     * @param audio the audio to append
+     * @return false if there was not enough space left and nothing was
+     * appended, true otherwise
+     */
+    boolean put(byte[] audio)
+    {
+        return put(audio, 0, audio.length);
+    }
+
+    /**
+     * Appends a part of an array of audio to this buffer.
+     *
+     * @param audio the array holding the audio to append
+     * @param offset the offset of the audio in the array
+     * @param audioLength the number of bytes to append
+     * @return false if there was not enough space left and nothing was
+     * appended, true otherwise
+     */
+    boolean put(byte[] audio, int offset, int audioLength)
+    {
+        if (audioLength > remaining())
+        {
+            return false;
+        }
+
+        System.arraycopy(audio, offset, data, length, audioLength);
+        length += audioLength;
+
+        return true;
+    }
+
+    /**
+     * @return the number of bytes which can still be appended.
+     */
+    int remaining()
+    {
+        return data.length - length;
+    }
+
+    /**
+     * Drops the audio in this buffer, so it can be filled again.
+     */
+    void clear()
+    {
+        length = 0;
+    }
+
+    /**
+     * @return the number of bytes of audio in this buffer.
+     */
+    public int getLength()
+    {
+        return length;
+    }
+
+    /**
+     * Returns a {@link ByteBuffer} view of the audio, sharing the backing
+     * array. The view is only valid as long as a reference to this buffer is
+     * held.
+     *
+     * @return the audio as a {@link ByteBuffer}
+     */
+    public ByteBuffer asByteBuffer()
+    {
+        return ByteBuffer.wrap(data, 0, length);
+    }
+
+    /**
+     * Returns a copy of the audio, of exactly {@link #getLength()} bytes,
+     * which stays valid once this buffer was released.
+     *
+     * @return the audio
+     */
+    public byte[] toByteArray()
+    {
+        return Arrays.copyOf(data, length);
+    }
+
+    /**
+     * Adds a holder of this buffer.
+     *
+     * @return this buffer
+     * @throws IllegalStateException if the buffer was already released
+     */
+    public AudioBuffer retain()
+    {
+        int previous = refCount.getAndIncrement();
+        if (previous <= 0)
+        {
+            refCount.getAndDecrement();
+            throw new IllegalStateException("AudioBuffer already released");
+        }
+
+        return this;
+    }
+
+    /**
+     * Removes a holder of this buffer. When the last holder releases it the
+     * buffer is returned to its pool and must not be used anymore.
+     */
+    public void release()
+    {
+        int count = refCount.decrementAndGet();
+        if (count == 0)
+        {
+            if (pool != null)
+            {
+                pool.recycle(this);
+            }
+        }
+        else if (count < 0)
+        {
+            refCount.set(0);
+            throw new IllegalStateException("AudioBuffer released too many times");
+        }
+    }
+
+    /**
+     * Prepares a recycled buffer for being handed out again.
+     */
+    void reset()
+    {
+        length = 0;
+        refCount.set(1);
+    }
+
+    /**
+     * @return the size of the backing array.
+     */
+    int capacity()
+    {
+        return data.length;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A pool of fixed size {@link AudioBuffer}s, used to carry the audio of the
+ * participants to the transcription services without allocating a new array
+ * for every request. Buffers come back to the pool when they are released by
+ * their last holder, see {@link AudioBuffer#release()}.
+ */
+public class AudioBufferPool
+{
+    /**
+     * The size of the arrays handed out by this pool.
+     */
+    private final int bufferSize;
+
+    /**
+     * The maximum number of free buffers kept in the pool, so that a burst
+     * does not keep memory around forever.
+     */
+    private final int maxPooled;
+
+    /**
+     * The free buffers.
+     */
+    private final ConcurrentLinkedQueue<AudioBuffer> free = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of buffers in {@link #free}.
+     */
+    private final AtomicInteger freeCount = new AtomicInteger();
+
+    /**
+     * Creates new pool.
+     *
+     * @param bufferSize the size of the buffers of this pool
+     * @param maxPooled the maximum number of free buffers to keep around
+     */
+    public AudioBufferPool(int bufferSize, int maxPooled)
+    {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Takes an empty buffer from the pool, or allocates a new one when the
+     * pool is empty. The caller owns the single reference of the buffer.
+     *
+     * @return the buffer
+     */
+    public AudioBuffer acquire()
+    {
+        AudioBuffer buffer = free.poll();
+        if (buffer == null)
+        {
+            return new AudioBuffer(new byte[bufferSize], 0, this);
+        }
+
+        freeCount.decrementAndGet();
+        buffer.reset();
+
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer which is not referenced anymore to the pool.
+     *
+     * @param buffer the buffer
+     */
+    void recycle(AudioBuffer buffer)
+    {
+        if (buffer.capacity() != bufferSize)
+        {
+            return;
+        }
+
+        if (freeCount.incrementAndGet() > maxPooled)
+        {
+            freeCount.decrementAndGet();
+            return;
+        }
+
+        free.offer(buffer);
+    }
+
+    /**
+     * @return the size of the buffers handed out by this pool.
+     */
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    /**
+     * @return the number of free buffers currently kept in the pool.
+     */
+    public int getFreeCount()
+    {
+        return freeCount.get();
+    }
+}
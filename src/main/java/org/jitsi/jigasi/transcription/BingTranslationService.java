@@ -21,12 +21,12 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.util.EntityUtils;
 import org.jitsi.jigasi.JigasiBundleActivator;
 import org.jitsi.utils.logging.Logger;
@@ -34,7 +34,13 @@ import org.jitsi.utils.logging.Logger;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 
 /**
@@ -97,6 +103,13 @@ public class BingTranslationService
     private final Logger logger
         = Logger.getLogger(BingTranslationService.class);
 
+    /**
+     * The client shared by all Bing translations, see
+     * {@link TranslationHttpClient}.
+     */
+    private final CloseableHttpClient httpClient
+        = TranslationHttpClient.get("bing");
+
     public BingTranslationService()
     {
         subscriptionKey = JigasiBundleActivator.getConfigurationService()
@@ -137,16 +150,78 @@ public class BingTranslationService
     public String translate(String sourceText, String sourceLang,
                             String targetLang)
     {
+        return translate(sourceText, sourceLang, List.of(targetLang))
+            .getOrDefault(targetLang, "");
+    }
+
+    /**
+     * Translates the text to all the target languages in a single request.
+     * When the request is rejected, each language is requested on its own,
+     * as a single unsupported language rejects all of them. A target
+     * language which could not be translated maps to an empty string.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String> translate(String sourceText, String sourceLang,
+                                         Collection<String> targetLangs)
+    {
+        Map<String, String> translations = new LinkedHashMap<>();
+        for (String targetLang : targetLangs)
+        {
+            translations.put(targetLang, "");
+        }
+
         if (subscriptionKey == null || subscriptionKey.isEmpty())
         {
             logger.error("Bing translation requested but "
                 + SUBSCRIPTION_KEY + " is not set.");
-            return "";
+            return translations;
         }
 
         String from = getPrimaryLanguageCode(sourceLang);
-        String to = getPrimaryLanguageCode(targetLang);
 
+        // several target languages can share a primary language code
+        Map<String, List<String>> targetsByCode = new LinkedHashMap<>();
+        for (String targetLang : targetLangs)
+        {
+            targetsByCode.computeIfAbsent(
+                getPrimaryLanguageCode(targetLang), code -> new ArrayList<>())
+                .add(targetLang);
+        }
+
+        int statusCode = request(sourceText, from, targetsByCode.keySet(),
+            targetsByCode, translations);
+        if (statusCode == HttpStatus.SC_BAD_REQUEST
+            && targetsByCode.size() > 1)
+        {
+            // a single unsupported language rejects the whole request
+            for (String code : targetsByCode.keySet())
+            {
+                request(sourceText, from, List.of(code), targetsByCode,
+                    translations);
+            }
+        }
+
+        return translations;
+    }
+
+    /**
+     * Translates the text to the given primary language codes in a single
+     * request.
+     *
+     * @param sourceText the text to translate
+     * @param from the primary language code of the text
+     * @param codes the primary language codes to translate to
+     * @param targetsByCode the target languages of each primary language code
+     * @param translations receives the translations by target language
+     * @return the status code of the response, or -1 when there was none
+     */
+    private int request(String sourceText, String from,
+                        Collection<String> codes,
+                        Map<String, List<String>> targetsByCode,
+                        Map<String, String> translations)
+    {
         StringBuilder url = new StringBuilder(endpoint);
         if (!endpoint.endsWith("/"))
         {
@@ -158,8 +233,11 @@ public class BingTranslationService
             url.append("&from=").append(
                 URLEncoder.encode(from, StandardCharsets.UTF_8));
         }
-        url.append("&to=").append(
-            URLEncoder.encode(to, StandardCharsets.UTF_8));
+        for (String to : codes)
+        {
+            url.append("&to=").append(
+                URLEncoder.encode(to, StandardCharsets.UTF_8));
+        }
 
         Gson gson = new GsonBuilder().disableHtmlEscaping().create();
         JsonArray body = new JsonArray();
@@ -170,31 +248,28 @@ public class BingTranslationService
         StringEntity entity = new StringEntity(
             gson.toJson(body), ContentType.APPLICATION_JSON);
 
-        HttpResponse response;
-        try (CloseableHttpClient httpClient
-                = HttpClientBuilder.create().build())
+        HttpPost request = new HttpPost(url.toString());
+        request.setEntity(entity);
+        request.setHeader("Accept", "application/json");
+        request.setHeader("Content-type", "application/json");
+        request.setHeader(
+            "Ocp-Apim-Subscription-Key", subscriptionKey);
+        if (subscriptionRegion != null && !subscriptionRegion.isEmpty())
         {
-            HttpPost request = new HttpPost(url.toString());
-            request.setEntity(entity);
-            request.setHeader("Accept", "application/json");
-            request.setHeader("Content-type", "application/json");
             request.setHeader(
-                "Ocp-Apim-Subscription-Key", subscriptionKey);
-            if (subscriptionRegion != null && !subscriptionRegion.isEmpty())
-            {
-                request.setHeader(
-                    "Ocp-Apim-Subscription-Region", subscriptionRegion);
-            }
+                "Ocp-Apim-Subscription-Region", subscriptionRegion);
+        }
 
-            response = httpClient.execute(request);
+        try (CloseableHttpResponse response = httpClient.execute(request))
+        {
             String jsonBody = EntityUtils.toString(response.getEntity());
             int statusCode = response.getStatusLine().getStatusCode();
-            if (statusCode != 200)
+            if (statusCode != HttpStatus.SC_OK)
             {
                 logger.error("Microsoft Translator responded with status code "
-                    + statusCode + ".");
+                    + statusCode + " for the languages " + codes + ".");
                 logger.error(jsonBody);
-                return "";
+                return statusCode;
             }
 
             BingResponse[] parsed
@@ -206,19 +281,59 @@ public class BingTranslationService
                 logger.error(
                     "Microsoft Translator returned an empty translation set: "
                         + jsonBody);
-                return "";
+                return statusCode;
+            }
+
+            for (BingTranslation translation : parsed[0].translations)
+            {
+                List<String> targets = targetsByCode.get(translation.to);
+                if (targets == null || translation.text == null)
+                {
+                    continue;
+                }
+
+                for (String targetLang : targets)
+                {
+                    translations.put(targetLang, translation.text);
+                }
             }
-            String text = parsed[0].translations.get(0).text;
-            return text == null ? "" : text;
+            return statusCode;
         }
         catch (IOException e)
         {
-            logger.error("Error during request to Microsoft Translator.");
+            logger.error("Error during request to Microsoft Translator for"
+                + " the languages " + codes + ".");
             logger.error(e.toString());
-            return "";
+            return -1;
         }
     }
 
+    /**
+     * Translates the text to all the target languages in a single request
+     * on the executor.
+     * <p>
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, CompletableFuture<String>> translateAsync(
+        String sourceText, String sourceLang, Collection<String> targetLangs,
+        Executor executor)
+    {
+        CompletableFuture<Map<String, String>> all
+            = CompletableFuture.supplyAsync(
+                () -> translate(sourceText, sourceLang, targetLangs), executor);
+
+        Map<String, CompletableFuture<String>> translations
+            = new LinkedHashMap<>();
+        for (String targetLang : targetLangs)
+        {
+            translations.put(targetLang, all.thenApply(
+                texts -> texts.getOrDefault(targetLang, "")));
+        }
+
+        return translations;
+    }
+
     /**
      * Class representing the top-level JSON response objects returned by the
      * Microsoft Translator v3 {@code /translate} endpoint. Used for
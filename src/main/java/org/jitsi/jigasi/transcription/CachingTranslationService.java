@@ -0,0 +1,303 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.jitsi.jigasi.*;
+import org.jitsi.jigasi.stats.*;
+import org.jitsi.service.configuration.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A {@link TranslationService} which answers the short texts it already
+ * translated from a {@link TranslationCache}, and asks another service for
+ * the others. The cache of a service is shared by all the transcribers of
+ * this node, so the recurring utterances ("yes", "can you hear me") are only
+ * translated once.
+ * <p>
+ * Empty translations, which the services return on errors, are not cached.
+ * The texts which rarely come again, like the growing interim results, are
+ * translated with a {@link #lookupOnly()} view, which does not add them.
+ */
+public class CachingTranslationService
+    implements TranslationService
+{
+    /**
+     * The property name for the maximum number of translations kept in the
+     * cache, 0 disables the cache.
+     */
+    public final static String P_NAME_CACHE_SIZE
+        = "org.jitsi.jigasi.transcription.TRANSLATION_CACHE_SIZE";
+
+    /**
+     * Default value for property TRANSLATION_CACHE_SIZE
+     */
+    public final static int CACHE_SIZE_DEFAULT_VALUE = 10000;
+
+    /**
+     * The property name for the time in ms after which a cached translation
+     * is forgotten.
+     */
+    public final static String P_NAME_CACHE_TTL_MS
+        = "org.jitsi.jigasi.transcription.TRANSLATION_CACHE_TTL_MS";
+
+    /**
+     * Default value for property TRANSLATION_CACHE_TTL_MS
+     */
+    public final static long CACHE_TTL_MS_DEFAULT_VALUE = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * The property name for the maximum length of the texts whose
+     * translation is cached. Longer texts rarely come again.
+     */
+    public final static String P_NAME_CACHE_MAX_TEXT_LENGTH
+        = "org.jitsi.jigasi.transcription.TRANSLATION_CACHE_MAX_TEXT_LENGTH";
+
+    /**
+     * Default value for property TRANSLATION_CACHE_MAX_TEXT_LENGTH
+     */
+    public final static int CACHE_MAX_TEXT_LENGTH_DEFAULT_VALUE = 100;
+
+    /**
+     * The caches, by class name of the service asked for the translations.
+     */
+    private final static Map<String, TranslationCache> caches = new HashMap<>();
+
+    /**
+     * The service asked for the translations which are not cached.
+     */
+    private final TranslationService service;
+
+    /**
+     * The cache of the translations of the {@link #service}.
+     */
+    private final TranslationCache cache;
+
+    /**
+     * The maximum length of the texts whose translation is cached.
+     */
+    private final int maxTextLength;
+
+    /**
+     * Whether the translations are added to the {@link #cache}.
+     */
+    private final boolean insert;
+
+    /**
+     * Creates new caching service.
+     *
+     * @param service the service asked for the translations
+     * @param cache the cache
+     * @param maxTextLength the maximum length of the texts whose translation
+     * is cached
+     */
+    CachingTranslationService(TranslationService service, TranslationCache cache, int maxTextLength)
+    {
+        this(service, cache, maxTextLength, true);
+    }
+
+    private CachingTranslationService(
+        TranslationService service, TranslationCache cache, int maxTextLength, boolean insert)
+    {
+        this.service = service;
+        this.cache = cache;
+        this.maxTextLength = maxTextLength;
+        this.insert = insert;
+    }
+
+    /**
+     * Returns a view of this service which answers from the same cache, but
+     * does not add the translations to it nor count its hits and misses.
+     *
+     * @return the view
+     */
+    public CachingTranslationService lookupOnly()
+    {
+        return insert ? new CachingTranslationService(service, cache, maxTextLength, false) : this;
+    }
+
+    /**
+     * Puts the shared cache of a service in front of it, unless the cache is
+     * disabled.
+     *
+     * @param service the service
+     * @return the service with the cache in front of it, or the service
+     */
+    public static TranslationService wrap(TranslationService service)
+    {
+        ConfigurationService config = JigasiBundleActivator.getConfigurationService();
+
+        int size = config.getInt(P_NAME_CACHE_SIZE, CACHE_SIZE_DEFAULT_VALUE);
+        if (size <= 0)
+        {
+            return service;
+        }
+
+        TranslationCache cache;
+        synchronized (caches)
+        {
+            cache = caches.computeIfAbsent(
+                service.getClass().getName(),
+                name -> new TranslationCache(size, config.getLong(P_NAME_CACHE_TTL_MS, CACHE_TTL_MS_DEFAULT_VALUE)));
+        }
+
+        return new CachingTranslationService(
+            service, cache, config.getInt(P_NAME_CACHE_MAX_TEXT_LENGTH, CACHE_MAX_TEXT_LENGTH_DEFAULT_VALUE));
+    }
+
+    /**
+     * Returns the cached translation of a text.
+     *
+     * @param sourceText the text
+     * @param sourceLang the language of the text
+     * @param targetLang the language of the translation
+     * @return the translation, or null when it is not cached
+     */
+    private String getCached(String sourceText, String sourceLang, String targetLang)
+    {
+        if (sourceText.length() > maxTextLength)
+        {
+            return null;
+        }
+
+        String translation = cache.get(sourceText, sourceLang, targetLang);
+        if (!insert)
+        {
+            return translation;
+        }
+        if (translation != null)
+        {
+            Statistics.incrementTotalTranslationCacheHits();
+        }
+        else
+        {
+            Statistics.incrementTotalTranslationCacheMisses();
+        }
+
+        return translation;
+    }
+
+    /**
+     * Caches the translation of a text.
+     *
+     * @param sourceText the text
+     * @param sourceLang the language of the text
+     * @param targetLang the language of the translation
+     * @param translation the translation
+     */
+    private void cache(String sourceText, String sourceLang, String targetLang, String translation)
+    {
+        if (insert && sourceText.length() <= maxTextLength && translation != null && !translation.isEmpty())
+        {
+            cache.put(sourceText, sourceLang, targetLang, translation);
+        }
+    }
+
+    @Override
+    public String translate(String sourceText, String sourceLang, String targetLang)
+    {
+        String translation = getCached(sourceText, sourceLang, targetLang);
+        if (translation == null)
+        {
+            translation = service.translate(sourceText, sourceLang, targetLang);
+            cache(sourceText, sourceLang, targetLang, translation);
+        }
+
+        return translation;
+    }
+
+    @Override
+    public CompletableFuture<String> translateAsync(
+        String sourceText, String sourceLang, String targetLang, Executor executor)
+    {
+        String translation = getCached(sourceText, sourceLang, targetLang);
+        if (translation != null)
+        {
+            return CompletableFuture.completedFuture(translation);
+        }
+
+        return service.translateAsync(sourceText, sourceLang, targetLang, executor)
+            .thenApply(text ->
+            {
+                cache(sourceText, sourceLang, targetLang, text);
+                return text;
+            });
+    }
+
+    @Override
+    public Map<String, String> translate(String sourceText, String sourceLang, Collection<String> targetLangs)
+    {
+        Map<String, String> translations = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String targetLang : targetLangs)
+        {
+            String translation = getCached(sourceText, sourceLang, targetLang);
+            translations.put(targetLang, translation);
+            if (translation == null)
+            {
+                missing.add(targetLang);
+            }
+        }
+
+        if (!missing.isEmpty())
+        {
+            service.translate(sourceText, sourceLang, missing).forEach((targetLang, translation) ->
+            {
+                cache(sourceText, sourceLang, targetLang, translation);
+                translations.put(targetLang, translation);
+            });
+        }
+
+        return translations;
+    }
+
+    @Override
+    public Map<String, CompletableFuture<String>> translateAsync(
+        String sourceText, String sourceLang, Collection<String> targetLangs, Executor executor)
+    {
+        Map<String, CompletableFuture<String>> translations = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String targetLang : targetLangs)
+        {
+            String translation = getCached(sourceText, sourceLang, targetLang);
+            if (translation != null)
+            {
+                translations.put(targetLang, CompletableFuture.completedFuture(translation));
+            }
+            else
+            {
+                translations.put(targetLang, null);
+                missing.add(targetLang);
+            }
+        }
+
+        if (!missing.isEmpty())
+        {
+            service.translateAsync(sourceText, sourceLang, missing, executor).forEach((targetLang, translation) ->
+                translations.put(targetLang, translation.thenApply(text ->
+                {
+                    cache(sourceText, sourceLang, targetLang, text);
+                    return text;
+                })));
+            translations.values().removeIf(Objects::isNull);
+        }
+
+        return translations;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.jitsi.impl.neomedia.*;
+import org.jitsi.impl.neomedia.transform.*;
+import org.jitsi.service.neomedia.*;
+import org.jitsi.service.neomedia.format.*;
+
+import java.util.*;
+
+/**
+ * Takes the encoded audio of the participants from the incoming RTP packets
+ * of the conference call and gives it to the {@link Transcriber}, for the
+ * transcription services which accept encoded audio.
+ * <p>
+ * When the decoded audio is not needed (e.g. no audio is recorded) the
+ * packets are dropped once their payload was taken, so the mixer does not
+ * spend CPU decoding them.
+ * <p>
+ * RED packets (RFC 2198) are unwrapped and their primary block is taken,
+ * the redundant blocks are ignored. Packets in other encodings are left to
+ * the mixer, so their decoded audio is used instead.
+ * <p>
+ * The payloads are given in the order they are received, one packet per
+ * request: there is no jitter buffer, packets are not reordered and lost
+ * packets are not signalled, as the sequence numbers are not forwarded.
+ */
+public class EncodedAudioTap
+    extends SinglePacketTransformerAdapter
+    implements TransformEngine
+{
+    /**
+     * The transcriber to give the audio to.
+     */
+    private final Transcriber transcriber;
+
+    /**
+     * The stream the packets are received on, used to resolve payload types.
+     */
+    private final MediaStream stream;
+
+    /**
+     * The encoding to take, the other packets are left untouched.
+     */
+    private final String encoding;
+
+    /**
+     * Whether to drop the packets which were given to the transcriber.
+     */
+    private final boolean dropTapped;
+
+    /**
+     * The encoding of RED packets, see RFC 2198.
+     */
+    private static final String ENCODING_RED = "red";
+
+    /**
+     * Creates new tap.
+     *
+     * @param transcriber the transcriber to give the audio to
+     * @param stream the audio stream of the conference call
+     * @param encoding the encoding to take
+     * @param dropTapped whether the packets which were given to the
+     * transcriber should not be decoded
+     */
+    public EncodedAudioTap(Transcriber transcriber, MediaStream stream, String encoding, boolean dropTapped)
+    {
+        super(RTPPacketPredicate.INSTANCE);
+
+        this.transcriber = transcriber;
+        this.stream = stream;
+        this.encoding = encoding;
+        this.dropTapped = dropTapped;
+    }
+
+    @Override
+    public RawPacket reverseTransform(RawPacket pkt)
+    {
+        MediaFormat format = stream.getFormat(pkt.getPayloadType());
+        if (format == null)
+        {
+            return pkt;
+        }
+
+        int payloadLength = pkt.getPayloadLength();
+        if (payloadLength <= 0)
+        {
+            return pkt;
+        }
+
+        byte[] buffer = pkt.getBuffer();
+        int payloadOffset = pkt.getOffset() + pkt.getHeaderLength();
+        int payloadEnd = payloadOffset + payloadLength;
+
+        if (ENCODING_RED.equalsIgnoreCase(format.getEncoding()))
+        {
+            int primaryOffset = getRedPrimaryOffset(buffer, payloadOffset, payloadEnd);
+            if (primaryOffset < 0 || primaryOffset >= payloadEnd)
+            {
+                return pkt;
+            }
+
+            format = stream.getFormat(getRedPrimaryPayloadType(buffer, payloadOffset));
+            if (format == null)
+            {
+                return pkt;
+            }
+            payloadOffset = primaryOffset;
+        }
+
+        if (!encoding.equalsIgnoreCase(format.getEncoding()))
+        {
+            return pkt;
+        }
+
+        byte[] payload = Arrays.copyOfRange(buffer, payloadOffset, payloadEnd);
+
+        transcriber.encodedAudioReceived(pkt.getSSRCAsLong(), payload);
+
+        return dropTapped ? null : pkt;
+    }
+
+    /**
+     * Finds the primary block of a RED payload, which follows the block
+     * headers and the redundant blocks.
+     *
+     * @param buffer the buffer holding the payload
+     * @param offset the offset of the payload
+     * @param end the end of the payload
+     * @return the offset of the primary block, or -1 if the payload is
+     * malformed
+     */
+    static int getRedPrimaryOffset(byte[] buffer, int offset, int end)
+    {
+        int redundantLength = 0;
+
+        // redundant blocks have a 4 bytes header with the F bit set
+        while (offset < end && (buffer[offset] & 0x80) != 0)
+        {
+            if (offset + 4 > end)
+            {
+                return -1;
+            }
+
+            redundantLength += ((buffer[offset + 2] & 0x03) << 8) | (buffer[offset + 3] & 0xFF);
+            offset += 4;
+        }
+
+        if (offset >= end)
+        {
+            return -1;
+        }
+
+        // skip the 1 byte header of the primary block
+        offset += 1 + redundantLength;
+
+        return offset <= end ? offset : -1;
+    }
+
+    /**
+     * Gets the payload type of the primary block of a RED payload, from the
+     * first block header without the F bit.
+     *
+     * @param buffer the buffer holding the payload
+     * @param offset the offset of the payload, which was checked with
+     * {@link #getRedPrimaryOffset(byte[], int, int)}
+     * @return the payload type
+     */
+    static byte getRedPrimaryPayloadType(byte[] buffer, int offset)
+    {
+        while ((buffer[offset] & 0x80) != 0)
+        {
+            offset += 4;
+        }
+
+        return (byte) (buffer[offset] & 0x7F);
+    }
+
+    /**
+     * Implements {@link TransformEngine#getRTPTransformer()}.
+     */
+    @Override
+    public PacketTransformer getRTPTransformer()
+    {
+        return this;
+    }
+
+    /**
+     * Implements {@link TransformEngine#getRTCPTransformer()}.
+     * <p>
+     * This <tt>TransformEngine</tt> does not transform RTCP packets.
+     */
+    @Override
+    public PacketTransformer getRTCPTransformer()
+    {
+        return null;
+    }
+}
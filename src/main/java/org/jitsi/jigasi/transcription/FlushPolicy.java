@@ -0,0 +1,261 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.jitsi.jigasi.*;
+import org.jitsi.service.configuration.*;
+
+/**
+ * Decides when a {@link Participant} sends the audio it buffered locally to
+ * the {@link TranscriptionService}.
+ * <p>
+ * The policy is read from the configuration, where every property can be
+ * overridden for a single service by appending the simple class name of the
+ * service, e.g.
+ * <tt>org.jitsi.jigasi.transcription.FLUSH_POLICY.WhisperTranscriptionService</tt>.
+ * It is read again every {@link #REFRESH_INTERVAL_MS}, so it can be changed
+ * at runtime without reading the configuration on every flush.
+ */
+public class FlushPolicy
+{
+    /**
+     * The policies.
+     */
+    enum Mode
+    {
+        /**
+         * Send every {@link #P_NAME_FLUSH_MS} of audio.
+         */
+        FIXED,
+
+        /**
+         * Send when speech ends, or at the latest every
+         * {@link #P_NAME_FLUSH_MS} of audio.
+         */
+        VAD,
+
+        /**
+         * Send an amount of audio following the round-trip time of the
+         * service, between {@link #P_NAME_FLUSH_MIN_MS} and
+         * {@link #P_NAME_FLUSH_MS}, so that a slow service receives fewer
+         * larger requests and a fast one gets the audio sooner.
+         */
+        ADAPTIVE
+    }
+
+    /**
+     * The property name for the policy, one of {@link Mode}.
+     */
+    public final static String P_NAME_FLUSH_POLICY
+        = "org.jitsi.jigasi.transcription.FLUSH_POLICY";
+
+    /**
+     * The property name for the duration in ms of the audio which is sent
+     * at once, or the maximum duration for {@link Mode#VAD} and
+     * {@link Mode#ADAPTIVE}. When not positive the audio is sent when the
+     * local buffer is full.
+     */
+    public final static String P_NAME_FLUSH_MS
+        = "org.jitsi.jigasi.transcription.FLUSH_MS";
+
+    /**
+     * The property name for the minimum duration in ms of the audio which is
+     * sent at once with {@link Mode#ADAPTIVE}.
+     */
+    public final static String P_NAME_FLUSH_MIN_MS
+        = "org.jitsi.jigasi.transcription.FLUSH_MIN_MS";
+
+    /**
+     * Default value for property FLUSH_MS, when the local buffer is full.
+     */
+    public final static int FLUSH_MS_DEFAULT_VALUE = 0;
+
+    /**
+     * Default value for property FLUSH_MIN_MS
+     */
+    public final static int FLUSH_MIN_MS_DEFAULT_VALUE = 100;
+
+    /**
+     * The weight of a new round-trip time in {@link #smoothedRoundTripMs}.
+     */
+    private static final double ROUND_TRIP_WEIGHT = 0.2;
+
+    /**
+     * The interval in ms at which the policy is read again from the
+     * configuration.
+     */
+    private static final long REFRESH_INTERVAL_MS = 10000;
+
+    /**
+     * The simple class name of the service, used for the overrides.
+     */
+    private final String serviceName;
+
+    /**
+     * The current policy.
+     */
+    private Mode mode = Mode.FIXED;
+
+    /**
+     * The current value of {@link #P_NAME_FLUSH_MS}.
+     */
+    private int flushMs = FLUSH_MS_DEFAULT_VALUE;
+
+    /**
+     * The current value of {@link #P_NAME_FLUSH_MIN_MS}.
+     */
+    private int minFlushMs = FLUSH_MIN_MS_DEFAULT_VALUE;
+
+    /**
+     * The exponentially weighted average of the round-trip times of the
+     * service, or -1 before the first one is known. Updated from the
+     * threads delivering the results.
+     */
+    private volatile double smoothedRoundTripMs = -1;
+
+    /**
+     * The time in {@link System#nanoTime()} the policy was last read.
+     */
+    private long lastRefreshNanos;
+
+    /**
+     * Creates new policy.
+     *
+     * @param serviceName the simple class name of the service
+     */
+    FlushPolicy(String serviceName)
+    {
+        this.serviceName = serviceName;
+        refresh();
+    }
+
+    /**
+     * Reads the policy from the configuration again, when it was not read
+     * for {@link #REFRESH_INTERVAL_MS}.
+     */
+    void maybeRefresh()
+    {
+        if (System.nanoTime() - lastRefreshNanos >= REFRESH_INTERVAL_MS * 1_000_000L)
+        {
+            refresh();
+        }
+    }
+
+    /**
+     * Reads the policy from the configuration again.
+     */
+    void refresh()
+    {
+        lastRefreshNanos = System.nanoTime();
+
+        String modeName = getProperty(P_NAME_FLUSH_POLICY);
+        Mode newMode = Mode.FIXED;
+        if (modeName != null)
+        {
+            try
+            {
+                newMode = Mode.valueOf(modeName.trim().toUpperCase());
+            }
+            catch (IllegalArgumentException e)
+            {
+                // keep the default
+            }
+        }
+
+        mode = newMode;
+        flushMs = getIntProperty(P_NAME_FLUSH_MS, FLUSH_MS_DEFAULT_VALUE);
+        minFlushMs = getIntProperty(P_NAME_FLUSH_MIN_MS, FLUSH_MIN_MS_DEFAULT_VALUE);
+    }
+
+    /**
+     * @return the duration in ms of the audio to buffer before sending it,
+     * or 0 to send when the local buffer is full.
+     */
+    int getFlushMs()
+    {
+        if (mode != Mode.ADAPTIVE)
+        {
+            return Math.max(0, flushMs);
+        }
+
+        double roundTrip = smoothedRoundTripMs;
+        if (roundTrip < 0)
+        {
+            return Math.max(0, flushMs);
+        }
+
+        int adaptive = Math.max(minFlushMs, (int) Math.round(roundTrip));
+
+        return flushMs > 0 ? Math.min(flushMs, adaptive) : adaptive;
+    }
+
+    /**
+     * @return whether the audio should be sent when speech ends.
+     */
+    boolean flushOnSpeechEnd()
+    {
+        return mode == Mode.VAD;
+    }
+
+    /**
+     * Records the time between sending audio and receiving the first result
+     * after it.
+     *
+     * @param roundTripMs the time in ms
+     */
+    void onRoundTrip(long roundTripMs)
+    {
+        double previous = smoothedRoundTripMs;
+        smoothedRoundTripMs = previous < 0
+            ? roundTripMs
+            : previous + ROUND_TRIP_WEIGHT * (roundTripMs - previous);
+    }
+
+    /**
+     * Gets a property, preferring the override for the service.
+     */
+    private String getProperty(String name)
+    {
+        ConfigurationService config = JigasiBundleActivator.getConfigurationService();
+
+        String value = config.getString(name + "." + serviceName);
+
+        return value != null ? value : config.getString(name);
+    }
+
+    /**
+     * Gets an int property, preferring the override for the service.
+     */
+    private int getIntProperty(String name, int defaultValue)
+    {
+        String value = getProperty(name);
+        if (value == null)
+        {
+            return defaultValue;
+        }
+
+        try
+        {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return defaultValue;
+        }
+    }
+}
@@ -25,6 +25,9 @@ import com.google.protobuf.*;
 import org.jitsi.jigasi.*;
 import org.jitsi.jigasi.stats.*;
 import org.jitsi.jigasi.transcription.action.*;
+import org.jitsi.jigasi.util.IdleExpiry;
+import org.jitsi.jigasi.util.SerialExecutor;
+import org.jitsi.service.configuration.*;
 import org.jitsi.utils.logging.*;
 
 import javax.media.format.*;
@@ -184,6 +187,46 @@ public class GoogleCloudTranscriptionService
      */
     private final static String DEFAULT_VALUE_GOOGLE_MODEL = "latest_long";
 
+    /**
+     * The property name for the ms of the latest audio sent again to the new
+     * stream when a long stream is replaced. When not positive the stream is
+     * closed before the new one is opened. The words transcribed by both
+     * streams are dropped, which also drops a word the speaker repeated at
+     * the end of the overlap, so this is off by default.
+     */
+    public final static String P_NAME_ROTATION_OVERLAP_MS
+        = "org.jitsi.jigasi.transcription.google.rotation_overlap_ms";
+
+    /**
+     * The default value for the property rotation_overlap_ms
+     */
+    public final static int ROTATION_OVERLAP_MS_DEFAULT_VALUE = 0;
+
+    /**
+     * The property name for how many ms of audio before a stream is replaced
+     * the new stream is opened.
+     */
+    public final static String P_NAME_ROTATION_LEAD_MS
+        = "org.jitsi.jigasi.transcription.google.rotation_lead_ms";
+
+    /**
+     * The default value for the property rotation_lead_ms
+     */
+    public final static int ROTATION_LEAD_MS_DEFAULT_VALUE = 2000;
+
+    /**
+     * The property name for the time in ms after which a stream is replaced,
+     * below the limit of the duration of a stream of the Google API.
+     */
+    public final static String P_NAME_MAX_STREAM_DURATION_MS
+        = "org.jitsi.jigasi.transcription.google.max_stream_duration_ms";
+
+    /**
+     * The default value for the property max_stream_duration_ms, the Google
+     * API ends streams after about 305 seconds.
+     */
+    public final static int MAX_STREAM_DURATION_MS_DEFAULT_VALUE = 290000;
+
     /**
      * Check whether the given string contains a supported language tag
      *
@@ -229,6 +272,21 @@ public class GoogleCloudTranscriptionService
      */
     private final String useModel;
 
+    /**
+     * The ms of audio sent again to the new stream when a stream is replaced.
+     */
+    private final int rotationOverlapMs;
+
+    /**
+     * The ms of audio before a stream is replaced to open the new one.
+     */
+    private final int rotationLeadMs;
+
+    /**
+     * The time in ms after which a stream is replaced.
+     */
+    private final int maxStreamDurationMs;
+
     /**
      * Creates the RecognitionConfig the Google service uses based
      * on the TranscriptionRequest
@@ -282,8 +340,12 @@ public class GoogleCloudTranscriptionService
      */
     public GoogleCloudTranscriptionService()
     {
-        useModel = JigasiBundleActivator.getConfigurationService()
-            .getString(GOOGLE_MODEL, DEFAULT_VALUE_GOOGLE_MODEL);
+        ConfigurationService config = JigasiBundleActivator.getConfigurationService();
+
+        useModel = config.getString(GOOGLE_MODEL, DEFAULT_VALUE_GOOGLE_MODEL);
+        rotationOverlapMs = config.getInt(P_NAME_ROTATION_OVERLAP_MS, ROTATION_OVERLAP_MS_DEFAULT_VALUE);
+        rotationLeadMs = config.getInt(P_NAME_ROTATION_LEAD_MS, ROTATION_LEAD_MS_DEFAULT_VALUE);
+        maxStreamDurationMs = config.getInt(P_NAME_MAX_STREAM_DURATION_MS, MAX_STREAM_DURATION_MS_DEFAULT_VALUE);
     }
 
     /**
@@ -317,15 +379,20 @@ public class GoogleCloudTranscriptionService
     public void sendSingleRequest(final TranscriptionRequest request,
                             final Consumer<TranscriptionResult> resultConsumer)
     {
-        // Try to create the client, which can throw an IOException
+        GoogleSpeechClientPool.PooledClient pooledClient = null;
+
+        // Try to get the client, which can throw an IOException
         try
         {
             Instant timeRequestReceived = Instant.now();
-            SpeechClient client = SpeechClient.create();
+            pooledClient = GoogleSpeechClientPool.acquire();
+            SpeechClient client = pooledClient.getClient();
 
             RecognitionConfig config = getRecognitionConfig(request);
 
-            ByteString audioBytes = ByteString.copyFrom(request.getAudio());
+            // recognize() returns once the request was answered, the audio of
+            // the request is kept by the caller until then
+            ByteString audioBytes = getAudioBytes(request);
             RecognitionAudio audio = RecognitionAudio.newBuilder()
                     .setContent(audioBytes)
                     .build();
@@ -333,13 +400,14 @@ public class GoogleCloudTranscriptionService
             RecognizeResponse recognizeResponse =
                     client.recognize(config, audio);
 
-            client.close();
-
             StringBuilder builder = new StringBuilder();
             for (SpeechRecognitionResult result :
                     recognizeResponse.getResultsList())
             {
-                builder.append(result.toString());
+                if (result.getAlternativesCount() > 0)
+                {
+                    builder.append(result.getAlternatives(0).getTranscript());
+                }
                 builder.append(" ");
             }
 
@@ -359,6 +427,68 @@ public class GoogleCloudTranscriptionService
             Statistics.incrementTotalTranscriberSendErrors();
             logger.error("Error sending single req", e);
         }
+        finally
+        {
+            if (pooledClient != null)
+            {
+                GoogleSpeechClientPool.release(pooledClient);
+            }
+        }
+    }
+
+    /**
+     * Drops the words at the start of a transcript which end the transcript
+     * which precedes it, as both were transcribed from the same audio.
+     * Words are compared ignoring case and punctuation, so words which were
+     * really repeated, like "that that", are dropped as well.
+     *
+     * @param before the preceding transcript
+     * @param transcript the transcript
+     * @return the transcript without the words repeated from before
+     */
+    static String dropRepeatedWords(String before, String transcript)
+    {
+        String[] beforeWords = before.trim().split("\\s+");
+        String[] words = transcript.trim().split("\\s+");
+
+        for (int count = Math.min(beforeWords.length, words.length); count > 0; count--)
+        {
+            boolean repeated = true;
+            for (int i = 0; i < count && repeated; i++)
+            {
+                repeated = normalizeWord(beforeWords[beforeWords.length - count + i])
+                    .equals(normalizeWord(words[i]));
+            }
+
+            if (repeated && !normalizeWord(words[0]).isEmpty())
+            {
+                return String.join(" ", Arrays.copyOfRange(words, count, words.length));
+            }
+        }
+
+        return transcript;
+    }
+
+    /**
+     * @return the word in lower case without punctuation.
+     */
+    private static String normalizeWord(String word)
+    {
+        return word.replaceAll("\\p{Punct}", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Get the audio of a request for a gRPC message. The audio is wrapped,
+     * not copied, so the request has to be held until gRPC is done with the
+     * message, as the buffer of the request goes back to its pool once it
+     * was released.
+     *
+     * @param request the request
+     * @return the audio of the request
+     */
+    static ByteString getAudioBytes(TranscriptionRequest request)
+    {
+        return UnsafeByteOperations.unsafeWrap(request.getAudioBuffer());
     }
 
     @Override
@@ -409,10 +539,10 @@ public class GoogleCloudTranscriptionService
     {
 
         /**
-         * The SpeechClient which will be used to initiate and to end the
-         * session
+         * The client of the {@link GoogleSpeechClientPool} which will be used
+         * to initiate the session, or null if none could be created
          */
-        private SpeechClient client;
+        private GoogleSpeechClientPool.PooledClient client;
 
         /**
          * Extra string added to every log.
@@ -426,10 +556,11 @@ public class GoogleCloudTranscriptionService
         private RequestApiStreamObserverManager requestManager;
 
         /**
-         * A single thread which is used to send all requests to the API.
-         * This is needed to reliably sent the first request to the service
+         * The queue which is used to send all requests to the API in order.
+         * This is needed to reliably sent the first request to the service.
+         * It runs on the pool shared by all transcribers.
          */
-        private ExecutorService service = Executors.newSingleThreadExecutor();
+        private final SerialExecutor service = new SerialExecutor(Transcriber.getExecutorPool());
 
         /**
          * Create a new session with the Google Cloud API
@@ -440,9 +571,9 @@ public class GoogleCloudTranscriptionService
 
             try
             {
-                this.client = SpeechClient.create();
+                this.client = GoogleSpeechClientPool.acquire();
                 this.requestManager
-                    = new RequestApiStreamObserverManager(client, debugName);
+                    = new RequestApiStreamObserverManager(client.getClient(), debugName);
             }
             catch(Exception e)
             {
@@ -454,17 +585,33 @@ public class GoogleCloudTranscriptionService
         @Override
         public void sendRequest(final TranscriptionRequest request)
         {
-            this.service.execute(() -> {
-                try
-                {
-                    requestManager.sentRequest(request);
-                }
-                catch(Exception e)
-                {
-                    Statistics.incrementTotalTranscriberSendErrors();
-                    logger.warn(debugName + ": not able to send request", e);
-                }
-            });
+            // the audio is sent asynchronously, keep it until it was sent
+            request.retain();
+            try
+            {
+                this.service.execute(() -> {
+                    try
+                    {
+                        requestManager.sentRequest(request);
+                        request.markSent();
+                    }
+                    catch(Exception e)
+                    {
+                        Statistics.incrementTotalTranscriberSendErrors();
+                        logger.warn(debugName + ": not able to send request", e);
+                    }
+                    finally
+                    {
+                        request.release();
+                    }
+                });
+            }
+            catch (RejectedExecutionException e)
+            {
+                request.release();
+                logger.warn(debugName + ": not able to send request, session ended");
+                return;
+            }
             if (logger.isTraceEnabled())
                 logger.trace(debugName + ": queued request");
         }
@@ -478,9 +625,13 @@ public class GoogleCloudTranscriptionService
         @Override
         public void end()
         {
+            if (service.isShutdown())
+            {
+                return;
+            }
+
             try
             {
-                client.close();
                 requestManager.stop();
                 service.shutdown();
                 // Note that we can't close the responseObserver yet
@@ -491,6 +642,14 @@ public class GoogleCloudTranscriptionService
                 Statistics.incrementTotalTranscriberConnectionErrors();
                 logger.error(debugName + ": error ending session", e);
             }
+            finally
+            {
+                if (client != null)
+                {
+                    GoogleSpeechClientPool.release(client);
+                    client = null;
+                }
+            }
         }
 
         @Override
@@ -599,6 +758,11 @@ public class GoogleCloudTranscriptionService
      * A Manager for RequestApiStreamObserver instances.
      * It will make sure a RequestApiStreamObserver will only be used for a
      * minute, as that is the maximum amount of time supported by the Google API
+     * <p>
+     * A stream which is still transcribing when it reaches that minute, or
+     * the maximum duration of a stream, is replaced without a gap: the new
+     * stream is opened shortly before, it is sent the latest audio again and
+     * the words it transcribes twice are dropped from its results.
      */
     private class RequestApiStreamObserverManager
     {
@@ -619,11 +783,37 @@ public class GoogleCloudTranscriptionService
         private final List<TranscriptionListener> listeners = new ArrayList<>();
 
         /**
-         * The ApiStreamObserver which will send new audio request to be
+         * The ClientStream which will send new audio request to be
          * transcribed
          */
-        private ApiStreamObserver<StreamingRecognizeRequest>
-            currentRequestObserver;
+        private ClientStream<StreamingRecognizeRequest> currentRequestObserver;
+
+        /**
+         * The observer of the responses to {@link #currentRequestObserver}
+         */
+        private ResponseApiStreamingObserver<StreamingRecognizeResponse> currentResponseObserver;
+
+        /**
+         * The time, in {@link System#nanoTime()}, at which the
+         * {@link #currentRequestObserver} was opened.
+         */
+        private long currentStartNanos;
+
+        /**
+         * The stream opened ahead of replacing the current one, or null.
+         */
+        private ResponseApiStreamingObserver<StreamingRecognizeResponse> nextResponseObserver;
+
+        /**
+         * The latest requests sent to the current stream, held to be sent
+         * again to the stream which replaces it.
+         */
+        private final Deque<TranscriptionRequest> overlap = new ArrayDeque<>();
+
+        /**
+         * The ms of audio in {@link #overlap}.
+         */
+        private long overlapMs = 0;
 
         /**
          * Lock used to access the currentRequestObserver
@@ -631,9 +821,9 @@ public class GoogleCloudTranscriptionService
         private final Object currentRequestObserverLock = new Object();
 
         /**
-         * Thread used to terminate a session when no new requests are coming in
+         * Terminates the current session when no new requests are coming in
          */
-        private TerminatingSessionThread terminatingSessionThread;
+        private IdleExpiry idleExpiry;
 
         /**
          * Whether this manager has stopped and will not make new sessions
@@ -661,13 +851,13 @@ public class GoogleCloudTranscriptionService
         }
 
         /**
-         * Create a new ApiStreamObserver by instantiating it and sending the
+         * Create a new ClientStream by instantiating it and sending the
          * first request, which contains the configuration
          *
          * @param config the configuration of the session
-         * @return the ApiStreamObserver
+         * @return the observer of the responses, which holds the ClientStream
          */
-        private ApiStreamObserver<StreamingRecognizeRequest> createObserver(
+        private ResponseApiStreamingObserver<StreamingRecognizeResponse> createObserver(
             RecognitionConfig config)
         {
             // Each observer gets its own responseObserver to be able to
@@ -693,27 +883,21 @@ public class GoogleCloudTranscriptionService
                 StreamingRecognizeResponse> callable = client
                 .streamingRecognizeCallable();
 
-            // An ApiObserver which will be used to send all requests
+            // A ClientStream which will be used to send all requests
             // The responses will be delivered to the responseObserver
             // which is already created
-            ApiStreamObserver<StreamingRecognizeRequest> requestObserver
-                = callable.bidiStreamingCall(responseObserver);
+            ClientStream<StreamingRecognizeRequest> requestObserver
+                = callable.splitCall(responseObserver);
+            responseObserver.setRequestStream(requestObserver);
 
             // Sent the first request which needs to **only** contain the
             // StreamingRecognitionConfig
-            requestObserver.onNext(
+            requestObserver.send(
                 StreamingRecognizeRequest.newBuilder()
                     .setStreamingConfig(streamingRecognitionConfig)
                     .build());
 
-            // Create the thread which will cancel this session when
-            // it is not receiving audio
-            terminatingSessionThread
-                = new TerminatingSessionThread(this,
-                                                STREAMING_SESSION_TIMEOUT_MS);
-            terminatingSessionThread.start();
-
-            return requestObserver;
+            return responseObserver;
         }
 
         /**
@@ -730,38 +914,64 @@ public class GoogleCloudTranscriptionService
                 return;
             }
 
-            // If the first request with the config has been sent,
-            // all other requests need to contain **only** the audio
-            // ByteString
-            byte[] audio = request.getAudio();
-            ByteString audioBytes = ByteString.copyFrom(audio);
             long durationInMs = request.getDurationInMs();
 
-            if (costLogger.aboveCostInterval(durationInMs))
-            {
-                this.terminateCurrentSession();
-            }
-
             synchronized(currentRequestObserverLock)
             {
+                if (shouldReplace(durationInMs))
+                {
+                    if (rotationOverlapMs > 0)
+                    {
+                        replaceCurrentSession(request);
+                    }
+                    else
+                    {
+                        this.terminateCurrentSession();
+                    }
+                }
+                else if (rotationOverlapMs > 0
+                    && nextResponseObserver == null
+                    && shouldReplace(durationInMs + rotationLeadMs))
+                {
+                    if (logger.isDebugEnabled())
+                        logger.debug(debugName + ": opened the next session");
+
+                    nextResponseObserver = createObserver(getRecognitionConfig(request));
+                }
+
                 if (currentRequestObserver == null)
                 {
                     if (logger.isDebugEnabled())
                         logger.debug(debugName + ": created a new session");
 
-                    currentRequestObserver
+                    currentResponseObserver
                         = createObserver(getRecognitionConfig(request));
+                    currentRequestObserver = currentResponseObserver.getRequestStream();
+                    currentStartNanos = System.nanoTime();
+
+                    // Cancel this session when it is not receiving audio
+                    idleExpiry = IdleExpiry.start(STREAMING_SESSION_TIMEOUT_MS, this::terminateIdleSession);
                 }
 
                 costLogger.increment(durationInMs);
                 costLogger.incrementRequestsCounter();
 
-                currentRequestObserver.onNext(
+                // If the first request with the config has been sent,
+                // all other requests need to contain **only** the audio
+                // ByteString. gRPC may read the audio after the send returned:
+                // it queues the messages until the stream is started, and
+                // keeps them to retry the call until the first response. So
+                // the wrapped request is held by the stream until the next
+                // response, or until the stream is closed.
+                currentResponseObserver.hold(request);
+                currentRequestObserver.send(
                     StreamingRecognizeRequest.newBuilder()
-                        .setAudioContent(audioBytes)
+                        .setAudioContent(getAudioBytes(request))
                         .build());
 
-                terminatingSessionThread.interrupt();
+                idleExpiry.touch();
+
+                addToOverlap(request, durationInMs);
             }
             if (logger.isTraceEnabled())
                 logger.trace(debugName + ": sent a request");
@@ -810,20 +1020,167 @@ public class GoogleCloudTranscriptionService
                     if (logger.isDebugEnabled())
                         logger.debug(debugName + ": terminated current session");
 
-                    currentRequestObserver.onCompleted();
+                    currentRequestObserver.closeSend();
                     currentRequestObserver = null;
+                    currentResponseObserver = null;
 
                     costLogger.sessionEnded();
                 }
 
-                if (terminatingSessionThread != null &&
-                    terminatingSessionThread.isAlive())
+                if (nextResponseObserver != null)
+                {
+                    nextResponseObserver.getRequestStream().closeSend();
+                    nextResponseObserver = null;
+                }
+
+                if (idleExpiry != null)
+                {
+                    idleExpiry.cancel();
+                    idleExpiry = null;
+                }
+
+                clearOverlap();
+            }
+        }
+
+        /**
+         * Close the stream of the given observer when it is still used. The
+         * streams which were already replaced or closed are left alone.
+         *
+         * @param responseObserver the observer of the stream
+         */
+        void terminateSession(ResponseApiStreamingObserver<?> responseObserver)
+        {
+            synchronized(currentRequestObserverLock)
+            {
+                if (responseObserver == currentResponseObserver)
+                {
+                    terminateCurrentSession();
+                }
+                else if (responseObserver == nextResponseObserver)
+                {
+                    nextResponseObserver.getRequestStream().closeSend();
+                    nextResponseObserver = null;
+                }
+            }
+        }
+
+        /**
+         * Get whether the current stream has to be replaced before it is
+         * sent the given amount of audio, because it reaches the cost
+         * interval or the maximum duration of a stream.
+         *
+         * @param durationInMs the ms of audio to send
+         * @return true when the stream has to be replaced
+         */
+        private boolean shouldReplace(long durationInMs)
+        {
+            if (currentRequestObserver == null)
+            {
+                return false;
+            }
+
+            long ageMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - currentStartNanos);
+
+            return costLogger.aboveCostInterval(durationInMs) || ageMs + durationInMs >= maxStreamDurationMs;
+        }
+
+        /**
+         * Replace the current stream with the one opened ahead, or a new one,
+         * without a gap in the audio: the latest audio is sent again to the
+         * new stream before the current one is closed, and the new stream
+         * drops the words of its results which the current one already
+         * transcribed.
+         *
+         * @param request the request which is about to be sent
+         */
+        private void replaceCurrentSession(TranscriptionRequest request)
+        {
+            ResponseApiStreamingObserver<StreamingRecognizeResponse> next = nextResponseObserver;
+            nextResponseObserver = null;
+            if (next == null)
+            {
+                next = createObserver(getRecognitionConfig(request));
+            }
+            next.setPrevious(currentResponseObserver);
+
+            if (logger.isDebugEnabled())
+                logger.debug(debugName + ": replacing the current session, sending "
+                    + overlapMs + "ms again");
+
+            for (TranscriptionRequest overlapRequest : overlap)
+            {
+                next.hold(overlapRequest);
+                next.getRequestStream().send(
+                    StreamingRecognizeRequest.newBuilder()
+                        .setAudioContent(getAudioBytes(overlapRequest))
+                        .build());
+            }
+
+            currentRequestObserver.closeSend();
+            costLogger.sessionEnded();
+            costLogger.increment(overlapMs);
+
+            currentResponseObserver = next;
+            currentRequestObserver = next.getRequestStream();
+            currentStartNanos = System.nanoTime();
+        }
+
+        /**
+         * Hold a request which was sent to the current stream, so that it
+         * can be sent again to the stream which replaces it, and release the
+         * requests older than the overlap.
+         *
+         * @param request the request
+         * @param durationInMs the ms of audio of the request
+         */
+        private void addToOverlap(TranscriptionRequest request, long durationInMs)
+        {
+            if (rotationOverlapMs <= 0 || durationInMs <= 0)
+            {
+                return;
+            }
+
+            overlap.addLast(request.retain());
+            overlapMs += durationInMs;
+
+            while (overlap.size() > 1 && overlapMs - overlap.getFirst().getDurationInMs() >= rotationOverlapMs)
+            {
+                TranscriptionRequest oldest = overlap.removeFirst();
+                overlapMs -= oldest.getDurationInMs();
+                oldest.release();
+            }
+        }
+
+        /**
+         * Release the requests held to be sent again.
+         */
+        private void clearOverlap()
+        {
+            TranscriptionRequest request;
+            while ((request = overlap.pollFirst()) != null)
+            {
+                request.release();
+            }
+            overlapMs = 0;
+        }
+
+        /**
+         * Close the currentRequestObserver because it did not receive audio
+         * for {@link #STREAMING_SESSION_TIMEOUT_MS}. Expiries of sessions
+         * which were already terminated are ignored.
+         */
+        private void terminateIdleSession()
+        {
+            synchronized(currentRequestObserverLock)
+            {
+                if (idleExpiry == null || !idleExpiry.isDone())
                 {
-                    terminatingSessionThread.setStopIfInterrupted(true);
-                    terminatingSessionThread.interrupt();
-                    terminatingSessionThread = null;
+                    return;
                 }
             }
+
+            terminateCurrentSession();
         }
     }
 
@@ -838,7 +1195,7 @@ public class GoogleCloudTranscriptionService
      */
     private static class ResponseApiStreamingObserver
         <T extends StreamingRecognizeResponse>
-        implements ApiStreamObserver<T>
+        implements ResponseObserver<T>
     {
         /**
          * Extra text added to logs.
@@ -877,7 +1234,26 @@ public class GoogleCloudTranscriptionService
          * which change only unstable parts to reduce the number of updates
          * sent to the client.
          */
-        private String latestTranscript = "";
+        private volatile String latestTranscript = "";
+
+        /**
+         * The stream to send the audio whose results this observer receives.
+         */
+        private ClientStream<StreamingRecognizeRequest> requestStream;
+
+        /**
+         * The observer of the stream this stream replaced, while this stream
+         * did not give a final result. The words at the start of the results
+         * of this stream which end its latest transcript are dropped, as they
+         * were sent to both streams.
+         */
+        private volatile ResponseApiStreamingObserver<?> previous;
+
+        /**
+         * The requests whose audio was sent to this stream since the last
+         * response, which gRPC may still read.
+         */
+        private final List<TranscriptionRequest> held = new ArrayList<>();
 
         /**
          * Create a ResponseApiStreamingObserver which listens for transcription
@@ -897,9 +1273,77 @@ public class GoogleCloudTranscriptionService
             this.timeStamp = Instant.now();
         }
 
+        /**
+         * @param requestStream the stream to send the audio
+         */
+        void setRequestStream(ClientStream<StreamingRecognizeRequest> requestStream)
+        {
+            this.requestStream = requestStream;
+        }
+
+        /**
+         * @return the stream to send the audio.
+         */
+        ClientStream<StreamingRecognizeRequest> getRequestStream()
+        {
+            return requestStream;
+        }
+
+        /**
+         * @param previous the observer of the stream this stream replaced
+         */
+        void setPrevious(ResponseApiStreamingObserver<?> previous)
+        {
+            this.previous = previous;
+        }
+
+        /**
+         * @return the stable part of the latest result of this stream.
+         */
+        String getLatestTranscript()
+        {
+            return latestTranscript;
+        }
+
+        /**
+         * Hold a request whose audio is sent to this stream, until the next
+         * response or until the stream is closed. The messages sent before a
+         * response are not queued nor kept to retry the call anymore once it
+         * came in, and the ones sent after it are serialized before the send
+         * returns, while the sender still holds the request.
+         *
+         * @param request the request
+         */
+        void hold(TranscriptionRequest request)
+        {
+            synchronized (held)
+            {
+                held.add(request.retain());
+            }
+        }
+
+        /**
+         * Release the requests held by this stream.
+         */
+        private void releaseHeld()
+        {
+            synchronized (held)
+            {
+                held.forEach(TranscriptionRequest::release);
+                held.clear();
+            }
+        }
+
         @Override
-        public void onNext(StreamingRecognizeResponse message)
+        public void onStart(StreamController controller)
         {
+        }
+
+        @Override
+        public void onResponse(StreamingRecognizeResponse message)
+        {
+            releaseHeld();
+
             if (logger.isDebugEnabled())
                 logger.debug(debugName + ": received a StreamingRecognizeResponse");
             if (message.hasError())
@@ -915,7 +1359,7 @@ public class GoogleCloudTranscriptionService
                     logger.debug(
                         debugName + ": received error from StreamingRecognizeResponse: "
                              + message.getError().getMessage());
-                requestManager.terminateCurrentSession();
+                requestManager.terminateSession(this);
                 return;
             }
 
@@ -925,7 +1369,7 @@ public class GoogleCloudTranscriptionService
                     logger.debug(
                         debugName + ": received a message with an empty results list");
                 Statistics.incrementTotalTranscriberNoResultErrors();
-                requestManager.terminateCurrentSession();
+                requestManager.terminateSession(this);
                 return;
             }
 
@@ -941,14 +1385,14 @@ public class GoogleCloudTranscriptionService
                 logger.warn(
                     debugName + ": received a list of alternatives which"
                             + " was empty");
-                requestManager.terminateCurrentSession();
+                requestManager.terminateSession(this);
                 return;
             }
 
             if (result.getIsFinal())
             {
                 handleResult(result);
-                requestManager.terminateCurrentSession();
+                requestManager.terminateSession(this);
             }
             else
             {
@@ -988,6 +1432,16 @@ public class GoogleCloudTranscriptionService
             SpeechRecognitionAlternative alternative = result.getAlternatives(0);
             String newTranscript = alternative.getTranscript();
 
+            ResponseApiStreamingObserver<?> previous = this.previous;
+            if (previous != null)
+            {
+                newTranscript = dropRepeatedWords(previous.getLatestTranscript(), newTranscript);
+                if (result.getIsFinal())
+                {
+                    this.previous = null;
+                }
+            }
+
             if (this.latestTranscript.equals(newTranscript) &&
                 (!result.getIsFinal() || newTranscript.length() == 0))
             {
@@ -1021,6 +1475,7 @@ public class GoogleCloudTranscriptionService
         @Override
         public void onError(Throwable t)
         {
+            releaseHeld();
             logger.warn(debugName + ": received an error from the Google Cloud API", t);
             Statistics.incrementTotalTranscriberSendErrors();
             if (t instanceof ResourceExhaustedException)
@@ -1034,13 +1489,14 @@ public class GoogleCloudTranscriptionService
             }
             else
             {
-                requestManager.terminateCurrentSession();
+                requestManager.terminateSession(this);
             }
         }
 
         @Override
-        public void onCompleted()
+        public void onComplete()
         {
+            releaseHeld();
             for (TranscriptionListener listener : requestManager.getListeners())
             {
                 listener.completed();
@@ -1068,78 +1524,4 @@ public class GoogleCloudTranscriptionService
             }
         }
     }
-
-    /**
-     * This thread is used to cancel a RequestObserver when no new audio is
-     * being given. The thread needs to be kept-alive by using the
-     * {@link TerminatingSessionThread#interrupt()} ()} method, which resets the
-     * timer to 0
-     */
-    private static class TerminatingSessionThread
-        extends Thread
-    {
-
-        /**
-         * The manager which will be told to terminate the current session
-         * when the specified amount of time has passed
-         */
-        private RequestApiStreamObserverManager manager;
-
-        /**
-         * The amount of ms after which the manager should be told to terminate
-         * the session
-         */
-        private int terminateAfter;
-
-        /**
-         * If this is set to true, interrupting the thread will kill the thread
-         * instead of resetting the counter
-         */
-        private boolean stopIfInterrupted = false;
-
-        /**
-         * Create a Thread which will tell the given manager to terminate its
-         * thread as soon as the given amount of ms has passed, unless
-         * {@link TerminatingSessionThread#interrupt()} ()} has been called
-         *
-         * @param manager the manager
-         * @param ms the amount of time in ms
-         */
-        TerminatingSessionThread(RequestApiStreamObserverManager manager,
-                                        int ms)
-        {
-            this.manager = manager;
-            this.terminateAfter = ms;
-        }
-
-        @Override
-        public void run()
-        {
-            try
-            {
-                sleep(terminateAfter);
-                manager.terminateCurrentSession();
-            }
-            catch(InterruptedException e)
-            {
-                if (!stopIfInterrupted)
-                {
-                    run();
-                }
-            }
-        }
-
-        /**
-         * Set whether the thread should kill itself when interrupted or reset
-         * the counter
-         *
-         * @param stopIfInterrupted If true, thread will kill itself when
-         *                          interrupted, otherwise counter will be reset
-         */
-        void setStopIfInterrupted(boolean stopIfInterrupted)
-        {
-            this.stopIfInterrupted = stopIfInterrupted;
-        }
-    }
-
 }
@@ -0,0 +1,163 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import com.google.cloud.speech.v1.*;
+import org.jitsi.jigasi.*;
+import org.jitsi.utils.logging.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Hands out the {@link SpeechClient}s used by the Google streaming sessions.
+ * Creating a client opens a new gRPC channel, with its own executor and TLS
+ * handshake, so instead of one client per participant all sessions on this
+ * node share the clients of this pool, each of which multiplexes up to
+ * {@link #P_NAME_MAX_STREAMS_PER_CHANNEL} sessions over its channel.
+ * <p>
+ * {@link #P_NAME_CHANNEL_POOL_SIZE} clients are kept open once created and
+ * the sessions are spread over them. When all of them are full, more are
+ * created, which are closed again when their last session ends.
+ */
+public class GoogleSpeechClientPool
+{
+    /**
+     * The config key of the number of clients the sessions are spread over.
+     */
+    public final static String P_NAME_CHANNEL_POOL_SIZE
+        = "org.jitsi.jigasi.transcription.google.channel_pool_size";
+
+    /**
+     * The config key of the maximum number of sessions using a client.
+     */
+    public final static String P_NAME_MAX_STREAMS_PER_CHANNEL
+        = "org.jitsi.jigasi.transcription.google.max_streams_per_channel";
+
+    /**
+     * The default number of clients the sessions are spread over.
+     */
+    public final static int CHANNEL_POOL_SIZE_DEFAULT_VALUE = 1;
+
+    /**
+     * The default maximum number of sessions using a client, the usual
+     * limit of concurrent streams of an HTTP/2 connection.
+     */
+    public final static int MAX_STREAMS_PER_CHANNEL_DEFAULT_VALUE = 100;
+
+    /**
+     * The logger for this class
+     */
+    private final static Logger logger = Logger.getLogger(GoogleSpeechClientPool.class);
+
+    /**
+     * The number of clients the sessions are spread over.
+     */
+    private final static int poolSize = Math.max(1, JigasiBundleActivator.getConfigurationService()
+        .getInt(P_NAME_CHANNEL_POOL_SIZE, CHANNEL_POOL_SIZE_DEFAULT_VALUE));
+
+    /**
+     * The maximum number of sessions using a client.
+     */
+    private final static int maxStreamsPerChannel = Math.max(1, JigasiBundleActivator.getConfigurationService()
+        .getInt(P_NAME_MAX_STREAMS_PER_CHANNEL, MAX_STREAMS_PER_CHANNEL_DEFAULT_VALUE));
+
+    /**
+     * The open clients.
+     */
+    private final static List<PooledClient> clients = new ArrayList<>();
+
+    /**
+     * Gets a client for a new session, creating it if needed. It must be
+     * given back with {@link #release(PooledClient)} once the session ended.
+     *
+     * @return the client
+     * @throws IOException if a new client could not be created
+     */
+    static synchronized PooledClient acquire()
+        throws IOException
+    {
+        PooledClient client = clients.stream()
+            .min(Comparator.comparingInt(c -> c.streams))
+            .orElse(null);
+
+        if (client == null
+            || client.streams >= maxStreamsPerChannel
+            || (client.streams > 0 && clients.size() < poolSize))
+        {
+            client = new PooledClient(SpeechClient.create());
+            clients.add(client);
+
+            if (clients.size() > poolSize)
+            {
+                logger.warn("All Google speech clients are full, opened client number " + clients.size());
+            }
+        }
+
+        client.streams++;
+
+        return client;
+    }
+
+    /**
+     * Gives back a client acquired with {@link #acquire()}. Results of the
+     * session can still be received, the client is not closed right away.
+     *
+     * @param client the client
+     */
+    static synchronized void release(PooledClient client)
+    {
+        client.streams--;
+
+        if (client.streams <= 0 && clients.size() > poolSize)
+        {
+            clients.remove(client);
+            // lets the calls which are still open complete
+            client.client.shutdown();
+        }
+    }
+
+    /**
+     * A client of the pool.
+     */
+    static class PooledClient
+    {
+        /**
+         * The client.
+         */
+        private final SpeechClient client;
+
+        /**
+         * The number of sessions using the client.
+         */
+        private int streams = 0;
+
+        private PooledClient(SpeechClient client)
+        {
+            this.client = client;
+        }
+
+        /**
+         * @return the client.
+         */
+        SpeechClient getClient()
+        {
+            return client;
+        }
+    }
+}
@@ -20,11 +20,10 @@ package org.jitsi.jigasi.transcription;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
-import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 import org.jitsi.jigasi.JigasiBundleActivator;
@@ -68,6 +67,11 @@ public class LibreTranslateTranslationService
 
     private final Logger logger = Logger.getLogger(LibreTranslateTranslationService.class);
 
+    /*
+     * The client shared by all LibreTranslate translations, see TranslationHttpClient.
+     */
+    private final CloseableHttpClient httpClient = TranslationHttpClient.get("libretranslate");
+
     public LibreTranslateTranslationService()
     {
         apiUrl = JigasiBundleActivator.getConfigurationService().getString(API_URL, DEFAULT_API_URL);
@@ -110,14 +114,13 @@ public class LibreTranslateTranslationService
 
         StringEntity entity = new StringEntity(payload, ContentType.APPLICATION_JSON);
 
-        HttpResponse response;
-        try (CloseableHttpClient httpClient = HttpClientBuilder.create().build())
+        HttpPost request = new HttpPost(apiUrl);
+        request.setEntity(entity);
+        request.setHeader("Accept", "application/json");
+        request.setHeader("Content-type", "application/json");
+
+        try (CloseableHttpResponse response = httpClient.execute(request))
         {
-            HttpPost request = new HttpPost(apiUrl);
-            request.setEntity(entity);
-            request.setHeader("Accept", "application/json");
-            request.setHeader("Content-type", "application/json");
-            response = httpClient.execute(request);
             String jsonBody = EntityUtils.toString(response.getEntity());
             int statusCode = response.getStatusLine().getStatusCode();
             if (statusCode != 200)
@@ -228,7 +228,7 @@ public class LocalJsonTranscriptHandler
     @Override
     public void publish(JvbConference jvbConference, TranscriptionResult result)
     {
-        jvbConference.sendJsonMessage(createTranscriptionJSONObject(result));
+        jvbConference.sendJsonMessage(createTranscriptionJSONObject(result), result::published);
     }
 
     @Override
@@ -277,6 +277,8 @@ public class LocalJsonTranscriptHandler
         eventObject.put(JSON_KEY_ALTERNATIVE_TEXT, result.getTranslatedText());
         eventObject.put(JSON_KEY_EVENT_MESSAGE_ID,
                 result.getTranscriptionResult().getMessageID().toString());
+        eventObject.put(JSON_KEY_EVENT_IS_INTERIM,
+                result.getTranscriptionResult().isInterim());
 
         return eventObject;
     }
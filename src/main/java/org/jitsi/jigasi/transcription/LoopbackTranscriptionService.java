@@ -0,0 +1,444 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.jitsi.jigasi.*;
+import org.jitsi.jigasi.util.*;
+import org.jitsi.service.configuration.*;
+import org.jitsi.utils.concurrent.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * A TranscriptionService which transcribes nothing, for load testing the
+ * {@link Transcriber} and the publishers without a speech-to-text server.
+ * It answers the audio it is given with synthetic results after a
+ * configurable latency: a partial result every
+ * {@link #P_NAME_PARTIAL_INTERVAL_MS} of audio and a final one every
+ * {@link #P_NAME_FINAL_INTERVAL_MS}, holding
+ * {@link #P_NAME_WORDS_PER_SECOND} words per second of audio. The text only
+ * depends on the amount of audio, so runs can be compared.
+ */
+public class LoopbackTranscriptionService
+    extends AbstractTranscriptionService
+{
+    /**
+     * The config key of the time in ms between receiving audio and
+     * answering it.
+     */
+    public final static String P_NAME_LATENCY_MS
+        = "org.jitsi.jigasi.transcription.loopback.latency_ms";
+
+    /**
+     * The default latency.
+     */
+    public final static int LATENCY_MS_DEFAULT_VALUE = 300;
+
+    /**
+     * The config key of the ms of audio after which a partial result is
+     * given, not positive to give no partial results.
+     */
+    public final static String P_NAME_PARTIAL_INTERVAL_MS
+        = "org.jitsi.jigasi.transcription.loopback.partial_interval_ms";
+
+    /**
+     * The default ms of audio between partial results.
+     */
+    public final static int PARTIAL_INTERVAL_MS_DEFAULT_VALUE = 500;
+
+    /**
+     * The config key of the ms of audio after which a final result is given.
+     */
+    public final static String P_NAME_FINAL_INTERVAL_MS
+        = "org.jitsi.jigasi.transcription.loopback.final_interval_ms";
+
+    /**
+     * The default ms of audio between final results.
+     */
+    public final static int FINAL_INTERVAL_MS_DEFAULT_VALUE = 3000;
+
+    /**
+     * The config key of the number of words in the results per second of
+     * audio.
+     */
+    public final static String P_NAME_WORDS_PER_SECOND
+        = "org.jitsi.jigasi.transcription.loopback.words_per_second";
+
+    /**
+     * The default number of words per second of audio.
+     */
+    public final static int WORDS_PER_SECOND_DEFAULT_VALUE = 3;
+
+    /**
+     * The config key of the stability of the partial results.
+     */
+    public final static String P_NAME_INTERIM_STABILITY
+        = "org.jitsi.jigasi.transcription.loopback.interim_stability";
+
+    /**
+     * The default stability of the partial results.
+     */
+    public final static double INTERIM_STABILITY_DEFAULT_VALUE = 0.5;
+
+    /**
+     * The words the results are made of.
+     */
+    private final static String[] WORDS = {
+        "lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit", "sed", "do",
+        "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua", "enim"
+    };
+
+    /**
+     * The timer on which the results of all sessions are scheduled. A single
+     * thread keeps the results of a session in order, they are given on the
+     * {@link #resultPool}.
+     */
+    private final static ScheduledExecutorService timer
+        = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("jigasi-loopback", true));
+
+    /**
+     * The pool on which the results of all sessions are given, like the
+     * services which receive them from a server.
+     */
+    private final static ExecutorService resultPool = Util.createNewThreadPool("jigasi-loopback-results");
+
+    /**
+     * The time in ms between receiving audio and answering it.
+     */
+    private final int latencyMs;
+
+    /**
+     * The ms of audio between partial results, not positive for none.
+     */
+    private final int partialIntervalMs;
+
+    /**
+     * The ms of audio between final results.
+     */
+    private final int finalIntervalMs;
+
+    /**
+     * The number of words in the results per second of audio.
+     */
+    private final int wordsPerSecond;
+
+    /**
+     * The stability of the partial results.
+     */
+    private final double interimStability;
+
+    /**
+     * Creates the service from the configuration.
+     */
+    public LoopbackTranscriptionService()
+    {
+        ConfigurationService config = JigasiBundleActivator.getConfigurationService();
+
+        this.latencyMs = config.getInt(P_NAME_LATENCY_MS, LATENCY_MS_DEFAULT_VALUE);
+        this.partialIntervalMs = config.getInt(P_NAME_PARTIAL_INTERVAL_MS, PARTIAL_INTERVAL_MS_DEFAULT_VALUE);
+        this.finalIntervalMs = config.getInt(P_NAME_FINAL_INTERVAL_MS, FINAL_INTERVAL_MS_DEFAULT_VALUE);
+        this.wordsPerSecond = config.getInt(P_NAME_WORDS_PER_SECOND, WORDS_PER_SECOND_DEFAULT_VALUE);
+        this.interimStability = config.getDouble(P_NAME_INTERIM_STABILITY, INTERIM_STABILITY_DEFAULT_VALUE);
+    }
+
+    /**
+     * Creates the service.
+     *
+     * @param latencyMs the time in ms between receiving audio and answering it
+     * @param partialIntervalMs the ms of audio between partial results, not
+     * positive for none
+     * @param finalIntervalMs the ms of audio between final results
+     * @param wordsPerSecond the number of words per second of audio
+     * @param interimStability the stability of the partial results
+     */
+    LoopbackTranscriptionService(
+        int latencyMs, int partialIntervalMs, int finalIntervalMs, int wordsPerSecond, double interimStability)
+    {
+        this.latencyMs = latencyMs;
+        this.partialIntervalMs = partialIntervalMs;
+        this.finalIntervalMs = finalIntervalMs;
+        this.wordsPerSecond = wordsPerSecond;
+        this.interimStability = interimStability;
+    }
+
+    /**
+     * Builds the text of a result.
+     *
+     * @param firstWord the index of the first word
+     * @param audioMs the ms of audio the result is about
+     * @return the text
+     */
+    private String getText(long firstWord, long audioMs)
+    {
+        long count = Math.max(1, audioMs * wordsPerSecond / 1000);
+
+        StringBuilder text = new StringBuilder();
+        for (long i = firstWord; i < firstWord + count; i++)
+        {
+            if (text.length() > 0)
+            {
+                text.append(' ');
+            }
+            text.append(WORDS[(int) (i % WORDS.length)]);
+        }
+
+        return text.toString();
+    }
+
+    @Override
+    public boolean supportsFragmentTranscription()
+    {
+        return true;
+    }
+
+    /**
+     * Answers the request after the latency, blocking like the services
+     * which call a server.
+     */
+    @Override
+    public void sendSingleRequest(TranscriptionRequest request, Consumer<TranscriptionResult> resultConsumer)
+    {
+        Instant timeRequestReceived = Instant.now();
+        request.markSent();
+
+        try
+        {
+            Thread.sleep(latencyMs);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        resultConsumer.accept(
+            new TranscriptionResult(
+                null,
+                UUID.randomUUID(),
+                timeRequestReceived,
+                false,
+                request.getLocale().toLanguageTag(),
+                1.0,
+                new TranscriptionAlternative(getText(0, Math.max(0, request.getDurationInMs())))));
+    }
+
+    @Override
+    public boolean supportsStreamRecognition()
+    {
+        return true;
+    }
+
+    @Override
+    public boolean supportsLanguageRouting()
+    {
+        return false;
+    }
+
+    @Override
+    public StreamingRecognitionSession initStreamingSession(Participant participant)
+    {
+        return new LoopbackStreamingSession(participant.getSourceLanguage());
+    }
+
+    @Override
+    public boolean isConfiguredProperly()
+    {
+        return true;
+    }
+
+    /**
+     * A session answering the audio of a participant.
+     */
+    class LoopbackStreamingSession
+        implements StreamingRecognitionSession
+    {
+        /**
+         * The language of the results.
+         */
+        private final String language;
+
+        /**
+         * The listeners notified of the results.
+         */
+        private final List<TranscriptionListener> listeners = new CopyOnWriteArrayList<>();
+
+        /**
+         * Gives the results of this session in order.
+         */
+        private final SerialExecutor resultQueue = new SerialExecutor(resultPool);
+
+        /**
+         * The id of the results of the current utterance.
+         */
+        private UUID messageId = UUID.randomUUID();
+
+        /**
+         * The time the first audio of the current utterance was received.
+         */
+        private Instant utteranceStart = null;
+
+        /**
+         * The ms of audio received in the current utterance.
+         */
+        private long utteranceMs = 0;
+
+        /**
+         * The ms of audio of the current utterance covered by the last
+         * partial result.
+         */
+        private long partialMs = 0;
+
+        /**
+         * The index of the first word of the current utterance.
+         */
+        private long firstWord = 0;
+
+        /**
+         * Whether {@link #end()} was called.
+         */
+        private boolean ended = false;
+
+        /**
+         * Creates new session.
+         *
+         * @param language the language of the results, or null for en-US
+         */
+        LoopbackStreamingSession(String language)
+        {
+            this.language = language != null ? language : "en-US";
+        }
+
+        @Override
+        public synchronized void sendRequest(TranscriptionRequest request)
+        {
+            if (ended)
+            {
+                return;
+            }
+
+            request.markSent();
+
+            long durationMs = request.getDurationInMs();
+            if (durationMs <= 0)
+            {
+                return;
+            }
+
+            if (utteranceStart == null)
+            {
+                utteranceStart = Instant.now();
+            }
+            utteranceMs += durationMs;
+
+            if (utteranceMs >= finalIntervalMs)
+            {
+                endUtterance();
+            }
+            else if (partialIntervalMs > 0 && utteranceMs - partialMs >= partialIntervalMs)
+            {
+                partialMs = utteranceMs;
+                schedule(true);
+            }
+        }
+
+        /**
+         * Gives the final result of the current utterance and starts a new
+         * one.
+         */
+        private void endUtterance()
+        {
+            schedule(false);
+
+            firstWord += Math.max(1, utteranceMs * wordsPerSecond / 1000);
+            messageId = UUID.randomUUID();
+            utteranceStart = null;
+            utteranceMs = 0;
+            partialMs = 0;
+        }
+
+        /**
+         * Schedules a result about the current utterance.
+         *
+         * @param interim whether it is a partial result
+         */
+        private void schedule(boolean interim)
+        {
+            TranscriptionResult result = new TranscriptionResult(
+                null,
+                messageId,
+                utteranceStart,
+                interim,
+                language,
+                interim ? interimStability : 1.0,
+                new TranscriptionAlternative(getText(firstWord, utteranceMs)));
+
+            timer.schedule(() -> resultQueue.execute(() -> notify(result)), latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Notifies the listeners of a result.
+         *
+         * @param result the result
+         */
+        private void notify(TranscriptionResult result)
+        {
+            for (TranscriptionListener listener : listeners)
+            {
+                listener.notify(result);
+            }
+        }
+
+        @Override
+        public synchronized void end()
+        {
+            if (ended)
+            {
+                return;
+            }
+
+            ended = true;
+            if (utteranceMs > 0)
+            {
+                endUtterance();
+            }
+
+            timer.schedule(() -> resultQueue.execute(() ->
+            {
+                for (TranscriptionListener listener : listeners)
+                {
+                    listener.completed();
+                }
+            }), latencyMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public synchronized boolean ended()
+        {
+            return ended;
+        }
+
+        @Override
+        public void addTranscriptionListener(TranscriptionListener listener)
+        {
+            listeners.add(listener);
+        }
+    }
+}
@@ -19,17 +19,16 @@
 package org.jitsi.jigasi.transcription;
 
 import com.fasterxml.uuid.*;
-import com.oracle.bmc.*;
 import com.oracle.bmc.aispeech.model.*;
-import com.oracle.bmc.auth.*;
 import org.jitsi.impl.neomedia.device.*;
 import org.jitsi.jigasi.*;
+import org.jitsi.jigasi.stats.*;
 import org.jitsi.jigasi.transcription.oracle.*;
 import org.jitsi.utils.logging.*;
 
-import java.io.*;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 
 
@@ -92,9 +91,10 @@ public class OracleTranscriptionService
     public final static String OCI_INTERIM_THRESHOLD_MS
             = "org.jitsi.jigasi.transcription.oci.interimThresholdMs";
 
-    public final static String DEFAULT_WEBSOCKET_URL = "ws://localhost:8000/ws";
+    public final static String OCI_PREROLL_MS
+            = "org.jitsi.jigasi.transcription.oci.prerollMs";
 
-    private BasicAuthenticationDetailsProvider authProvider;
+    public final static String DEFAULT_WEBSOCKET_URL = "ws://localhost:8000/ws";
 
     private final String compartmentId;
 
@@ -117,6 +117,13 @@ public class OracleTranscriptionService
     private final int interimThresholdMs = JigasiBundleActivator.getConfigurationService()
             .getInt(OCI_INTERIM_THRESHOLD_MS, 500);
 
+    /**
+     * The maximum ms of audio of a participant held while connecting, the
+     * oldest audio is dropped beyond it.
+     */
+    private final int prerollMs = JigasiBundleActivator.getConfigurationService()
+            .getInt(OCI_PREROLL_MS, 3000);
+
 
     /**
      * Create a TranscriptionService which will send audio to the OCI service
@@ -135,32 +142,6 @@ public class OracleTranscriptionService
         }
     }
 
-    private void setupAuthProvider()
-    {
-        try
-        {
-            authProvider = new ConfigFileAuthenticationDetailsProvider(ConfigFileReader.parse(configFilePath));
-        }
-        catch (IOException e)
-        {
-            logger.warn("Error while reading OCI configuration file, trying to use the instance's principal", e);
-        }
-
-        // try to use the Oracle instance principal provider if the config file is not available
-        if (authProvider == null)
-        {
-            authProvider = new InstancePrincipalsAuthenticationDetailsProvider.
-                    InstancePrincipalsAuthenticationDetailsProviderBuilder().
-                    build();
-        }
-
-        if (authProvider == null)
-        {
-            logger.error("No OCI authentication provider available");
-            isConfiguredProperly = false;
-        }
-    }
-
     public boolean supportsLanguageRouting()
     {
         return false;
@@ -219,17 +200,27 @@ public class OracleTranscriptionService
 
         private boolean isConnecting = false;
 
+        /**
+         * The requests received while connecting, oldest first, sent in
+         * order once connected.
+         */
+        private final Deque<TranscriptionRequest> preroll = new ArrayDeque<>();
+
+        /**
+         * The ms of audio in {@link #preroll}.
+         */
+        private long prerollHeldMs = 0;
+
 
         public OracleStreamingSession()
         {
-            setupAuthProvider();
             transcriptionId = Generators.timeBasedReorderedGenerator().generate();
 
             try
             {
                 client = new OracleRealtimeClient(
                         this,
-                        authProvider,
+                        OracleAuthentication.get(configFilePath),
                         compartmentId);
             }
             catch (Exception e)
@@ -238,13 +229,15 @@ public class OracleTranscriptionService
             }
         }
 
+        /**
+         * Starts connecting, on the thread pool of the OCI clients, as the
+         * handshake may take seconds. Must be called with the lock of this
+         * session held.
+         *
+         * @param request the first request, which gives the language
+         */
         private void connect(TranscriptionRequest request)
         {
-            if (client.isConnected() || isConnecting)
-            {
-                return;
-            }
-
             languageCode = request.getLocale().toLanguageTag();
 
             final RealtimeParameters realtimeClientParameters = RealtimeParameters.builder()
@@ -253,50 +246,154 @@ public class OracleTranscriptionService
                     .partialSilenceThresholdInMs(interimThresholdMs)
                     .finalSilenceThresholdInMs(finalThresholdMs)
                     .build();
-            try
+
+            isConnecting = true;
+            long connectStart = System.nanoTime();
+            client.openAsync(websocketUrlConfig, 443, realtimeClientParameters)
+                .whenComplete((result, error) -> connected(error, connectStart));
+        }
+
+        /**
+         * Called once connecting finished, sends the audio received
+         * meanwhile.
+         *
+         * @param error the reason the connection failed, or null
+         * @param connectStart the time, in {@link System#nanoTime()}, at which
+         * connecting started
+         */
+        private synchronized void connected(Throwable error, long connectStart)
+        {
+            isConnecting = false;
+
+            if (error == null)
             {
-                isConnecting = true;
-                client.open(websocketUrlConfig, 443, realtimeClientParameters);
                 sessionStart = Instant.now();
+                Statistics.observeTranscriberLatency(
+                    TranscriptionLatency.getServiceName(OracleTranscriptionService.this),
+                    TranscriptionLatency.STAGE_CONNECT,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart));
             }
-            catch (Exception e)
+            else
             {
-                logger.error("Error while connecting to OCI service", e);
+                // the credentials may have changed, read them again for the next attempt
+                OracleAuthentication.invalidate();
+                Statistics.incrementTotalTranscriberConnectionErrors();
+                logger.error("Error while connecting to OCI service", error);
             }
-            isConnecting = false;
+
+            if (sessionEnding)
+            {
+                clearPreroll();
+                client.close();
+                return;
+            }
+
+            if (error != null)
+            {
+                // the next request connects again
+                clearPreroll();
+                return;
+            }
+
+            TranscriptionRequest request;
+            while ((request = preroll.pollFirst()) != null)
+            {
+                send(request);
+                request.release();
+            }
+            prerollHeldMs = 0;
         }
 
         @Override
-        public void sendRequest(TranscriptionRequest request)
+        public synchronized void sendRequest(TranscriptionRequest request)
         {
-            connect(request);
-            if (isConnecting)
+            if (sessionEnding)
             {
-                logger.warn("OCI client is connecting, cannot send audio data");
+                logger.warn("The session is about to end, cannot send audio data");
                 return;
             }
 
-            if (sessionEnding)
+            if (client.isConnected() && !isConnecting)
             {
-                logger.warn("The session is about to end, cannot send audio data");
+                send(request);
                 return;
             }
 
+            hold(request);
+            if (!isConnecting)
+            {
+                connect(request);
+            }
+        }
+
+        /**
+         * Sends a request on the open connection.
+         *
+         * @param request the request
+         */
+        private void send(TranscriptionRequest request)
+        {
             try
             {
-                client.sendAudioData(request.getAudio());
+                // the audio is sent asynchronously, keep it until the send completes
+                request.retain();
+                client.sendAudioData(request.getAudioBuffer(), request::releaseSent, request::release);
             }
             catch (Exception e)
             {
+                Statistics.incrementTotalTranscriberSendErrors();
                 logger.error("Error while sending audio data to the OCI service", e);
             }
         }
 
+        /**
+         * Holds a request until connected, dropping the oldest audio beyond
+         * {@link #prerollMs}.
+         *
+         * @param request the request
+         */
+        private void hold(TranscriptionRequest request)
+        {
+            preroll.addLast(request.retain());
+            prerollHeldMs += Math.max(0, request.getDurationInMs());
+
+            while (preroll.size() > 1 && prerollHeldMs > prerollMs)
+            {
+                TranscriptionRequest dropped = preroll.removeFirst();
+                long droppedMs = Math.max(0, dropped.getDurationInMs());
+                prerollHeldMs -= droppedMs;
+                Statistics.incrementTotalTranscriberPrerollDroppedMillis(droppedMs);
+                dropped.release();
+            }
+        }
+
+        /**
+         * Drops the requests held while connecting.
+         */
+        private void clearPreroll()
+        {
+            Statistics.incrementTotalTranscriberPrerollDroppedMillis(prerollHeldMs);
+
+            TranscriptionRequest request;
+            while ((request = preroll.pollFirst()) != null)
+            {
+                request.release();
+            }
+            prerollHeldMs = 0;
+        }
+
         @Override
-        public void end()
+        public synchronized void end()
         {
             logger.info("Ending OCI session.");
             sessionEnding = true;
+            if (isConnecting)
+            {
+                // closed once connected
+                return;
+            }
+
+            clearPreroll();
             try
             {
                 client.close();
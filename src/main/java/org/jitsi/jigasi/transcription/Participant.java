@@ -20,6 +20,8 @@ package org.jitsi.jigasi.transcription;
 import net.java.sip.communicator.impl.protocol.jabber.*;
 import net.java.sip.communicator.service.protocol.*;
 import org.jitsi.jigasi.*;
+import org.jitsi.jigasi.util.IdleExpiry;
+import org.jitsi.jigasi.util.SerialExecutor;
 import org.jitsi.jigasi.util.Util;
 import org.jitsi.xmpp.extensions.jitsimeet.*;
 import org.jitsi.utils.logging2.*;
@@ -27,9 +29,9 @@ import org.jivesoftware.smack.packet.*;
 import org.jitsi.jigasi.stats.*;
 
 import javax.media.format.*;
-import java.nio.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 /**
  * This class describes a participant in a conference whose
@@ -65,6 +67,24 @@ public class Participant
      */
     private static final int BUFFER_SIZE = EXPECTED_AUDIO_LENGTH * 25;
 
+    /**
+     * The maximum number of free audio buffers kept around for reuse.
+     */
+    private static final int MAX_POOLED_BUFFERS = 256;
+
+    /**
+     * The pool of the buffers used to store audio locally and send it to the
+     * TranscriptionService, shared by all participants.
+     */
+    private static final AudioBufferPool bufferPool = new AudioBufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
+
+    /**
+     * The format of the Opus audio given to the TranscriptionService without
+     * decoding it.
+     */
+    private static final AudioFormat OPUS_FORMAT = new AudioFormat(
+        AbstractTranscriptionService.ENCODING_OPUS, 48000, AudioFormat.NOT_SPECIFIED, 1);
+
     /**
      * Whether we should buffer locally before sending
      */
@@ -118,9 +138,13 @@ public class Participant
     private HashMap<String, TranscriptionService.StreamingRecognitionSession> sessions = new HashMap<>();
 
     /**
-     * A buffer which is used to locally store audio before sending
+     * A buffer which is used to locally store audio before sending. Once
+     * full it is handed over to the TranscriptionService and replaced by a
+     * new one from the {@link #bufferPool}, so its array is not overwritten
+     * while a send is still in flight. Only accessed from the
+     * {@link #taskQueue}, null once the participant left.
      */
-    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private AudioBuffer buffer = bufferPool.acquire();
 
     /**
      * The AudioFormat of the audio being read. It is assumed to not change
@@ -148,16 +172,139 @@ public class Participant
      */
     private String translationLanguage = null;
 
+    /**
+     * Whether silenced audio should be filtered out, by the
+     * {@link #silenceFilter}.
+     */
+    private final boolean filterAudio;
+
     /**
      * The {@link SilenceFilter} which is used to filter out silenced audio.
-     * This object is null when it's not required.
+     * This object is null when it's not required. It is created once the
+     * format of the audio is known.
      */
     private SilenceFilter silenceFilter = null;
 
+    /**
+     * The {@link SilenceGate} which holds back the audio during long
+     * silences, used instead of the {@link #silenceFilter} for the services
+     * which need the trailing silence of the utterances. This object is null
+     * when it's not required. It is created once the format of the audio is
+     * known.
+     */
+    private SilenceGate silenceGate = null;
+
+    /**
+     * Whether the audio is transcribed in utterances sent one by one, see
+     * {@link Transcriber#isBatchMode()}.
+     */
+    private final boolean batchMode;
+
+    /**
+     * Cuts the audio into utterances and transcribes them in batch mode. This
+     * object is null when it's not required. It is created once the format
+     * of the audio is known.
+     */
+    private UtteranceBatcher utteranceBatcher = null;
+
+    /**
+     * Decides when the locally buffered audio is sent.
+     */
+    private final FlushPolicy flushPolicy;
+
+    /**
+     * The {@link SilenceFilter} which detects the end of speech for the
+     * {@link #flushPolicy}, when neither the {@link #silenceFilter} nor the
+     * {@link #silenceGate} is used. Only accessed from the
+     * {@link #taskQueue}.
+     */
+    private SilenceFilter speechDetector = null;
+
+    /**
+     * Whether the previous segment of audio was speech. Only accessed from
+     * the {@link #taskQueue}.
+     */
+    private boolean wasSpeech = false;
+
+    /**
+     * The number of bytes of one millisecond of the audio, known with the
+     * {@link #audioFormat}.
+     */
+    private int bytesPerMs = 0;
+
+    /**
+     * The number of buffered bytes after which the {@link #buffer} is sent,
+     * following the {@link #flushPolicy}, or -1 before it is computed. Only
+     * accessed from the {@link #taskQueue}.
+     */
+    private int flushBytes = -1;
+
+    /**
+     * The time, in {@link System#nanoTime()}, at which the last audio in the
+     * {@link #buffer} was received. Only accessed from the
+     * {@link #taskQueue}.
+     */
+    private long bufferReceivedNanos = 0;
+
+    /**
+     * The time at which the last audio of the last flushed buffer was
+     * received, or 0 once a result for it was received.
+     */
+    private final AtomicLong flushedAudioReceivedNanos = new AtomicLong();
+
+    /**
+     * The time at which the last buffer was sent, or 0 once a result was
+     * received after it. The round trip of the {@link #flushPolicy} is
+     * measured from the last flush only, so the silences during which no
+     * result comes in are not counted.
+     */
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+
+    /**
+     * The name of the service in the latency histograms, see
+     * {@link TranscriptionLatency#getServiceName}.
+     */
+    private final String latencyServiceName;
+
+    /**
+     * Follows the last request sent to the TranscriptionService, the results
+     * are attributed to it.
+     */
+    private volatile TranscriptionLatency lastLatency;
+
+    /**
+     * The time in ms without audio after which the streaming sessions of this
+     * participant are ended, not positive to keep them open.
+     */
+    private final int sessionIdleTimeoutMs;
+
+    /**
+     * Ends the streaming sessions of this participant when it does not send
+     * audio for {@link #sessionIdleTimeoutMs}.
+     */
+    private volatile IdleExpiry idleExpiry = null;
+
+    /**
+     * Whether the streaming sessions were ended because this participant did
+     * not send audio, so they are only created again for audio of the
+     * participant.
+     */
+    private boolean idleEnded = false;
+
     private String transcriptionServiceName;
 
     private CallContext context;
 
+    /**
+     * The queue in which the buffering and sending of the audio of this
+     * participant is executed. It runs on the pool shared by all transcribers,
+     * see {@link Transcriber#getExecutorPool()}, and preserves the order of
+     * the tasks of this participant. When the queue is full, or the pool
+     * rejects it, new audio is dropped.
+     */
+    private final SerialExecutor taskQueue = new SerialExecutor(
+        Transcriber.getExecutorPool(), Transcriber.getMaxQueuedAudioTasks(), Statistics::transcriberTasksDropped);
+
     /**
      * Create a participant with a given name and audio stream
      *
@@ -171,11 +318,11 @@ public class Participant
         this.logger = context.getLogger().createChildLogger(Participant.class.getName());
         this.identifier = identifier;
         this.transcriptionServiceName = transcriber.getTranscriptionService().getClass().getSimpleName();
-
-        if (filterAudio)
-        {
-            silenceFilter = new SilenceFilter();
-        }
+        this.filterAudio = filterAudio;
+        this.flushPolicy = new FlushPolicy(transcriptionServiceName);
+        this.latencyServiceName = TranscriptionLatency.getServiceName(transcriber.getTranscriptionService());
+        this.sessionIdleTimeoutMs = transcriber.getSessionIdleTimeoutMs();
+        this.batchMode = transcriber.isBatchMode();
     }
 
     /**
@@ -515,7 +662,7 @@ public class Participant
             return; // no need to create new session
         }
 
-        if (transcriber.getTranscriptionService().supportsStreamRecognition())
+        if (!batchMode)
         {
             session = transcriber.getTranscriptionService()
                 .initStreamingSession(this);
@@ -531,11 +678,26 @@ public class Participant
      */
     public void left()
     {
+        IdleExpiry expiry = idleExpiry;
+        if (expiry != null)
+        {
+            expiry.cancel();
+        }
+
         TranscriptionService.StreamingRecognitionSession session = sessions.getOrDefault(getLanguageKey(), null);
         if (session != null)
         {
             session.end();
         }
+
+        if (batchMode)
+        {
+            execute(this::flushUtterance, false);
+        }
+
+        // no audio comes in anymore
+        execute(this::releaseBuffer, false);
+        taskQueue.shutdown();
     }
 
     /**
@@ -545,8 +707,7 @@ public class Participant
      * Note: the thread on which this method is called has only a limited amount
      * of time until it is shutdown. Thus, we need to minimize the amount of
      * work we do on in this method (and the children this method calls).
-     * This is done by using a single-threaded {@link ExecutorService} defined
-     * in {@link Transcriber#executorService}.
+     * This is done by using the {@link #taskQueue} of this participant.
      *
      * @param buffer a buffer which is expected to contain a single packet
      *               of audio of this participant
@@ -556,29 +717,86 @@ public class Participant
         if (audioFormat == null)
         {
             audioFormat = (AudioFormat) buffer.getFormat();
+
+            // the filters are only used from the taskQueue, which runs the
+            // tasks queued after this
+            int audioHz = (int) audioFormat.getSampleRate();
+            bytesPerMs = audioHz / 1000 * 2;
+            if (filterAudio)
+            {
+                silenceFilter = new SilenceFilter(audioHz);
+            }
+            else
+            {
+                silenceGate = transcriber.createSilenceGate(audioHz);
+                utteranceBatcher = transcriber.createUtteranceBatcher(audioHz, this::notifyUtterance);
+            }
         }
 
         byte[] audio = (byte[]) buffer.getData();
 
         if (USE_LOCAL_BUFFER)
         {
-            buffer(audio);
+            buffer(audio, System.nanoTime());
         }
         else
         {
-            sendRequest(audio);
+            sendRequest(audio, System.nanoTime());
         }
     }
 
+    /**
+     * Gives an encoded audio packet of this participant, which is sent to the
+     * TranscriptionService as is, without buffering.
+     *
+     * @param payload the Opus payload of an RTP packet
+     */
+    void giveEncodedAudio(byte[] payload)
+    {
+        long receivedAt = System.nanoTime();
+        execute(() -> doSendRequest(AudioBuffer.wrap(payload), OPUS_FORMAT, receivedAt));
+    }
+
     @Override
     public void notify(TranscriptionResult result)
     {
+        long now = System.nanoTime();
+        long sentAt = lastFlushNanos.getAndSet(0);
+        if (sentAt != 0)
+        {
+            flushPolicy.onRoundTrip(TimeUnit.NANOSECONDS.toMillis(now - sentAt));
+        }
+        long receivedAt = flushedAudioReceivedNanos.getAndSet(0);
+        if (receivedAt != 0)
+        {
+            Statistics.observeTranscriberResultLatency(TimeUnit.NANOSECONDS.toMillis(now - receivedAt));
+        }
+        TranscriptionLatency latency = lastLatency;
+        if (latency != null)
+        {
+            result.setLatency(latency);
+            latency.resultReceived(result);
+        }
+
         result.setParticipant(this);
         if (logger.isDebugEnabled())
             logger.debug(result);
         transcriber.notify(result);
     }
 
+    /**
+     * Receives a result of an utterance transcribed in batch mode.
+     *
+     * @param request the request holding the audio of the utterance
+     * @param result the result
+     */
+    private void notifyUtterance(TranscriptionRequest request, TranscriptionResult result)
+    {
+        // the results are received in the order of the utterances
+        lastLatency = request.getLatency();
+        notify(result);
+    }
+
     @Override
     public void completed()
     {
@@ -605,60 +823,358 @@ public class Participant
     }
 
     /**
-     * Store the given audio in a buffer. When the buffer is full,
-     * send the audio
+     * Store the given audio in a buffer. When the {@link #flushPolicy} says
+     * so, or the buffer is full, send the audio
      *
      * @param audio the audio to buffer
+     * @param receivedAt the time, in {@link System#nanoTime()}, at which the
+     * audio was received
      */
-    private void buffer(byte[] audio)
+    private void buffer(byte[] audio, long receivedAt)
     {
-        // note: the executorService is single-threaded and thus order
-        //       is preserved, even though there are multiple participants.
-        transcriber.executorService.execute(() ->
+        // note: the taskQueue is serial and thus order is preserved for the
+        //       audio of this participant.
+        execute(() ->
            {
-               byte[] toBuffer;
+               if (utteranceBatcher != null)
+               {
+                   bufferReceivedNanos = receivedAt;
+                   byte[] utterance = utteranceBatcher.giveSegment(audio);
+                   if (utterance != null)
+                   {
+                       sendUtterance(utterance, receivedAt);
+                   }
+                   return;
+               }
+
+               if (buffer == null)
+               {
+                   // the participant left
+                   return;
+               }
+
+               byte[] toBuffer = audio;
+               int offset = 0;
+               boolean speech = true;
                if (silenceFilter != null)
                {
                    silenceFilter.giveSegment(audio);
                    if (silenceFilter.shouldFilter())
                    {
+                       speechEnded();
                        return;
                    }
                    else if (silenceFilter.newSpeech())
                    {
-                       // we need to cast here to keep compatability when moving between java8 and java11
-                       ((Buffer) buffer).clear();
+                       buffer.clear();
                        toBuffer = silenceFilter.getSpeechWindow();
                    }
-                   else
+               }
+               else if (silenceGate != null)
+               {
+                   SilenceGate.Decision decision = silenceGate.giveSegment(audio);
+                   long droppedMs = silenceGate.takeDroppedMs();
+                   if (droppedMs > 0)
+                   {
+                       Statistics.incrementTotalTranscriberGatedMillis(droppedMs);
+                   }
+
+                   switch (decision)
+                   {
+                       case SEND_PREROLL:
+                           toBuffer = silenceGate.getPreroll();
+                           offset = silenceGate.getPrerollOffset();
+                           break;
+                       case KEEPALIVE:
+                           // the end of the utterance was already sent
+                           flush();
+                           doSendRequest(AudioBuffer.wrap(silenceGate.getComfortFrame()), 0);
+                           wasSpeech = false;
+                           return;
+                       case SUPPRESS:
+                           flush();
+                           wasSpeech = false;
+                           return;
+                       default:
+                           break;
+                   }
+                   speech = silenceGate.isSpeech();
+               }
+               else if (flushPolicy.flushOnSpeechEnd())
+               {
+                   if (speechDetector == null)
                    {
-                       toBuffer = audio;
+                       speechDetector = new SilenceFilter((int) audioFormat.getSampleRate());
                    }
+                   speechDetector.giveSegment(audio);
+                   speech = !speechDetector.shouldFilter();
                }
-               else
+
+               int length = toBuffer.length - offset;
+               if (!buffer.put(toBuffer, offset, length))
                {
-                   toBuffer = audio;
+                   // not enough space left, send what we have and retry
+                   flush();
+
+                   if (!buffer.put(toBuffer, offset, length))
+                   {
+                       doSendRequest(
+                           AudioBuffer.wrap(Arrays.copyOfRange(toBuffer, offset, toBuffer.length)), receivedAt);
+                   }
                }
+               bufferReceivedNanos = receivedAt;
 
-               try
+               if (flushBytes < 0)
                {
-                   buffer.put(toBuffer);
+                   updateFlushBytes();
                }
-               catch (BufferOverflowException | ReadOnlyBufferException e)
+               if (buffer.remaining() < EXPECTED_AUDIO_LENGTH || buffer.getLength() >= flushBytes)
                {
-                   sendRequest(audio);
+                   flush();
                }
 
-               int spaceLeft = buffer.limit() - buffer.position();
-               if (spaceLeft < EXPECTED_AUDIO_LENGTH)
+               if (speech)
                {
-                   sendRequest(buffer.array());
-                   // we need to cast here to keep compatability when moving between java8 and java11
-                   ((Buffer) buffer).clear();
+                   wasSpeech = true;
+               }
+               else
+               {
+                   speechEnded();
                }
            });
     }
 
+    /**
+     * Computes the number of buffered bytes after which the buffer is sent,
+     * from the {@link #flushPolicy}.
+     */
+    private void updateFlushBytes()
+    {
+        int flushMs = flushPolicy.getFlushMs();
+        flushBytes = flushMs > 0 && bytesPerMs > 0 ? flushMs * bytesPerMs : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Sends the locally buffered audio when speech just ended and the
+     * {@link #flushPolicy} asks for it. Must be called from the
+     * {@link #taskQueue} of this participant.
+     */
+    private void speechEnded()
+    {
+        if (wasSpeech && flushPolicy.flushOnSpeechEnd())
+        {
+            flush();
+        }
+        wasSpeech = false;
+    }
+
+    /**
+     * Sends the locally buffered audio, if any, and starts buffering in a new
+     * buffer. Must be called from the {@link #taskQueue} of this participant.
+     */
+    private void flush()
+    {
+        if (buffer == null || buffer.getLength() == 0)
+        {
+            return;
+        }
+
+        AudioBuffer toSend = buffer;
+        buffer = bufferPool.acquire();
+
+        if (bytesPerMs > 0)
+        {
+            Statistics.observeTranscriberFlushSize(toSend.getLength() / bytesPerMs);
+        }
+        flushedAudioReceivedNanos.set(bufferReceivedNanos);
+        lastFlushNanos.set(System.nanoTime());
+
+        // the policy may have been changed
+        flushPolicy.maybeRefresh();
+        updateFlushBytes();
+
+        try
+        {
+            doSendRequest(toSend, bufferReceivedNanos);
+        }
+        finally
+        {
+            // the session retains the buffer if it still needs it
+            toSend.release();
+        }
+    }
+
+    /**
+     * Sends the utterance being collected in batch mode, if any. Must be
+     * called from the {@link #taskQueue} of this participant.
+     */
+    private void flushUtterance()
+    {
+        if (utteranceBatcher == null)
+        {
+            return;
+        }
+
+        byte[] utterance = utteranceBatcher.flush();
+        if (utterance != null)
+        {
+            sendUtterance(utterance, bufferReceivedNanos);
+        }
+    }
+
+    /**
+     * Queues the transcription of an utterance in batch mode. Must be called
+     * from the {@link #taskQueue} of this participant.
+     *
+     * @param utterance the audio of the utterance
+     * @param receivedAt the time, in {@link System#nanoTime()}, at which the
+     * last of the audio was received
+     */
+    private void sendUtterance(byte[] utterance, long receivedAt)
+    {
+        TranscriptionRequest request
+            = new TranscriptionRequest(AudioBuffer.wrap(utterance), audioFormat, sourceLanguageLocale);
+        request.setLatency(new TranscriptionLatency(latencyServiceName, receivedAt));
+
+        if (bytesPerMs > 0)
+        {
+            Statistics.observeTranscriberFlushSize(utterance.length / bytesPerMs);
+        }
+
+        utteranceBatcher.dispatch(request);
+        incrementSentStats(request);
+    }
+
+    /**
+     * Executes the given task in the {@link #taskQueue} of this participant,
+     * keeping track of the time the task waited in the queue.
+     *
+     * @param task the task to execute
+     */
+    private void execute(Runnable task)
+    {
+        execute(task, true);
+    }
+
+    /**
+     * Executes the given task in the {@link #taskQueue} of this participant,
+     * keeping track of the time the task waited in the queue.
+     *
+     * @param task the task to execute
+     * @param droppable whether the task is dropped when the queue is full,
+     * false for the tasks ending the transcription of the participant
+     */
+    private void execute(Runnable task, boolean droppable)
+    {
+        long queuedAt = System.nanoTime();
+
+        try
+        {
+            Statistics.transcriberTaskQueued(taskQueue.getQueueSize());
+            Runnable timedTask = () ->
+            {
+                Statistics.transcriberTaskDequeued(
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt));
+                task.run();
+            };
+            if (droppable)
+            {
+                taskQueue.execute(timedTask);
+            }
+            else
+            {
+                taskQueue.executeUnbounded(timedTask);
+            }
+        }
+        catch (RejectedExecutionException e)
+        {
+            if (taskQueue.isShutdown())
+            {
+                Statistics.transcriberTaskDequeued(-1);
+                if (logger.isDebugEnabled())
+                    logger.debug("dropping audio task, transcription was stopped");
+            }
+            else
+            {
+                Statistics.transcriberTasksDropped(1);
+                if (logger.isDebugEnabled())
+                    logger.debug("dropping audio task, the queue is full");
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new audio tasks. Already queued ones will still be
+     * processed.
+     */
+    void shutdownTaskQueue()
+    {
+        if (batchMode)
+        {
+            // there is no session telling when the last result came in
+            execute(() ->
+            {
+                flushUtterance();
+                if (utteranceBatcher != null)
+                {
+                    utteranceBatcher.whenDrained(this::completed);
+                }
+                else
+                {
+                    completed();
+                }
+            }, false);
+        }
+
+        execute(this::releaseBuffer, false);
+        taskQueue.shutdown();
+    }
+
+    /**
+     * Gives the buffer back to the pool, once the participant does not send
+     * audio anymore. Must be called from the {@link #taskQueue} of this
+     * participant.
+     */
+    private void releaseBuffer()
+    {
+        if (buffer != null)
+        {
+            buffer.release();
+            buffer = null;
+        }
+    }
+
+    /**
+     * Get the number of audio tasks of this participant waiting to be
+     * processed.
+     *
+     * @return the number of queued tasks
+     */
+    public int getQueuedTaskCount()
+    {
+        return taskQueue.getQueueSize();
+    }
+
+    /**
+     * Updates the statistics of the audio sent to the TranscriptionService.
+     *
+     * @param request the request which was sent
+     */
+    private void incrementSentStats(TranscriptionRequest request)
+    {
+        if (request.getFormat() == OPUS_FORMAT)
+        {
+            int micros = Util.getOpusPacketDurationMicros(request.getAudioBuffer());
+            if (micros > 0)
+            {
+                incrementSentMillis(micros / 1000);
+            }
+            return;
+        }
+
+        incrementSentStats(request.getAudioLength());
+    }
+
     private void incrementSentStats(int byteCount)
     {
         int divider = EXPECTED_AUDIO_LENGTH;
@@ -670,8 +1186,11 @@ public class Participant
             divider = 640;
         }
 
-        long millis = byteCount / divider * 20;
+        incrementSentMillis(byteCount / divider * 20);
+    }
 
+    private void incrementSentMillis(long millis)
+    {
         switch (transcriptionServiceName) {
             case "WhisperTranscriptionService":
                 Statistics.incrementTotalTranscriberWhisperMillis(millis);
@@ -691,50 +1210,142 @@ public class Participant
     /**
      * Send the specified audio to the TranscriptionService.
      * <p>
-     * An ExecutorService is used to offload work on the mixing thread
+     * The {@link #taskQueue} is used to offload work on the mixing thread
      *
      * @param audio the audio to send
+     * @param receivedAt the time, in {@link System#nanoTime()}, at which the
+     * audio was received
      */
-    private void sendRequest(byte[] audio)
+    private void sendRequest(byte[] audio, long receivedAt)
     {
-        transcriber.executorService.execute(() ->
+        execute(() -> doSendRequest(AudioBuffer.wrap(audio), receivedAt));
+    }
+
+    /**
+     * Postpones the end of the streaming sessions of this participant as it
+     * sends audio, starting the {@link #idleExpiry} when needed. Must be
+     * called from the {@link #taskQueue} of this participant.
+     */
+    private void touchIdleExpiry()
+    {
+        idleEnded = false;
+
+        if (sessionIdleTimeoutMs <= 0)
         {
-            TranscriptionService.StreamingRecognitionSession session = sessions.getOrDefault(getLanguageKey(), null);
-            TranscriptionRequest request
-                = new TranscriptionRequest(audio,
-                                           audioFormat,
-                                           sourceLanguageLocale);
+            return;
+        }
 
-            if (session != null && !session.ended())
-            {
-                session.sendRequest(request);
-                incrementSentStats(audio.length);
-            }
-            else if (transcriber.getTranscriptionService().supportsStreamRecognition())
-            // re-establish prematurely ended streaming session
+        IdleExpiry expiry = idleExpiry;
+        if (expiry == null || expiry.isDone())
+        {
+            idleExpiry = IdleExpiry.start(sessionIdleTimeoutMs, () -> execute(this::endIdleSessions));
+        }
+        else
+        {
+            expiry.touch();
+        }
+    }
+
+    /**
+     * Ends the streaming sessions of this participant because it did not
+     * send audio for {@link #sessionIdleTimeoutMs}. They are created again
+     * once the participant sends audio. Must be called from the
+     * {@link #taskQueue} of this participant.
+     */
+    private void endIdleSessions()
+    {
+        IdleExpiry expiry = idleExpiry;
+        if (expiry == null || !expiry.isDone() || idleEnded)
+        {
+            // audio came in while this task was queued
+            return;
+        }
+
+        idleEnded = true;
+        for (TranscriptionService.StreamingRecognitionSession session : sessions.values())
+        {
+            if (!session.ended())
             {
-                session = transcriber.getTranscriptionService()
-                        .initStreamingSession(this);
-                session.addTranscriptionListener(this);
-                sessions.put(getLanguageKey(), session);
+                session.end();
             }
-            else
-            // fallback if TranscriptionService does not support streams
+        }
+        // the service may keep the ended sessions usable for the other
+        // participants, create new ones which register this participant again
+        sessions.clear();
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Ended the idle transcription sessions of " + getDebugName());
+        }
+    }
+
+    /**
+     * Send the specified audio to the TranscriptionService. Must be called
+     * from the {@link #taskQueue} of this participant.
+     *
+     * @param audio the audio to send, the caller keeps its reference
+     * @param receivedAt the time, in {@link System#nanoTime()}, at which the
+     * last of the audio was received, or 0 when it is not audio of the
+     * participant
+     */
+    private void doSendRequest(AudioBuffer audio, long receivedAt)
+    {
+        doSendRequest(audio, audioFormat, receivedAt);
+    }
+
+    /**
+     * Send the specified audio to the TranscriptionService. Must be called
+     * from the {@link #taskQueue} of this participant.
+     *
+     * @param audio the audio to send, the caller keeps its reference
+     * @param format the format of the audio
+     * @param receivedAt the time, in {@link System#nanoTime()}, at which the
+     * last of the audio was received, or 0 when it is not audio of the
+     * participant
+     */
+    private void doSendRequest(AudioBuffer audio, AudioFormat format, long receivedAt)
+    {
+        TranscriptionService.StreamingRecognitionSession session = sessions.getOrDefault(getLanguageKey(), null);
+        TranscriptionRequest request
+            = new TranscriptionRequest(audio,
+                                       format,
+                                       sourceLanguageLocale);
+
+        if (receivedAt != 0)
+        {
+            TranscriptionLatency latency = new TranscriptionLatency(latencyServiceName, receivedAt);
+            request.setLatency(latency);
+            lastLatency = latency;
+
+            touchIdleExpiry();
+        }
+        else if (idleEnded)
+        {
+            // do not open a session again only to keep it alive
+            return;
+        }
+
+        if (session != null && !session.ended())
+        {
+            session.sendRequest(request);
+            incrementSentStats(request);
+        }
+        else
+        // re-establish prematurely ended or idle streaming session, the
+        // services which do not support streams are used by the utteranceBatcher
+        {
+            session = transcriber.getTranscriptionService()
+                    .initStreamingSession(this);
+            session.addTranscriptionListener(this);
+            sessions.put(getLanguageKey(), session);
+
+            if (receivedAt != 0 && !session.ended())
             {
-                // FIXME: 22/07/17 This just assumes given BUFFER_LENGTH
-                // is long enough to get decent audio length. Also does
-                // not take into account that participant's audio will
-                // be cut of mid-sentence. For better results, try to
-                // buffer until audio volume is silent for a "decent
-                // amount of time". Only relevant if Streaming
-                // recognition is not supported by the
-                // TranscriptionService
-                transcriber.getTranscriptionService().sendSingleRequest(
-                        request,
-                        this::notify);
-                incrementSentStats(audio.length);
+                // do not lose the audio which resumed the session
+                session.sendRequest(request);
+                incrementSentStats(request);
             }
-        });
+        }
     }
 
     /**
@@ -798,10 +1409,7 @@ public class Participant
 
     public void flushBuffer()
     {
-        transcriber.executorService.execute(() -> {
-            sendRequest(buffer.array());
-            ((Buffer) buffer).clear();
-        });
+        execute(batchMode ? this::flushUtterance : this::flush);
     }
 
     /**
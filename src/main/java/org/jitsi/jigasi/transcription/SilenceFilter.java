@@ -18,11 +18,17 @@
 package org.jitsi.jigasi.transcription;
 
 import org.jitsi.webrtcvadwrapper.*;
-import org.jitsi.webrtcvadwrapper.audio.*;
 
 /**
- * This class uses {@link SpeechDetector<ByteSignedPcmAudioSegment>) to
- * detect silent audio.
+ * This class uses a {@link WebRTCVad} to detect silent audio.
+ * <p>
+ * It is run on every 20 ms segment of every participant, so it does not
+ * allocate per segment: the last {@link #VAD_WINDOW_SIZE_MS} of audio are
+ * kept in a ring buffer of samples, which is also the preroll given when
+ * speech starts, and the decisions for the segments of the window are kept
+ * in a ring of booleans. Segments which are clearly not speech, because
+ * their energy is very low or they look like noise (low energy with a high
+ * zero-crossing rate), are decided without calling the {@link WebRTCVad}.
  *
  * @author Nik Vaessen
  */
@@ -33,11 +39,6 @@ public class SilenceFilter
      */
     private static final int VAD_MODE = 1;
 
-    /**
-     * The sample rate of the audio given to {@link WebRTCVad}.
-     */
-    private static final int VAD_AUDIO_HZ = 48000;
-
     /**
      * The length of each consecutive segment which is given to the
      * {@link WebRTCVad}.
@@ -57,15 +58,95 @@ public class SilenceFilter
     private static final int VAD_THRESHOLD = 8;
 
     /**
-     * The {@link SpeechDetector} object used to detect silent audio.
+     * The default sample rate of the audio, the one of the decoded Opus
+     * audio.
+     */
+    private static final int DEFAULT_AUDIO_HZ = 48000;
+
+    /**
+     * The number of segments in the window.
+     */
+    private static final int WINDOW_SEGMENTS = VAD_WINDOW_SIZE_MS / VAD_SEGMENT_SIZE_MS;
+
+    /**
+     * The sample rate of the audio given to {@link WebRTCVad}.
+     */
+    private final int audioHz;
+
+    /**
+     * The number of samples in a segment.
+     */
+    private final int segmentSamples;
+
+    /**
+     * The number of samples in the window.
+     */
+    private final int windowSamples;
+
+    /**
+     * Segments with a mean square below this value (an RMS of about -50 dBFS)
+     * are silence.
+     */
+    private static final double SILENCE_ENERGY = 100 * 100;
+
+    /**
+     * Segments with a mean square below this value and a zero-crossing rate
+     * above {@link #NOISE_ZERO_CROSSING_RATE} are noise.
+     */
+    private static final double NOISE_ENERGY = 300 * 300;
+
+    /**
+     * The zero-crossing rate, per sample, above which quiet audio is noise.
+     */
+    private static final double NOISE_ZERO_CROSSING_RATE = 0.3;
+
+    /**
+     * The {@link WebRTCVad} used to detect speech, created for the first
+     * segment which passes the pre-gate.
+     */
+    private WebRTCVad vad;
+
+    /**
+     * The samples of the segment given to the {@link #vad}.
+     */
+    private final int[] vadInput;
+
+    /**
+     * The last {@link #windowSamples} samples.
+     */
+    private final short[] ring;
+
+    /**
+     * The position of the oldest sample in {@link #ring}, where the next one
+     * is written.
+     */
+    private int ringPosition = 0;
+
+    /**
+     * The number of valid samples in {@link #ring}.
+     */
+    private int ringSize = 0;
+
+    /**
+     * The decisions of the segments of the window.
+     */
+    private final boolean[] decisions = new boolean[WINDOW_SEGMENTS];
+
+    /**
+     * The position of the oldest decision in {@link #decisions}.
+     */
+    private int decisionPosition = 0;
+
+    /**
+     * The number of segments of the window which are speech.
      */
-    private SpeechDetector<ByteSignedPcmAudioSegment> speechDetector
-        = new SpeechDetector<>(
-            VAD_AUDIO_HZ,
-            VAD_MODE,
-            VAD_SEGMENT_SIZE_MS,
-            VAD_WINDOW_SIZE_MS,
-            VAD_THRESHOLD);
+    private int speechSegments = 0;
+
+    /**
+     * The array returned by {@link #getSpeechWindow()} once the window is
+     * full.
+     */
+    private final byte[] window;
 
     /**
      * Whether the previously given segment was determined to be speech.
@@ -78,30 +159,137 @@ public class SilenceFilter
     private boolean isCurrentlySpeech;
 
     /**
-     * Give a new segment of audio
+     * Creates new filter for 48 kHz audio.
+     */
+    public SilenceFilter()
+    {
+        this(DEFAULT_AUDIO_HZ);
+    }
+
+    /**
+     * Creates new filter.
+     *
+     * @param audioHz the sample rate of the audio, one of the rates
+     * supported by {@link WebRTCVad}: 8, 16, 32 or 48 kHz
+     */
+    public SilenceFilter(int audioHz)
+    {
+        this.audioHz = audioHz;
+        this.segmentSamples = audioHz / 1000 * VAD_SEGMENT_SIZE_MS;
+        this.windowSamples = segmentSamples * WINDOW_SEGMENTS;
+        this.vadInput = new int[segmentSamples];
+        this.ring = new short[windowSamples];
+        this.window = new byte[windowSamples * 2];
+    }
+
+    /**
+     * Give a new segment of audio, signed 16 bit little endian PCM at the
+     * sample rate of this filter.
      *
      * @param audio the audio
      */
     public void giveSegment(byte[] audio)
     {
-        ByteSignedPcmAudioSegment segment
-            = new ByteSignedPcmAudioSegment(audio);
+        int samples = audio.length / 2;
+        boolean fullSegment = samples == segmentSamples;
+
+        double energy = 0;
+        int zeroCrossings = 0;
+        short previous = 0;
+        for (int i = 0; i < samples; i++)
+        {
+            short sample = (short) ((audio[2 * i] & 0xFF) | (audio[2 * i + 1] << 8));
+
+            energy += (double) sample * sample;
+            if (i > 0 && (sample >= 0) != (previous >= 0))
+            {
+                zeroCrossings++;
+            }
+            previous = sample;
+
+            if (fullSegment)
+            {
+                vadInput[i] = sample;
+            }
+
+            ring[ringPosition] = sample;
+            ringPosition = (ringPosition + 1) % windowSamples;
+        }
+        ringSize = Math.min(windowSamples, ringSize + samples);
+
+        boolean isSpeech;
+        if (samples == 0)
+        {
+            isSpeech = false;
+        }
+        else
+        {
+            energy /= samples;
+            double zeroCrossingRate = (double) zeroCrossings / samples;
+
+            if (energy < SILENCE_ENERGY
+                || (energy < NOISE_ENERGY && zeroCrossingRate > NOISE_ZERO_CROSSING_RATE))
+            {
+                isSpeech = false;
+            }
+            else if (fullSegment)
+            {
+                if (vad == null)
+                {
+                    vad = new WebRTCVad(audioHz, VAD_MODE);
+                }
+                isSpeech = vad.isSpeech(vadInput);
+            }
+            else
+            {
+                // the vad only takes whole segments, rely on the pre-gate
+                isSpeech = true;
+            }
+        }
+
+        if (decisions[decisionPosition])
+        {
+            speechSegments--;
+        }
+        decisions[decisionPosition] = isSpeech;
+        if (isSpeech)
+        {
+            speechSegments++;
+        }
+        decisionPosition = (decisionPosition + 1) % WINDOW_SEGMENTS;
 
-        speechDetector.nextSegment(segment);
         previousSegmentWasSpeech = isCurrentlySpeech;
-        isCurrentlySpeech = speechDetector.isSpeech();
+        isCurrentlySpeech = isWindowSpeech();
     }
 
     /**
-     * Get the whole window size in a single array.
+     * Whether enough segments of the window are speech.
+     */
+    private boolean isWindowSpeech()
+    {
+        return WINDOW_SEGMENTS - speechSegments < VAD_THRESHOLD;
+    }
+
+    /**
+     * Get the whole window size in a single array. Once the window is full,
+     * the same array is returned by every call, its content is only valid
+     * until the next segment is given.
      *
      * @return the whole window as an array of bytes.
      */
     public byte[] getSpeechWindow()
     {
-        return ByteSignedPcmAudioSegment
-            .merge(speechDetector.getLatestSegments())
-            .getAudio();
+        byte[] out = ringSize == windowSamples ? window : new byte[ringSize * 2];
+
+        int start = (ringPosition - ringSize + windowSamples) % windowSamples;
+        for (int i = 0; i < ringSize; i++)
+        {
+            short sample = ring[(start + i) % windowSamples];
+            out[2 * i] = (byte) sample;
+            out[2 * i + 1] = (byte) (sample >> 8);
+        }
+
+        return out;
     }
 
     /**
@@ -110,7 +298,7 @@ public class SilenceFilter
      */
     public boolean shouldFilter()
     {
-        return !speechDetector.isSpeech();
+        return !isCurrentlySpeech;
     }
 
     /**
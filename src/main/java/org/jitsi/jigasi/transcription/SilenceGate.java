@@ -0,0 +1,327 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+/**
+ * Decides which audio of a participant is sent to a streaming
+ * {@link TranscriptionService} which needs the trailing silence of an
+ * utterance, and thus cannot use the {@link SilenceFilter} directly.
+ * <p>
+ * While the participant speaks, and for a hangover period after speech
+ * ended, all audio is sent. Afterwards the gate closes and only a short
+ * comfort frame of digital silence is sent every keepalive interval, so the
+ * connection to the service is kept open and its timeouts do not fire. When
+ * speech starts again the last second of the audio which was held back is
+ * sent first, so the onset is not cut. Older held back audio is dropped,
+ * see {@link #takeDroppedMs()}.
+ */
+public class SilenceGate
+{
+    /**
+     * What to do with a segment of audio.
+     */
+    enum Decision
+    {
+        /**
+         * Send the segment.
+         */
+        SEND,
+
+        /**
+         * Speech started, send the preroll, see {@link #getPreroll()},
+         * which includes the segment.
+         */
+        SEND_PREROLL,
+
+        /**
+         * Do not send the segment, send a comfort frame instead, see
+         * {@link #getComfortFrame()}.
+         */
+        KEEPALIVE,
+
+        /**
+         * Do not send the segment.
+         */
+        SUPPRESS
+    }
+
+    /**
+     * The number of bytes of one millisecond of audio, 16 bit mono at the
+     * sample rate of the gate.
+     */
+    private final int bytesPerMs;
+
+    /**
+     * The size of {@link #heldBack}, one second, which is longer than the
+     * window of the {@link SilenceFilter}.
+     */
+    private final int maxHeldBackBytes;
+
+    /**
+     * The detector deciding which audio is speech.
+     */
+    private final SilenceFilter filter;
+
+    /**
+     * The time in ms during which audio is still sent after speech ended.
+     */
+    private final int hangoverMs;
+
+    /**
+     * The interval in ms at which comfort frames are sent while the gate is
+     * closed.
+     */
+    private final int keepaliveIntervalMs;
+
+    /**
+     * The comfort frame, it is never written to.
+     */
+    private final byte[] comfortFrame;
+
+    /**
+     * The time in ms of audio since speech ended.
+     */
+    private long silentMs;
+
+    /**
+     * The time in ms of audio since the last comfort frame.
+     */
+    private long sinceKeepaliveMs;
+
+    /**
+     * The ring of the most recent audio which was held back since audio was
+     * last sent.
+     */
+    private final byte[] heldBack;
+
+    /**
+     * The index of the oldest byte in {@link #heldBack}.
+     */
+    private int heldBackStart;
+
+    /**
+     * The number of bytes in {@link #heldBack}.
+     */
+    private int heldBackBytes;
+
+    /**
+     * The number of bytes of held back audio which were dropped and not
+     * yet reported by {@link #takeDroppedMs()}.
+     */
+    private long droppedBytes;
+
+    /**
+     * The audio returned by {@link #getPreroll()}, only valid until the next
+     * segment is given.
+     */
+    private byte[] preroll;
+
+    /**
+     * The offset of the preroll in {@link #preroll}.
+     */
+    private int prerollOffset;
+
+    /**
+     * Creates new gate, which starts closed.
+     *
+     * @param audioHz the sample rate of the audio, see
+     * {@link SilenceFilter#SilenceFilter(int)}
+     * @param hangoverMs the time in ms during which audio is still sent after
+     * speech ended
+     * @param keepaliveIntervalMs the interval in ms at which comfort frames
+     * are sent while the gate is closed
+     * @param comfortFrameMs the length in ms of the comfort frames
+     */
+    SilenceGate(int audioHz, int hangoverMs, int keepaliveIntervalMs, int comfortFrameMs)
+    {
+        this.bytesPerMs = audioHz / 1000 * 2;
+        this.maxHeldBackBytes = 1000 * bytesPerMs;
+        this.heldBack = new byte[maxHeldBackBytes];
+        this.filter = new SilenceFilter(audioHz);
+        this.hangoverMs = hangoverMs;
+        this.keepaliveIntervalMs = keepaliveIntervalMs;
+        // digital silence
+        this.comfortFrame = new byte[Math.max(1, comfortFrameMs) * bytesPerMs];
+
+        this.silentMs = hangoverMs;
+        // the first held back segment is replaced by a comfort frame, which
+        // lets the service start its session
+        this.sinceKeepaliveMs = keepaliveIntervalMs;
+    }
+
+    /**
+     * Gives the next segment of audio of the participant.
+     *
+     * @param audio the audio, signed 16 bit little endian PCM at the sample
+     * rate of the gate
+     * @return what to do with the segment
+     */
+    Decision giveSegment(byte[] audio)
+    {
+        filter.giveSegment(audio);
+
+        long segmentMs = audio.length / bytesPerMs;
+
+        if (!filter.shouldFilter())
+        {
+            boolean wasClosed = isClosed();
+            silentMs = 0;
+
+            if (wasClosed)
+            {
+                buildPreroll(audio);
+
+                return Decision.SEND_PREROLL;
+            }
+
+            return Decision.SEND;
+        }
+
+        if (!isClosed())
+        {
+            silentMs += segmentMs;
+            sinceKeepaliveMs = 0;
+
+            return Decision.SEND;
+        }
+
+        holdBack(audio);
+        sinceKeepaliveMs += segmentMs;
+        if (sinceKeepaliveMs >= keepaliveIntervalMs)
+        {
+            sinceKeepaliveMs = 0;
+            return Decision.KEEPALIVE;
+        }
+
+        return Decision.SUPPRESS;
+    }
+
+    /**
+     * Adds a segment to the held back audio, dropping the oldest audio when
+     * more than {@link #maxHeldBackBytes} are held back.
+     *
+     * @param audio the segment
+     */
+    private void holdBack(byte[] audio)
+    {
+        int offset = 0;
+        int length = audio.length;
+        if (length > maxHeldBackBytes)
+        {
+            droppedBytes += length - maxHeldBackBytes;
+            offset = length - maxHeldBackBytes;
+            length = maxHeldBackBytes;
+        }
+
+        int overflow = heldBackBytes + length - maxHeldBackBytes;
+        if (overflow > 0)
+        {
+            heldBackStart = (heldBackStart + overflow) % maxHeldBackBytes;
+            heldBackBytes -= overflow;
+            droppedBytes += overflow;
+        }
+
+        int end = (heldBackStart + heldBackBytes) % maxHeldBackBytes;
+        int firstPart = Math.min(length, maxHeldBackBytes - end);
+        System.arraycopy(audio, offset, heldBack, end, firstPart);
+        System.arraycopy(audio, offset + firstPart, heldBack, 0, length - firstPart);
+        heldBackBytes += length;
+    }
+
+    /**
+     * Builds the preroll from the held back audio followed by the segment
+     * which started the speech, and empties the held back audio.
+     *
+     * @param audio the segment
+     */
+    private void buildPreroll(byte[] audio)
+    {
+        int length = heldBackBytes + audio.length;
+        if (preroll == null || preroll.length != maxHeldBackBytes + audio.length)
+        {
+            preroll = new byte[maxHeldBackBytes + audio.length];
+        }
+        prerollOffset = preroll.length - length;
+
+        int firstPart = Math.min(heldBackBytes, maxHeldBackBytes - heldBackStart);
+        System.arraycopy(heldBack, heldBackStart, preroll, prerollOffset, firstPart);
+        System.arraycopy(heldBack, 0, preroll, prerollOffset + firstPart, heldBackBytes - firstPart);
+        System.arraycopy(audio, 0, preroll, prerollOffset + heldBackBytes, audio.length);
+
+        heldBackStart = 0;
+        heldBackBytes = 0;
+    }
+
+    /**
+     * Returns the duration of the held back audio which was dropped since
+     * the last call, i.e. which will never be sent.
+     *
+     * @return the duration in ms
+     */
+    long takeDroppedMs()
+    {
+        long ms = droppedBytes / bytesPerMs;
+        droppedBytes -= ms * bytesPerMs;
+
+        return ms;
+    }
+
+    /**
+     * @return whether the last given segment was part of speech.
+     */
+    boolean isSpeech()
+    {
+        return !filter.shouldFilter();
+    }
+
+    /**
+     * @return whether the gate is closed and audio is held back.
+     */
+    boolean isClosed()
+    {
+        return silentMs >= hangoverMs;
+    }
+
+    /**
+     * @return the array holding the audio to send when
+     * {@link Decision#SEND_PREROLL} was returned, from
+     * {@link #getPrerollOffset()} to its end. Only valid until the next
+     * segment is given.
+     */
+    byte[] getPreroll()
+    {
+        return preroll;
+    }
+
+    /**
+     * @return the offset of the preroll in {@link #getPreroll()}.
+     */
+    int getPrerollOffset()
+    {
+        return prerollOffset;
+    }
+
+    /**
+     * @return the comfort frame to send when {@link Decision#KEEPALIVE} was
+     * returned. It must not be modified.
+     */
+    byte[] getComfortFrame()
+    {
+        return comfortFrame;
+    }
+}
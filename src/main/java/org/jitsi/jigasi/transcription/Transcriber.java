@@ -23,6 +23,8 @@ import org.jitsi.impl.neomedia.device.*;
 import org.jitsi.jigasi.*;
 import org.jitsi.jigasi.stats.*;
 import org.jitsi.jigasi.transcription.action.*;
+import org.jitsi.service.configuration.*;
+import org.jitsi.utils.concurrent.*;
 import org.jitsi.utils.logging2.*;
 import org.jitsi.xmpp.extensions.jitsimeet.*;
 import org.jivesoftware.smack.packet.*;
@@ -31,6 +33,7 @@ import javax.media.*;
 import javax.media.rtp.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.*;
 
 /**
  * A transcriber object which will keep track of participants in a conference
@@ -71,6 +74,170 @@ public class Transcriber
      */
     public final static boolean FILTER_SILENCE_DEFAULT_VALUE = false;
 
+    /**
+     * The property name for the boolean value whether the audio of long
+     * silences should be held back, and replaced by short comfort frames,
+     * when the silence filter is not used. See {@link SilenceGate}.
+     */
+    public final static String P_NAME_SILENCE_GATE
+        = "org.jitsi.jigasi.transcription.SILENCE_GATE";
+
+    /**
+     * Default value for property SILENCE_GATE
+     */
+    public final static boolean SILENCE_GATE_DEFAULT_VALUE = false;
+
+    /**
+     * The property name for the time in ms during which audio is still sent
+     * after speech ended, so the service sees the end of the utterance.
+     */
+    public final static String P_NAME_SILENCE_GATE_HANGOVER_MS
+        = "org.jitsi.jigasi.transcription.SILENCE_GATE_HANGOVER_MS";
+
+    /**
+     * Default value for property SILENCE_GATE_HANGOVER_MS
+     */
+    public final static int SILENCE_GATE_HANGOVER_MS_DEFAULT_VALUE = 1000;
+
+    /**
+     * The property name for the interval in ms at which comfort frames are
+     * sent while the audio is held back.
+     */
+    public final static String P_NAME_SILENCE_GATE_KEEPALIVE_MS
+        = "org.jitsi.jigasi.transcription.SILENCE_GATE_KEEPALIVE_MS";
+
+    /**
+     * Default value for property SILENCE_GATE_KEEPALIVE_MS
+     */
+    public final static int SILENCE_GATE_KEEPALIVE_MS_DEFAULT_VALUE = 2000;
+
+    /**
+     * The property name for the length in ms of the comfort frames.
+     */
+    public final static String P_NAME_SILENCE_GATE_COMFORT_FRAME_MS
+        = "org.jitsi.jigasi.transcription.SILENCE_GATE_COMFORT_FRAME_MS";
+
+    /**
+     * Default value for property SILENCE_GATE_COMFORT_FRAME_MS
+     */
+    public final static int SILENCE_GATE_COMFORT_FRAME_MS_DEFAULT_VALUE = 20;
+
+    /**
+     * The property name for the time in ms without audio of a participant
+     * after which its streaming session is ended. It is created again when
+     * audio comes in.
+     */
+    public final static String P_NAME_SESSION_IDLE_TIMEOUT_MS
+        = "org.jitsi.jigasi.transcription.SESSION_IDLE_TIMEOUT_MS";
+
+    /**
+     * Default value for property SESSION_IDLE_TIMEOUT_MS, idle sessions are
+     * kept open.
+     */
+    public final static int SESSION_IDLE_TIMEOUT_MS_DEFAULT_VALUE = 0;
+
+    /**
+     * The property name for the boolean value whether the audio should be
+     * transcribed in utterances sent one by one, see {@link UtteranceBatcher},
+     * when the service also supports streaming recognition. Services which
+     * only transcribe fragments of audio are always used this way.
+     */
+    public final static String P_NAME_BATCH_MODE
+        = "org.jitsi.jigasi.transcription.BATCH_MODE";
+
+    /**
+     * Default value for property BATCH_MODE
+     */
+    public final static boolean BATCH_MODE_DEFAULT_VALUE = false;
+
+    /**
+     * The property name for the time in ms of silence which ends an
+     * utterance in batch mode.
+     */
+    public final static String P_NAME_BATCH_SILENCE_MS
+        = "org.jitsi.jigasi.transcription.BATCH_SILENCE_MS";
+
+    /**
+     * Default value for property BATCH_SILENCE_MS
+     */
+    public final static int BATCH_SILENCE_MS_DEFAULT_VALUE = 600;
+
+    /**
+     * The property name for the maximum length in ms of an utterance in
+     * batch mode, longer speech is cut.
+     */
+    public final static String P_NAME_BATCH_MAX_UTTERANCE_MS
+        = "org.jitsi.jigasi.transcription.BATCH_MAX_UTTERANCE_MS";
+
+    /**
+     * Default value for property BATCH_MAX_UTTERANCE_MS
+     */
+    public final static int BATCH_MAX_UTTERANCE_MS_DEFAULT_VALUE = 15000;
+
+    /**
+     * The property name for the number of utterances transcribed at the same
+     * time in batch mode, by all transcribers.
+     */
+    public final static String P_NAME_BATCH_PARALLELISM
+        = "org.jitsi.jigasi.transcription.BATCH_PARALLELISM";
+
+    /**
+     * Default value for property BATCH_PARALLELISM
+     */
+    public final static int BATCH_PARALLELISM_DEFAULT_VALUE = 4;
+
+    /**
+     * The property name for the number of threads in the pool which is shared
+     * by all transcribers to buffer and send the audio of the participants.
+     */
+    public final static String P_NAME_EXECUTOR_POOL_SIZE
+        = "org.jitsi.jigasi.transcription.EXECUTOR_POOL_SIZE";
+
+    /**
+     * Default value for property EXECUTOR_POOL_SIZE
+     */
+    public final static int EXECUTOR_POOL_SIZE_DEFAULT_VALUE
+        = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * The property name for the maximum number of runs of participant queues
+     * waiting for a thread of the shared pool. Every participant queue waits
+     * with at most one run, when it is full new audio is dropped.
+     */
+    public final static String P_NAME_EXECUTOR_QUEUE_SIZE
+        = "org.jitsi.jigasi.transcription.EXECUTOR_QUEUE_SIZE";
+
+    /**
+     * Default value for property EXECUTOR_QUEUE_SIZE
+     */
+    public final static int EXECUTOR_QUEUE_SIZE_DEFAULT_VALUE = 2000;
+
+    /**
+     * The property name for the maximum number of audio tasks waiting in the
+     * queue of a participant, newer audio is dropped when it is full.
+     */
+    public final static String P_NAME_MAX_QUEUED_AUDIO_TASKS
+        = "org.jitsi.jigasi.transcription.MAX_QUEUED_AUDIO_TASKS";
+
+    /**
+     * Default value for property MAX_QUEUED_AUDIO_TASKS, 5 seconds of audio
+     * in packets of 20 ms.
+     */
+    public final static int MAX_QUEUED_AUDIO_TASKS_DEFAULT_VALUE = 250;
+
+    /**
+     * The bounded thread pool shared by all transcribers on this node, which
+     * is used to manage the buffering and sending of audio packets. This is
+     * used to offload work from the thread dealing with all packets, which
+     * only has 20 ms before new packets come in. Every {@link Participant}
+     * queues its tasks in its own serial queue on top of this pool, so the
+     * order of the audio of a participant is preserved while a slow send
+     * for one participant does not delay the audio of the others.
+     * <p>
+     * Created lazily by {@link #getExecutorPool()}.
+     */
+    private static ExecutorService executorPool;
+
     /**
      * The states the transcriber can be in. The Transcriber
      * can only go through one cycle. So once it is started it can never
@@ -119,6 +286,33 @@ public class Transcriber
      */
     private final Map<String, Participant> participants = new HashMap<>();
 
+    /**
+     * Index of the {@link #participants} by the SSRC of their audio, so that
+     * the participant of every received audio buffer can be found without
+     * locking nor scanning all participants.
+     */
+    private final Map<Long, Participant> participantsBySsrc = new ConcurrentHashMap<>();
+
+    /**
+     * The SSRCs which did not belong to any participant, e.g. the ones of
+     * the transcriber itself, with the time in {@link System#nanoTime()}
+     * until which they are not looked up again. Cleared when a participant
+     * is added or updated, as the ssrc may then be known.
+     */
+    private final Map<Long, Long> unknownSsrcs = new ConcurrentHashMap<>();
+
+    /**
+     * The time in ms during which an SSRC which did not belong to any
+     * participant is not looked up again, in case the ssrc of a conference
+     * member changed without the participant being updated.
+     */
+    private static final long UNKNOWN_SSRC_RETRY_MS = 1000;
+
+    /**
+     * The maximum number of SSRCs kept in {@link #unknownSsrcs}.
+     */
+    private static final int MAX_UNKNOWN_SSRCS = 1000;
+
     /**
      * The object which will hold the actual transcription
      * and which will be continuously updated as newly transcribed
@@ -155,16 +349,6 @@ public class Transcriber
      */
     private AbstractTranscriptionService transcriptionService;
 
-    /**
-     * A single thread which is used to manage the buffering and sending
-     * of audio packets. This is used to offload work from the thread dealing
-     * with all packets, which only has 20 ms before new packets come in.
-     * <p>
-     * Will be created in {@link Transcriber#start()} and shutdown in
-     * {@link Transcriber#stop(org.jitsi.jigasi.transcription.TranscriptionListener.FailureReason)}
-     */
-    ExecutorService executorService;
-
     /**
      * The name of the room of the conference which will be transcribed
      */
@@ -181,6 +365,50 @@ public class Transcriber
      */
     private boolean filterSilence;
 
+    /**
+     * Whether the audio of long silences should be held back by a
+     * {@link SilenceGate} when silence is not filtered.
+     */
+    private final boolean gateSilence;
+
+    /**
+     * Whether the audio is transcribed in utterances sent one by one, see
+     * {@link UtteranceBatcher}, instead of being streamed.
+     */
+    private final boolean batchMode;
+
+    /**
+     * The encoding of the audio given to the {@link TranscriptionService}
+     * as received, without decoding it, or null when the decoded audio is
+     * used.
+     */
+    private final String passthroughEncoding;
+
+    /**
+     * Whether the service accepts the decoded audio, used for the
+     * participants whose audio is not taken by an {@link EncodedAudioTap}.
+     */
+    private final boolean decodedAudioAccepted;
+
+    /**
+     * The SSRCs whose audio was taken by an {@link EncodedAudioTap}, with the
+     * time in {@link System#nanoTime()} it last took a packet of them.
+     */
+    private final Map<Long, Long> tappedSsrcs = new ConcurrentHashMap<>();
+
+    /**
+     * The SSRCs whose decoded audio was dropped because the service does not
+     * accept it, so the error is logged once per SSRC.
+     */
+    private final Set<Long> untappedSsrcs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The time in ms after which the decoded audio of an SSRC is used again
+     * when no packet of it was tapped, e.g. it is not sent in
+     * {@link #passthroughEncoding} anymore.
+     */
+    private static final long TAP_TIMEOUT_MS = 500;
+
     /**
      * The call context.
      */
@@ -205,14 +433,26 @@ public class Transcriber
         this.logger = parentLogger.createChildLogger(Transcriber.class.getName());
         this.context = context;
 
-        if (!service.supportsStreamRecognition())
+        this.batchMode = service.supportsFragmentTranscription()
+            && (!service.supportsStreamRecognition()
+                || JigasiBundleActivator.getConfigurationService()
+                    .getBoolean(P_NAME_BATCH_MODE, BATCH_MODE_DEFAULT_VALUE));
+        if (!batchMode && !service.supportsStreamRecognition())
         {
             throw new IllegalArgumentException(
-                "Currently only services which support streaming recognition are supported");
+                "The service supports neither streaming recognition nor the transcription of fragments");
         }
         this.transcriptionService = service;
         addTranscriptionListener(this.transcript);
-        this.filterSilence = shouldFilterSilence();
+        // the utterances are detected by the batcher
+        this.filterSilence = !batchMode && shouldFilterSilence();
+        this.gateSilence = !batchMode && !filterSilence && shouldGateSilence();
+        // the gate and the batcher need the decoded audio
+        this.passthroughEncoding
+            = !batchMode && !filterSilence && !gateSilence
+                && service.acceptsEncoding(AbstractTranscriptionService.ENCODING_OPUS)
+                ? AbstractTranscriptionService.ENCODING_OPUS : null;
+        this.decodedAudioAccepted = service.acceptsEncoding(AbstractTranscriptionService.ENCODING_PCM);
 
         configureTranslationManager();
         if (isTranslationEnabled())
@@ -266,7 +506,7 @@ public class Transcriber
             translationService = new GoogleCloudTranslationService();
         }
 
-        translationManager = new TranslationManager(translationService);
+        translationManager = new TranslationManager(CachingTranslationService.wrap(translationService));
     }
 
     /**
@@ -312,6 +552,7 @@ public class Transcriber
             this.participants.computeIfAbsent(identifier,
                 key -> new Participant(this, identifier, filterSilence));
         }
+        unknownSsrcs.clear();
     }
 
     /**
@@ -390,6 +631,7 @@ public class Transcriber
         if (participant != null)
         {
             participant.setConfMember(conferenceMember);
+            indexParticipantSsrc(participant);
         }
     }
 
@@ -445,6 +687,11 @@ public class Transcriber
         synchronized (this.participants)
         {
             participant = this.participants.remove(identifier);
+            if (participant != null)
+            {
+                // its ssrc may be reused by someone else
+                participantsBySsrc.values().remove(participant);
+            }
         }
 
         if (participant != null)
@@ -496,7 +743,6 @@ public class Transcriber
             Statistics.incrementTotalTranscriberStarted();
 
             this.state = State.TRANSCRIBING;
-            this.executorService = Executors.newSingleThreadExecutor();
 
             TranscriptEvent event
                 = this.transcript.started(roomName, roomUrl, getParticipants());
@@ -523,7 +769,7 @@ public class Transcriber
                 logger.debug("transcriber is now finishing up");
 
             this.state = reason == null ? State.FINISHING_UP : State.FINISHED;
-            this.executorService.shutdown();
+            getParticipants().forEach(Participant::shutdownTaskQueue);
 
             TranscriptEvent event = this.transcript.ended();
             fireTranscribeEvent(event);
@@ -701,10 +947,31 @@ public class Transcriber
 
         long ssrc = receiveStream.getSSRC() & 0xffffffffL;
 
+        if (passthroughEncoding != null)
+        {
+            Long tappedAt = tappedSsrcs.get(ssrc);
+            if (tappedAt != null
+                && System.nanoTime() - tappedAt < TimeUnit.MILLISECONDS.toNanos(TAP_TIMEOUT_MS))
+            {
+                // the audio is taken as received, see encodedAudioReceived
+                return;
+            }
+        }
+
         Participant p = findParticipant(ssrc);
 
         if (p != null)
         {
+            if (passthroughEncoding != null && !decodedAudioAccepted)
+            {
+                if (untappedSsrcs.add(ssrc))
+                {
+                    logger.error("No " + passthroughEncoding + " audio was taken for SSRC " + ssrc
+                        + " and the service does not accept decoded audio, it is not transcribed");
+                }
+                return;
+            }
+
             if (p.hasValidSourceLanguage())
             {
                 if (logger.isTraceEnabled())
@@ -719,26 +986,132 @@ public class Transcriber
         }
     }
 
+    /**
+     * Gives the encoded audio of a participant, as received in RTP, to the
+     * participant so it can be sent to the {@link TranscriptionService}.
+     * Used instead of {@link #bufferReceived(ReceiveStream, Buffer)} when
+     * {@link #getPassthroughEncoding()} is not null.
+     *
+     * @param ssrc the ssrc of the audio
+     * @param payload the encoded audio, which is not modified afterwards
+     */
+    public void encodedAudioReceived(long ssrc, byte[] payload)
+    {
+        if (!isTranscribing())
+        {
+            if (logger.isTraceEnabled())
+                logger.trace("receiving audio while not transcribing");
+
+            return;
+        }
+
+        tappedSsrcs.put(ssrc, System.nanoTime());
+        untappedSsrcs.remove(ssrc);
+
+        Participant p = findParticipant(ssrc);
+
+        if (p != null)
+        {
+            if (p.hasValidSourceLanguage())
+            {
+                p.giveEncodedAudio(payload);
+            }
+        }
+        else if (logger.isDebugEnabled())
+        {
+            logger.debug("reading from SSRC " + ssrc + " while it is not known as a participant");
+        }
+    }
+
+    /**
+     * Returns the encoding of the audio which is given to the
+     * {@link TranscriptionService} as received, without decoding it, by the
+     * {@link EncodedAudioTap}. The decoded audio is still used for the
+     * SSRCs whose packets are not tapped, e.g. when the tap could not be
+     * installed or they are in another encoding.
+     *
+     * @return the encoding or null when the audio is decoded by the mixer
+     */
+    public String getPassthroughEncoding()
+    {
+        return passthroughEncoding;
+    }
+
     /**
      * Find the participant with the given audio ssrc, if present, in
-     * {@link this#participants}
+     * {@link this#participants}. The lookup is done in
+     * {@link #participantsBySsrc}, only falling back to a scan of all
+     * participants when the ssrc is not indexed, e.g. when the conference
+     * member of a participant was updated with a new ssrc. SSRCs which are
+     * not found are remembered in {@link #unknownSsrcs}, so the audio of
+     * non participants does not cause a scan for every packet.
      *
      * @param ssrc the ssrc to search for
      * @return the participant with the given ssrc, or null if not present
      */
     private Participant findParticipant(long ssrc)
     {
+        Participant participant = participantsBySsrc.get(ssrc);
+        if (participant != null)
+        {
+            if (participant.getSSRC() == ssrc)
+            {
+                return participant;
+            }
+
+            // the ssrc of the conference member changed, e.g. it was reused
+            participantsBySsrc.remove(ssrc, participant);
+        }
+
+        long now = System.nanoTime();
+        Long retryAt = unknownSsrcs.get(ssrc);
+        if (retryAt != null && now - retryAt < 0)
+        {
+            return null;
+        }
+
         synchronized (this.participants)
         {
             for (Participant p : this.participants.values())
             {
                 if (p.getSSRC() == ssrc)
                 {
+                    indexParticipantSsrc(p);
+                    unknownSsrcs.remove(ssrc);
                     return p;
                 }
             }
+        }
 
-            return null;
+        if (unknownSsrcs.size() >= MAX_UNKNOWN_SSRCS)
+        {
+            unknownSsrcs.clear();
+        }
+        unknownSsrcs.put(ssrc, now + TimeUnit.MILLISECONDS.toNanos(UNKNOWN_SSRC_RETRY_MS));
+
+        return null;
+    }
+
+    /**
+     * Updates the entry of the given participant in
+     * {@link #participantsBySsrc} with its current audio ssrc.
+     *
+     * @param participant the participant to index
+     */
+    private void indexParticipantSsrc(Participant participant)
+    {
+        synchronized (this.participants)
+        {
+            // a participant has a single audio ssrc, drop any previous one
+            participantsBySsrc.values().remove(participant);
+
+            long ssrc = participant.getSSRC();
+            if (ssrc != Participant.DEFAULT_UNKNOWN_AUDIO_SSRC
+                && this.participants.get(participant.getId()) == participant)
+            {
+                participantsBySsrc.put(ssrc, participant);
+                unknownSsrcs.remove(ssrc);
+            }
         }
     }
 
@@ -934,6 +1307,132 @@ public class Transcriber
             && !this.transcriptionService.disableSilenceFilter();
     }
 
+    /**
+     * Get whether the {@link Participant} should hold back the audio of long
+     * silences when it does not filter silence.
+     *
+     * @return true when the audio of long silences should be held back
+     */
+    private boolean shouldGateSilence()
+    {
+        return JigasiBundleActivator.getConfigurationService()
+            .getBoolean(P_NAME_SILENCE_GATE, SILENCE_GATE_DEFAULT_VALUE);
+    }
+
+    /**
+     * Creates the {@link SilenceGate} of a {@link Participant} which does not
+     * filter silence.
+     *
+     * @param audioHz the sample rate of the audio of the participant
+     * @return the new gate, or null when the audio should not be gated
+     */
+    SilenceGate createSilenceGate(int audioHz)
+    {
+        if (!gateSilence)
+        {
+            return null;
+        }
+
+        ConfigurationService config = JigasiBundleActivator.getConfigurationService();
+
+        return new SilenceGate(
+            audioHz,
+            config.getInt(P_NAME_SILENCE_GATE_HANGOVER_MS, SILENCE_GATE_HANGOVER_MS_DEFAULT_VALUE),
+            config.getInt(P_NAME_SILENCE_GATE_KEEPALIVE_MS, SILENCE_GATE_KEEPALIVE_MS_DEFAULT_VALUE),
+            config.getInt(P_NAME_SILENCE_GATE_COMFORT_FRAME_MS, SILENCE_GATE_COMFORT_FRAME_MS_DEFAULT_VALUE));
+    }
+
+    /**
+     * Get whether the audio is transcribed in utterances sent one by one
+     * instead of being streamed.
+     *
+     * @return true in batch mode
+     */
+    boolean isBatchMode()
+    {
+        return batchMode;
+    }
+
+    /**
+     * Creates the {@link UtteranceBatcher} of a {@link Participant} in batch
+     * mode.
+     *
+     * @param audioHz the sample rate of the audio of the participant
+     * @param resultConsumer receives the results of the participant
+     * @return the new batcher, or null when not in batch mode
+     */
+    UtteranceBatcher createUtteranceBatcher(
+        int audioHz, BiConsumer<TranscriptionRequest, TranscriptionResult> resultConsumer)
+    {
+        if (!batchMode)
+        {
+            return null;
+        }
+
+        ConfigurationService config = JigasiBundleActivator.getConfigurationService();
+
+        return new UtteranceBatcher(
+            audioHz,
+            config.getInt(P_NAME_BATCH_SILENCE_MS, BATCH_SILENCE_MS_DEFAULT_VALUE),
+            config.getInt(P_NAME_BATCH_MAX_UTTERANCE_MS, BATCH_MAX_UTTERANCE_MS_DEFAULT_VALUE),
+            transcriptionService,
+            resultConsumer);
+    }
+
+    /**
+     * Get the time in ms without audio of a {@link Participant} after which
+     * its streaming session is ended.
+     *
+     * @return the timeout, not positive when idle sessions are kept open
+     */
+    int getSessionIdleTimeoutMs()
+    {
+        return JigasiBundleActivator.getConfigurationService()
+            .getInt(P_NAME_SESSION_IDLE_TIMEOUT_MS, SESSION_IDLE_TIMEOUT_MS_DEFAULT_VALUE);
+    }
+
+    /**
+     * Get the maximum number of audio tasks waiting in the queue of a
+     * participant.
+     *
+     * @return the maximum number of queued audio tasks
+     */
+    static int getMaxQueuedAudioTasks()
+    {
+        return JigasiBundleActivator.getConfigurationService()
+            .getInt(P_NAME_MAX_QUEUED_AUDIO_TASKS, MAX_QUEUED_AUDIO_TASKS_DEFAULT_VALUE);
+    }
+
+    /**
+     * Returns the thread pool shared by all transcribers, creating it if
+     * needed.
+     *
+     * @return the shared pool used to buffer and send audio.
+     */
+    static synchronized ExecutorService getExecutorPool()
+    {
+        if (executorPool == null)
+        {
+            ConfigurationService config = JigasiBundleActivator.getConfigurationService();
+            int poolSize = config.getInt(P_NAME_EXECUTOR_POOL_SIZE, EXECUTOR_POOL_SIZE_DEFAULT_VALUE);
+            int queueSize = config.getInt(P_NAME_EXECUTOR_QUEUE_SIZE, EXECUTOR_QUEUE_SIZE_DEFAULT_VALUE);
+
+            // the serial queues drop their waiting tasks when they are
+            // rejected, see SerialExecutor
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("jigasi-transcriber", true),
+                new ThreadPoolExecutor.AbortPolicy());
+            pool.allowCoreThreadTimeOut(true);
+
+            executorPool = pool;
+        }
+
+        return executorPool;
+    }
+
     /**
      * Retrieves the current call context.
      *
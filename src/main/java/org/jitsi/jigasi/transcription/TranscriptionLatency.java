@@ -0,0 +1,217 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.jitsi.jigasi.stats.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Follows a {@link TranscriptionRequest} through the transcription pipeline
+ * and records the time spent in every stage, in the latency histogram of
+ * {@link Statistics} labelled with the service and the stage:
+ * <ul>
+ * <li>{@link #STAGE_QUEUE}: from receiving the audio from the bridge to
+ * creating the request, which is mostly the time spent in the queue of the
+ * participant.</li>
+ * <li>{@link #STAGE_SEND}: from creating the request to the service
+ * reporting its audio as sent, including the time it waited in the queue
+ * of the connection.</li>
+ * <li>{@link #STAGE_FIRST_PARTIAL} and {@link #STAGE_FINAL}: from sending
+ * the audio to receiving the first interim, respectively final, result
+ * after it.</li>
+ * <li>{@link #STAGE_PUBLISH}: from receiving a result to sending it to the
+ * room.</li>
+ * <li>{@link #STAGE_END_TO_END}: from receiving the audio to sending the
+ * first result after it to the room.</li>
+ * </ul>
+ * Every result is attributed to the last request sent before it was
+ * received, as the streaming services do not tell which audio a result is
+ * for. While a participant speaks the audio is sent every flush, so
+ * {@link #STAGE_FIRST_PARTIAL} and {@link #STAGE_FINAL} mostly measure the
+ * time since the last flush, not since the audio a result is for was sent:
+ * they are lower bounds of the latency of the service, which are only
+ * exact for the last request of an utterance.
+ * <p>
+ * The services which connect a streaming session for every participant also
+ * record the time to connect as {@link #STAGE_CONNECT}.
+ */
+public class TranscriptionLatency
+{
+    /**
+     * The stage from receiving the audio to creating the request.
+     */
+    public static final String STAGE_QUEUE = "queue";
+
+    /**
+     * The stage from creating the request to sending its audio.
+     */
+    public static final String STAGE_SEND = "send";
+
+    /**
+     * The stage from sending the audio to the first interim result.
+     */
+    public static final String STAGE_FIRST_PARTIAL = "first_partial";
+
+    /**
+     * The stage from sending the audio to the first final result.
+     */
+    public static final String STAGE_FINAL = "final";
+
+    /**
+     * The stage from receiving a result to sending it to the room.
+     */
+    public static final String STAGE_PUBLISH = "publish";
+
+    /**
+     * The whole pipeline, from receiving the audio to sending a result to the room.
+     */
+    public static final String STAGE_END_TO_END = "end_to_end";
+
+    /**
+     * The time to connect the streaming session of a participant.
+     */
+    public static final String STAGE_CONNECT = "connect";
+
+    /**
+     * The name of the service in the labels of the histogram.
+     */
+    private final String service;
+
+    /**
+     * The time, in {@link System#nanoTime()}, at which the last audio of the
+     * request was received.
+     */
+    private final long audioReceivedNanos;
+
+    /**
+     * The time at which the request was created.
+     */
+    private final long createdNanos;
+
+    /**
+     * The time at which the audio was sent, or 0 when not known yet.
+     */
+    private volatile long sentNanos = 0;
+
+    /**
+     * Whether an interim result was received after the request.
+     */
+    private final AtomicBoolean partialReceived = new AtomicBoolean();
+
+    /**
+     * Whether a final result was received after the request.
+     */
+    private final AtomicBoolean finalReceived = new AtomicBoolean();
+
+    /**
+     * Whether a result was sent to the room after the request.
+     */
+    private final AtomicBoolean published = new AtomicBoolean();
+
+    /**
+     * Starts following a new request.
+     *
+     * @param service the name of the service, see {@link #getServiceName}
+     * @param audioReceivedNanos the time at which the last audio of the
+     * request was received
+     */
+    TranscriptionLatency(String service, long audioReceivedNanos)
+    {
+        this.service = service;
+        this.audioReceivedNanos = audioReceivedNanos;
+        this.createdNanos = System.nanoTime();
+
+        observe(STAGE_QUEUE, createdNanos - audioReceivedNanos);
+    }
+
+    /**
+     * Gets the name used for a service in the labels of the histogram: the
+     * lower case simple class name without the
+     * <tt>TranscriptionService</tt> suffix, e.g. <tt>whisper</tt>.
+     *
+     * @param service the service
+     * @return the name
+     */
+    static String getServiceName(TranscriptionService service)
+    {
+        String name = service.getClass().getSimpleName().replace("TranscriptionService", "");
+
+        return name.toLowerCase().replaceAll("[^a-z0-9_]", "_");
+    }
+
+    /**
+     * Records that the audio of the request was sent.
+     */
+    void sent()
+    {
+        if (sentNanos == 0)
+        {
+            long now = System.nanoTime();
+            sentNanos = now;
+            observe(STAGE_SEND, now - createdNanos);
+        }
+    }
+
+    /**
+     * Records that a result was received after the request.
+     *
+     * @param result the result
+     */
+    void resultReceived(TranscriptionResult result)
+    {
+        long sent = sentNanos != 0 ? sentNanos : createdNanos;
+
+        if (result.isInterim())
+        {
+            if (partialReceived.compareAndSet(false, true))
+            {
+                observe(STAGE_FIRST_PARTIAL, result.getReceivedNanos() - sent);
+            }
+        }
+        else if (finalReceived.compareAndSet(false, true))
+        {
+            observe(STAGE_FINAL, result.getReceivedNanos() - sent);
+        }
+    }
+
+    /**
+     * Records that a result received after the request was sent to the room.
+     *
+     * @param result the result
+     */
+    void published(TranscriptionResult result)
+    {
+        long now = System.nanoTime();
+
+        observe(STAGE_PUBLISH, now - result.getReceivedNanos());
+        if (published.compareAndSet(false, true))
+        {
+            observe(STAGE_END_TO_END, now - audioReceivedNanos);
+        }
+    }
+
+    /**
+     * Records the time spent in a stage.
+     */
+    private void observe(String stage, long nanos)
+    {
+        Statistics.observeTranscriberLatency(service, stage, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+}
@@ -18,12 +18,19 @@
 package org.jitsi.jigasi.transcription;
 
 import javax.media.format.*;
+import java.nio.*;
 import java.util.*;
 import java.util.concurrent.*;
 
 /**
  * A TranscriptionRequest serves as a holder for some audio fragment
- * which needs to be transcribed
+ * which needs to be transcribed.
+ * <p>
+ * The audio may live in a pooled {@link AudioBuffer}, which is only valid
+ * until the request is handed back by
+ * {@link TranscriptionService.StreamingRecognitionSession#sendRequest}.
+ * Sessions which keep using the audio after that (e.g. for an asynchronous
+ * send) must {@link #retain()} the request and {@link #release()} it when done.
  *
  * @author Nik Vaessen
  */
@@ -33,7 +40,7 @@ public class TranscriptionRequest
     /**
      * The audio which needs to be transcribed
      */
-    private byte[] audio;
+    private final AudioBuffer audio;
 
     /**
      * The AudioFormat of the audio in this instance
@@ -46,6 +53,11 @@ public class TranscriptionRequest
      */
     private Locale locale;
 
+    /**
+     * Follows this request through the pipeline, or null.
+     */
+    private TranscriptionLatency latency;
+
     /**
      * Create a TranscriptionRequest which holds the audio to be
      * transcribed along with its AudioFormat
@@ -56,6 +68,22 @@ public class TranscriptionRequest
      */
     public TranscriptionRequest(byte[] audio, AudioFormat format,
                                 Locale locale)
+    {
+        this(AudioBuffer.wrap(audio), format, locale);
+    }
+
+    /**
+     * Create a TranscriptionRequest which holds the audio to be
+     * transcribed along with its AudioFormat. The request does not take a
+     * reference of the buffer, the caller must keep its own until the request
+     * was sent.
+     *
+     * @param audio the buffer holding the audio fragment to be transcribed
+     * @param format the format of the given audio fragment
+     * @param locale the locale of the audio being spoken
+     */
+    public TranscriptionRequest(AudioBuffer audio, AudioFormat format,
+                                Locale locale)
     {
         this.audio = audio;
         this.format = format;
@@ -76,18 +104,106 @@ public class TranscriptionRequest
         }
 
         return TimeUnit.NANOSECONDS.toMillis(
-            this.format.computeDuration(this.audio.length));
+            this.format.computeDuration(this.audio.getLength()));
     }
 
 
     /**
-     * The audio this instance is holding
+     * A copy of the audio this instance is holding, which the caller may
+     * keep. Prefer {@link #getAudioBuffer()}, which never copies, but shares
+     * the pooled buffer.
      *
      * @return an audio fragment as an array of bytes
      */
     public byte[] getAudio()
     {
-        return audio;
+        return audio.toByteArray();
+    }
+
+    /**
+     * The audio this instance is holding, as a view on the underlying buffer.
+     *
+     * @return an audio fragment as a {@link ByteBuffer}
+     */
+    public ByteBuffer getAudioBuffer()
+    {
+        return audio.asByteBuffer();
+    }
+
+    /**
+     * Get the number of bytes of audio in this request.
+     *
+     * @return the length of the audio in bytes
+     */
+    public int getAudioLength()
+    {
+        return audio.getLength();
+    }
+
+    /**
+     * Keeps the audio of this request valid after
+     * {@link TranscriptionService.StreamingRecognitionSession#sendRequest}
+     * returned, until {@link #release()} is called.
+     *
+     * @return this request
+     */
+    public TranscriptionRequest retain()
+    {
+        audio.retain();
+        return this;
+    }
+
+    /**
+     * Releases a reference taken with {@link #retain()}.
+     */
+    public void release()
+    {
+        audio.release();
+    }
+
+    /**
+     * Records that the audio of this request was sent to the service, for
+     * the latency statistics, and releases a reference taken with
+     * {@link #retain()}. Services call it instead of {@link #release()} once
+     * an asynchronous send succeeded.
+     */
+    public void releaseSent()
+    {
+        markSent();
+        release();
+    }
+
+    /**
+     * Records that the audio of this request was sent to the service, for
+     * the latency statistics.
+     */
+    public void markSent()
+    {
+        TranscriptionLatency latency = this.latency;
+        if (latency != null)
+        {
+            latency.sent();
+        }
+    }
+
+    /**
+     * Sets the object following this request through the pipeline.
+     *
+     * @param latency the latency
+     */
+    void setLatency(TranscriptionLatency latency)
+    {
+        this.latency = latency;
+    }
+
+    /**
+     * Get the object following this request through the pipeline.
+     *
+     * @return the latency, or null
+     */
+    TranscriptionLatency getLatency()
+    {
+        return latency;
     }
 
     /**
@@ -76,6 +76,18 @@ public class TranscriptionResult
      */
     final private double stability;
 
+    /**
+     * The time, in {@link System#nanoTime()}, at which this result was
+     * received from the service.
+     */
+    final private long receivedNanos = System.nanoTime();
+
+    /**
+     * Follows the last request sent before this result through the
+     * pipeline, or null.
+     */
+    private TranscriptionLatency latency;
+
     /**
      * Create a TranscriptionResult
      *
@@ -159,6 +171,38 @@ public class TranscriptionResult
         this.stability = stability;
     }
 
+    /**
+     * @return the time, in {@link System#nanoTime()}, at which this result
+     * was received from the service.
+     */
+    public long getReceivedNanos()
+    {
+        return receivedNanos;
+    }
+
+    /**
+     * Sets the object following the last request sent before this result.
+     *
+     * @param latency the latency
+     */
+    void setLatency(TranscriptionLatency latency)
+    {
+        this.latency = latency;
+    }
+
+    /**
+     * Records that this result was sent to the room, for the latency
+     * statistics.
+     */
+    public void published()
+    {
+        TranscriptionLatency latency = this.latency;
+        if (latency != null)
+        {
+            latency.published(this);
+        }
+    }
+
     /**
      * Adds an alternative transcription to this {@link TranscriptionResult}.
      * @param alternative the alternative.
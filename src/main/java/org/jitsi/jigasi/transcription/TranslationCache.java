@@ -0,0 +1,200 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * A bounded cache of translations, keyed by text, source and target
+ * language. The least recently used translation is evicted once the cache
+ * is full, and translations are forgotten after a time to live.
+ */
+public class TranslationCache
+{
+    /**
+     * The maximum number of translations kept.
+     */
+    private final int maxSize;
+
+    /**
+     * The time to live of a translation, in nanoseconds.
+     */
+    private final long ttlNanos;
+
+    /**
+     * The source of the current time, in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * The translations with the time they expire at, in access order.
+     */
+    private final LinkedHashMap<Key, Entry> entries;
+
+    /**
+     * Creates new cache.
+     *
+     * @param maxSize the maximum number of translations kept
+     * @param ttlMs the time in ms after which a translation is forgotten
+     */
+    public TranslationCache(int maxSize, long ttlMs)
+    {
+        this(maxSize, ttlMs, System::nanoTime);
+    }
+
+    /**
+     * Creates new cache.
+     *
+     * @param maxSize the maximum number of translations kept
+     * @param ttlMs the time in ms after which a translation is forgotten
+     * @param clock the source of the current time, in nanoseconds
+     */
+    TranslationCache(int maxSize, long ttlMs, LongSupplier clock)
+    {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest)
+            {
+                return size() > TranslationCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Normalizes a text for the keys of the cache: the spaces around and
+     * between the words do not matter. The case is kept, as texts which
+     * only differ in case, like "US" and "us", may mean different things.
+     *
+     * @param text the text
+     * @return the normalized text
+     */
+    static String normalize(String text)
+    {
+        return text.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Returns a translation.
+     *
+     * @param text the translated text
+     * @param sourceLang the language of the text
+     * @param targetLang the language of the translation
+     * @return the translation, or null when it is not in the cache
+     */
+    public synchronized String get(String text, String sourceLang, String targetLang)
+    {
+        Key key = new Key(normalize(text), sourceLang, targetLang);
+        Entry entry = entries.get(key);
+        if (entry == null)
+        {
+            return null;
+        }
+
+        if (clock.getAsLong() - entry.expiresAt >= 0)
+        {
+            entries.remove(key);
+            return null;
+        }
+
+        return entry.translation;
+    }
+
+    /**
+     * Adds a translation.
+     *
+     * @param text the translated text
+     * @param sourceLang the language of the text
+     * @param targetLang the language of the translation
+     * @param translation the translation
+     */
+    public synchronized void put(String text, String sourceLang, String targetLang, String translation)
+    {
+        entries.put(
+            new Key(normalize(text), sourceLang, targetLang),
+            new Entry(translation, clock.getAsLong() + ttlNanos));
+    }
+
+    /**
+     * @return the number of translations in the cache, expired ones
+     * included.
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * The key of a translation.
+     */
+    private static class Key
+    {
+        private final String text;
+
+        private final String sourceLang;
+
+        private final String targetLang;
+
+        Key(String text, String sourceLang, String targetLang)
+        {
+            this.text = text;
+            this.sourceLang = sourceLang;
+            this.targetLang = targetLang;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            Key other = (Key) o;
+            return text.equals(other.text)
+                && Objects.equals(sourceLang, other.sourceLang)
+                && Objects.equals(targetLang, other.targetLang);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(text, sourceLang, targetLang);
+        }
+    }
+
+    /**
+     * A cached translation.
+     */
+    private static class Entry
+    {
+        private final String translation;
+
+        private final long expiresAt;
+
+        Entry(String translation, long expiresAt)
+        {
+            this.translation = translation;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
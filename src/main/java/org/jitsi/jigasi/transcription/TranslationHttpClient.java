@@ -0,0 +1,206 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.apache.http.*;
+import org.apache.http.client.config.*;
+import org.apache.http.conn.*;
+import org.apache.http.conn.routing.*;
+import org.apache.http.impl.client.*;
+import org.apache.http.impl.conn.*;
+import org.jitsi.jigasi.*;
+import org.jitsi.jigasi.stats.*;
+import org.jitsi.service.configuration.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Gives the translation services an HTTP client which keeps its
+ * connections open and reuses them, so a translation does not wait for a
+ * new TCP and TLS handshake. There is one client per service, shared by all
+ * the transcribers of this node. The time spent waiting for a connection of
+ * the pool is recorded in <tt>translation_[service]_http_lease_ms</tt>.
+ */
+public class TranslationHttpClient
+{
+    /**
+     * The property name for the maximum number of connections of a service
+     * to a host.
+     */
+    public final static String P_NAME_MAX_CONNECTIONS_PER_ROUTE
+        = "org.jitsi.jigasi.transcription.TRANSLATION_HTTP_MAX_CONNECTIONS_PER_ROUTE";
+
+    /**
+     * Default value for property TRANSLATION_HTTP_MAX_CONNECTIONS_PER_ROUTE
+     */
+    public final static int MAX_CONNECTIONS_PER_ROUTE_DEFAULT_VALUE = 16;
+
+    /**
+     * The property name for the maximum number of connections of a service.
+     */
+    public final static String P_NAME_MAX_CONNECTIONS
+        = "org.jitsi.jigasi.transcription.TRANSLATION_HTTP_MAX_CONNECTIONS";
+
+    /**
+     * Default value for property TRANSLATION_HTTP_MAX_CONNECTIONS
+     */
+    public final static int MAX_CONNECTIONS_DEFAULT_VALUE = 64;
+
+    /**
+     * The property name for the time in ms to wait for a new connection to
+     * be established.
+     */
+    public final static String P_NAME_CONNECT_TIMEOUT_MS
+        = "org.jitsi.jigasi.transcription.TRANSLATION_HTTP_CONNECT_TIMEOUT_MS";
+
+    /**
+     * Default value for property TRANSLATION_HTTP_CONNECT_TIMEOUT_MS
+     */
+    public final static int CONNECT_TIMEOUT_MS_DEFAULT_VALUE = 2000;
+
+    /**
+     * The property name for the time in ms to wait for the data of a
+     * response.
+     */
+    public final static String P_NAME_SOCKET_TIMEOUT_MS
+        = "org.jitsi.jigasi.transcription.TRANSLATION_HTTP_SOCKET_TIMEOUT_MS";
+
+    /**
+     * Default value for property TRANSLATION_HTTP_SOCKET_TIMEOUT_MS
+     */
+    public final static int SOCKET_TIMEOUT_MS_DEFAULT_VALUE = 5000;
+
+    /**
+     * The property name for the time in ms to wait for a connection of the
+     * pool when all of them are in use.
+     */
+    public final static String P_NAME_LEASE_TIMEOUT_MS
+        = "org.jitsi.jigasi.transcription.TRANSLATION_HTTP_LEASE_TIMEOUT_MS";
+
+    /**
+     * Default value for property TRANSLATION_HTTP_LEASE_TIMEOUT_MS
+     */
+    public final static int LEASE_TIMEOUT_MS_DEFAULT_VALUE = 1000;
+
+    /**
+     * The time in seconds after which an unused connection is closed.
+     */
+    private final static long IDLE_TIMEOUT_SECONDS = 60;
+
+    /**
+     * The clients, by name of service.
+     */
+    private final static Map<String, CloseableHttpClient> clients = new HashMap<>();
+
+    /**
+     * Returns the client of a translation service, creating it if needed.
+     * The client must not be closed, the responses it returns must be.
+     *
+     * @param service the name of the service in the metrics, e.g.
+     * <tt>bing</tt>
+     * @return the client
+     */
+    public static synchronized CloseableHttpClient get(String service)
+    {
+        return clients.computeIfAbsent(service, TranslationHttpClient::create);
+    }
+
+    /**
+     * Creates the client of a translation service.
+     *
+     * @param service the name of the service
+     * @return the client
+     */
+    private static CloseableHttpClient create(String service)
+    {
+        ConfigurationService config = JigasiBundleActivator.getConfigurationService();
+
+        PoolingHttpClientConnectionManager connectionManager = new LeaseTimingConnectionManager(service);
+        connectionManager.setDefaultMaxPerRoute(
+            config.getInt(P_NAME_MAX_CONNECTIONS_PER_ROUTE, MAX_CONNECTIONS_PER_ROUTE_DEFAULT_VALUE));
+        connectionManager.setMaxTotal(config.getInt(P_NAME_MAX_CONNECTIONS, MAX_CONNECTIONS_DEFAULT_VALUE));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(config.getInt(P_NAME_CONNECT_TIMEOUT_MS, CONNECT_TIMEOUT_MS_DEFAULT_VALUE))
+            .setSocketTimeout(config.getInt(P_NAME_SOCKET_TIMEOUT_MS, SOCKET_TIMEOUT_MS_DEFAULT_VALUE))
+            .setConnectionRequestTimeout(config.getInt(P_NAME_LEASE_TIMEOUT_MS, LEASE_TIMEOUT_MS_DEFAULT_VALUE))
+            .build();
+
+        return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .evictExpiredConnections()
+            .evictIdleConnections(IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .build();
+    }
+
+    /**
+     * A pool of connections which records the time spent waiting for a
+     * connection.
+     */
+    private static class LeaseTimingConnectionManager
+        extends PoolingHttpClientConnectionManager
+    {
+        /**
+         * The name of the service in the metrics.
+         */
+        private final String service;
+
+        /**
+         * Creates new pool.
+         *
+         * @param service the name of the service in the metrics
+         */
+        LeaseTimingConnectionManager(String service)
+        {
+            this.service = service;
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state)
+        {
+            ConnectionRequest request = super.requestConnection(route, state);
+
+            return new ConnectionRequest()
+            {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException
+                {
+                    long start = System.nanoTime();
+                    try
+                    {
+                        return request.get(timeout, timeUnit);
+                    }
+                    finally
+                    {
+                        Statistics.observeTranslationHttpLeaseTime(
+                            service, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    }
+                }
+
+                @Override
+                public boolean cancel()
+                {
+                    return request.cancel();
+                }
+            };
+        }
+    }
+}
@@ -17,7 +17,12 @@
  */
 package org.jitsi.jigasi.transcription;
 
+import org.jitsi.jigasi.*;
+import org.jitsi.jigasi.stats.*;
 import org.jitsi.jigasi.util.Util;
+import org.jitsi.service.configuration.*;
+import org.jitsi.utils.concurrent.*;
+import org.jitsi.utils.logging.*;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -30,6 +35,66 @@ import java.util.concurrent.*;
 public class TranslationManager
     implements TranscriptionListener
 {
+    /**
+     * The logger of this class.
+     */
+    private final static Logger logger = Logger.getLogger(TranslationManager.class);
+
+    /**
+     * The property name for the time in ms a translation may take, after
+     * which it is not published.
+     */
+    public final static String P_NAME_TRANSLATION_TIMEOUT_MS
+        = "org.jitsi.jigasi.transcription.TRANSLATION_TIMEOUT_MS";
+
+    /**
+     * Default value for property TRANSLATION_TIMEOUT_MS
+     */
+    public final static int TRANSLATION_TIMEOUT_MS_DEFAULT_VALUE = 3000;
+
+    /**
+     * The property name for the boolean value whether the stable start of
+     * the interim results should be translated, so the translations follow
+     * the speech before the final result comes in.
+     */
+    public final static String P_NAME_TRANSLATE_INTERIM
+        = "org.jitsi.jigasi.transcription.TRANSLATE_INTERIM";
+
+    /**
+     * Default value for property TRANSLATE_INTERIM
+     */
+    public final static boolean TRANSLATE_INTERIM_DEFAULT_VALUE = false;
+
+    /**
+     * The property name for the minimum stability of the interim results
+     * which are translated. The results without a stability, which is the
+     * case for the services other than Google, are only debounced.
+     */
+    public final static String P_NAME_TRANSLATE_INTERIM_MIN_STABILITY
+        = "org.jitsi.jigasi.transcription.TRANSLATE_INTERIM_MIN_STABILITY";
+
+    /**
+     * Default value for property TRANSLATE_INTERIM_MIN_STABILITY
+     */
+    public final static double TRANSLATE_INTERIM_MIN_STABILITY_DEFAULT_VALUE = 0.8;
+
+    /**
+     * The property name for the minimum time in ms between two translations
+     * of the interim results of a message.
+     */
+    public final static String P_NAME_TRANSLATE_INTERIM_DEBOUNCE_MS
+        = "org.jitsi.jigasi.transcription.TRANSLATE_INTERIM_DEBOUNCE_MS";
+
+    /**
+     * Default value for property TRANSLATE_INTERIM_DEBOUNCE_MS
+     */
+    public final static int TRANSLATE_INTERIM_DEBOUNCE_MS_DEFAULT_VALUE = 500;
+
+    /**
+     * The time in ms without interim results after which the interim
+     * translation of a message is forgotten, when no final result came in.
+     */
+    private final static long INTERIM_IDLE_MS = 30000;
 
     /**
      * Map of target languages for translating the transcriptions
@@ -48,11 +113,51 @@ public class TranslationManager
      */
     private final TranslationService translationService;
 
+    /**
+     * The translationService to be used for the translations of the interim
+     * results, which does not cache them, as the growing starts of the texts
+     * rarely come again.
+     */
+    private final TranslationService interimTranslationService;
+
     /**
      * The thread pool to serve all connect, disconnect ore reconnect operations.
      */
     private static final ExecutorService threadPool = Util.createNewThreadPool("jigasi-translation");
 
+    /**
+     * The time in ms a translation may take, after which it is not
+     * published.
+     */
+    private final long timeoutMs;
+
+    /**
+     * Whether the stable start of the interim results is translated.
+     */
+    private final boolean translateInterim;
+
+    /**
+     * The minimum stability of the interim results which are translated.
+     */
+    private final double interimMinStability;
+
+    /**
+     * The minimum time in ms between two translations of the interim
+     * results of a message.
+     */
+    private final long interimDebounceMs;
+
+    /**
+     * The translations of the interim results, by id of message.
+     */
+    private final Map<UUID, InterimTranslation> interimTranslations = new HashMap<>();
+
+    /**
+     * The timer starting the debounced translations of interim results.
+     */
+    private static final ScheduledExecutorService debounceTimer = Executors.newSingleThreadScheduledExecutor(
+        new CustomizableThreadFactory("jigasi-translation-debounce", true));
+
     /**
      * Initializes the translationManager with a TranslationService
      * and adds the default target language to the list.
@@ -61,7 +166,43 @@ public class TranslationManager
      */
     public TranslationManager(TranslationService service)
     {
-        translationService = service;
+        this(service, JigasiBundleActivator.getConfigurationService());
+    }
+
+    private TranslationManager(TranslationService service, ConfigurationService config)
+    {
+        this(service,
+            config.getInt(P_NAME_TRANSLATION_TIMEOUT_MS, TRANSLATION_TIMEOUT_MS_DEFAULT_VALUE),
+            config.getBoolean(P_NAME_TRANSLATE_INTERIM, TRANSLATE_INTERIM_DEFAULT_VALUE),
+            config.getDouble(P_NAME_TRANSLATE_INTERIM_MIN_STABILITY, TRANSLATE_INTERIM_MIN_STABILITY_DEFAULT_VALUE),
+            config.getInt(P_NAME_TRANSLATE_INTERIM_DEBOUNCE_MS, TRANSLATE_INTERIM_DEBOUNCE_MS_DEFAULT_VALUE));
+    }
+
+    /**
+     * Initializes the translationManager with a TranslationService.
+     *
+     * @param service to be used by the TranslationManger
+     * @param timeoutMs the time in ms a translation may take
+     * @param translateInterim whether the stable start of the interim
+     * results is translated
+     * @param interimMinStability the minimum stability of the interim
+     * results which are translated
+     * @param interimDebounceMs the minimum time in ms between two
+     * translations of the interim results of a message
+     */
+    TranslationManager(TranslationService service,
+                       long timeoutMs,
+                       boolean translateInterim,
+                       double interimMinStability,
+                       long interimDebounceMs)
+    {
+        this.translationService = service;
+        this.interimTranslationService = service instanceof CachingTranslationService
+            ? ((CachingTranslationService) service).lookupOnly() : service;
+        this.timeoutMs = timeoutMs;
+        this.translateInterim = translateInterim;
+        this.interimMinStability = interimMinStability;
+        this.interimDebounceMs = interimDebounceMs;
     }
 
     /**
@@ -123,50 +264,218 @@ public class TranslationManager
     }
 
     /**
-     * Translates the received {@link TranscriptionResult} into required languages
-     * and returns a list of {@link TranslationResult}s.
+     * Translates the text of a {@link TranscriptionResult} into every target
+     * language at the same time, in a single call for the services which
+     * support it, and notifies the listeners of each
+     * {@link TranslationResult} as soon as it is translated. Translations
+     * which take longer than {@link #timeoutMs} are dropped, and so are the
+     * ones which are cancelled. The listeners are notified on the
+     * {@link #threadPool}, also for the translations which are complete
+     * right away, like the cached ones.
      *
+     * @param service the service to translate with
      * @param result the TranscriptionResult notified to the TranslationManager
-     * @return list of TranslationResults
+     * @param text the text to translate
+     * @return the translations, which can be cancelled
      */
-    private List<TranslationResult> getTranslations(
-        TranscriptionResult result)
+    private Collection<CompletableFuture<String>> translate(
+        TranslationService service, TranscriptionResult result, String text)
     {
-        ArrayList<TranslationResult> translatedResults
-            = new ArrayList<>();
-        Set<String> translationLanguages;
-
+        List<String> translationLanguages;
         synchronized (languages)
         {
-            translationLanguages = languages.keySet();
+            translationLanguages = new ArrayList<>(languages.keySet());
+        }
+
+        Participant participant = result.getParticipant();
+        String sourceLang = participant != null ? participant.getSourceLanguage() : null;
+        if (sourceLang != null)
+        {
+            translationLanguages.remove(sourceLang);
+        }
+        if (translationLanguages.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<String>> translations;
+        try
+        {
+            translations = service.translateAsync(text, sourceLang, translationLanguages, threadPool);
+        }
+        catch (RuntimeException e)
+        {
+            logger.error("Failed to translate to " + translationLanguages, e);
+            return Collections.emptyList();
+        }
+
+        translations.forEach((targetLanguage, translation) -> translation
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .whenCompleteAsync((translatedText, error) ->
+            {
+                if (error == null)
+                {
+                    if (!result.isInterim())
+                    {
+                        Statistics.observeTranslationLatency(
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    }
+                    publish(new TranslationResult(result, targetLanguage, translatedText));
+                }
+                else if (error instanceof TimeoutException)
+                {
+                    Statistics.incrementTotalTranslationTimeouts();
+                    logger.warn("Translation to " + targetLanguage + " took more than " + timeoutMs + " ms");
+                }
+                else if (!(error instanceof CancellationException))
+                {
+                    logger.error("Failed to translate to " + targetLanguage, error);
+                }
+            }, threadPool));
+
+        return translations.values();
+    }
+
+    /**
+     * Returns the text of a result.
+     *
+     * @param result the result
+     * @return the text of the first alternative, or null when there is none
+     */
+    private static String getText(TranscriptionResult result)
+    {
+        Collection<TranscriptionAlternative> alternatives = result.getAlternatives();
+
+        return alternatives.isEmpty() ? null : alternatives.iterator().next().getTranscription();
+    }
+
+    /**
+     * Returns the start of the text of an interim result which is not
+     * expected to change anymore: every word but the last one, which may
+     * still be incomplete.
+     *
+     * @param text the text
+     * @return the stable start of the text, or null when there is none
+     */
+    static String getStablePrefix(String text)
+    {
+        String trimmed = text.trim();
+        int end = trimmed.lastIndexOf(' ');
+
+        return end > 0 ? trimmed.substring(0, end).trim() : null;
+    }
+
+    /**
+     * Translates the stable start of an interim result, when it grew since
+     * the last translation of the message. The translations of a message
+     * are at least {@link #interimDebounceMs} apart, the latest interim
+     * result is translated once the time is up, and a new translation
+     * cancels the one still in flight. A stability of 0 means the service
+     * does not give one, such results are only debounced. The translations
+     * are started once {@link #interimTranslations} is released.
+     *
+     * @param result the interim result
+     */
+    private void translateInterim(TranscriptionResult result)
+    {
+        double stability = result.getStability();
+        if (stability > 0 && stability < interimMinStability)
+        {
+            return;
         }
 
-        Collection<TranscriptionAlternative> alternatives
-            = result.getAlternatives();
+        String text = getText(result);
+        String prefix = text != null ? getStablePrefix(text) : null;
+        if (prefix == null)
+        {
+            return;
+        }
 
-        if (!alternatives.isEmpty())
+        long now = System.nanoTime();
+        Runnable start = null;
+        synchronized (interimTranslations)
         {
-            for (String targetLanguage : translationLanguages)
+            interimTranslations.values().removeIf(interim -> interim.isIdle(now));
+
+            InterimTranslation interim
+                = interimTranslations.computeIfAbsent(result.getMessageID(), id -> new InterimTranslation());
+            interim.lastResultNanos = now;
+
+            String latest = interim.pendingPrefix != null ? interim.pendingPrefix : interim.translatedPrefix;
+            if (prefix.length() > latest.length())
             {
-                String sourceLang = result.getParticipant().getSourceLanguage();
-                if (sourceLang != null && sourceLang.equals(targetLanguage))
+                interim.pending = result;
+                interim.pendingPrefix = prefix;
+
+                long waitMs = interimDebounceMs - TimeUnit.NANOSECONDS.toMillis(now - interim.startNanos);
+                if (waitMs <= 0)
                 {
-                    continue;
+                    start = interim.takeStart();
                 }
+                else if (interim.scheduled == null)
+                {
+                    interim.scheduled = debounceTimer.schedule(() ->
+                    {
+                        Runnable scheduledStart = null;
+                        synchronized (interimTranslations)
+                        {
+                            interim.scheduled = null;
+                            if (interimTranslations.get(result.getMessageID()) == interim)
+                            {
+                                scheduledStart = interim.takeStart();
+                            }
+                        }
+                        if (scheduledStart != null)
+                        {
+                            scheduledStart.run();
+                        }
+                    }, waitMs, TimeUnit.MILLISECONDS);
+                }
+            }
+            // else nothing new, or the start of the text was revised
+        }
 
-                String translatedText = translationService.translate(
-                    alternatives.iterator().next().getTranscription(),
-                    sourceLang,
-                    targetLanguage);
+        if (start != null)
+        {
+            start.run();
+        }
+    }
 
-                translatedResults.add(new TranslationResult(
-                    result,
-                    targetLanguage,
-                    translatedText));
+    /**
+     * Stops translating the interim results of a message, as its final
+     * result came in.
+     *
+     * @param messageId the id of the message
+     */
+    private void endInterim(UUID messageId)
+    {
+        synchronized (interimTranslations)
+        {
+            InterimTranslation interim = interimTranslations.remove(messageId);
+            if (interim != null)
+            {
+                interim.cancel();
             }
         }
+    }
+
+    /**
+     * Notifies the {@link TranslationResultListener}s of a
+     * {@link TranslationResult}.
+     *
+     * @param translation the translation
+     */
+    private void publish(TranslationResult translation)
+    {
+        Iterable<TranslationResultListener> translationResultListeners;
+
+        synchronized (listeners)
+        {
+            translationResultListeners = new ArrayList<>(listeners);
+        }
 
-        return translatedResults;
+        translationResultListeners.forEach(listener -> listener.notify(translation));
     }
 
     /**
@@ -179,27 +488,35 @@ public class TranslationManager
     @Override
     public void notify(TranscriptionResult result)
     {
-        threadPool.submit(() ->
+        if (!result.isInterim())
         {
-            if (!result.isInterim())
+            if (translateInterim)
             {
-                List<TranslationResult> translations = getTranslations(result);
-                Iterable<TranslationResultListener> translationResultListeners;
-
-                synchronized (listeners)
-                {
-                    translationResultListeners = new ArrayList<>(listeners);
-                }
+                endInterim(result.getMessageID());
+            }
 
-                translationResultListeners.forEach(listener -> translations.forEach(listener::notify));
+            String text = getText(result);
+            if (text != null)
+            {
+                translate(translationService, result, text);
             }
-        });
+        }
+        else if (translateInterim)
+        {
+            translateInterim(result);
+        }
     }
 
     @Override
     public void completed()
     {
         languages.clear();
+
+        synchronized (interimTranslations)
+        {
+            interimTranslations.values().forEach(InterimTranslation::cancel);
+            interimTranslations.clear();
+        }
     }
 
     @Override
@@ -207,4 +524,124 @@ public class TranslationManager
     {
         completed();
     }
+
+    /**
+     * The translation of the interim results of a message. Guarded by
+     * {@link #interimTranslations}.
+     */
+    private class InterimTranslation
+    {
+        /**
+         * The start of the text which was translated last.
+         */
+        private String translatedPrefix = "";
+
+        /**
+         * The latest interim result waiting to be translated, or null.
+         */
+        private TranscriptionResult pending;
+
+        /**
+         * The stable start of the text of {@link #pending}.
+         */
+        private String pendingPrefix;
+
+        /**
+         * The time the last translation was started at.
+         */
+        private long startNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+
+        /**
+         * The time the last interim result came in at.
+         */
+        private long lastResultNanos;
+
+        /**
+         * The translation of {@link #pending} waiting for the debounce time,
+         * or null.
+         */
+        private ScheduledFuture<?> scheduled;
+
+        /**
+         * The translations in flight.
+         */
+        private Collection<CompletableFuture<String>> inFlight = Collections.emptyList();
+
+        /**
+         * Incremented with every translation started or cancelled, so a
+         * translation started after it was superseded is cancelled as well.
+         */
+        private long generation;
+
+        /**
+         * Takes the {@link #pending} result for translation, cancelling the
+         * translations it supersedes. Cancelling only keeps them from being
+         * published, the requests to the translation service still complete.
+         * The translation is started by the returned task, which is to be run
+         * once {@link #interimTranslations} is released.
+         *
+         * @return the task starting the translation, or null when there is
+         * nothing to translate
+         */
+        private Runnable takeStart()
+        {
+            if (pending == null)
+            {
+                return null;
+            }
+
+            TranscriptionResult result = pending;
+            String prefix = pendingPrefix;
+
+            cancel();
+            translatedPrefix = prefix;
+            startNanos = System.nanoTime();
+            pending = null;
+            pendingPrefix = null;
+
+            long startGeneration = generation;
+            return () ->
+            {
+                Collection<CompletableFuture<String>> translations
+                    = translate(interimTranslationService, result, prefix);
+
+                synchronized (interimTranslations)
+                {
+                    if (generation == startGeneration)
+                    {
+                        inFlight = translations;
+                        return;
+                    }
+                }
+                translations.forEach(translation -> translation.cancel(false));
+            };
+        }
+
+        /**
+         * Cancels the translations which are waiting, in flight or about to
+         * be started.
+         */
+        private void cancel()
+        {
+            if (scheduled != null)
+            {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+            inFlight.forEach(translation -> translation.cancel(false));
+            inFlight = Collections.emptyList();
+            generation++;
+        }
+
+        /**
+         * Whether no interim result came in for {@link #INTERIM_IDLE_MS}.
+         *
+         * @param now the current time
+         * @return true if idle
+         */
+        private boolean isIdle(long now)
+        {
+            return now - lastResultNanos > TimeUnit.MILLISECONDS.toNanos(INTERIM_IDLE_MS);
+        }
+    }
 }
@@ -17,6 +17,9 @@
  */
 package org.jitsi.jigasi.transcription;
 
+import java.util.*;
+import java.util.concurrent.*;
+
 /**
  * This interface allows for translation text from the source language to the
  * target language.
@@ -35,4 +38,72 @@ public interface TranslationService
      * @return the translated string of the text.
      */
     String translate(String sourceText, String sourceLang, String targetLang);
+
+    /**
+     * Translates the given text from the source language to target language
+     * without blocking the caller. By default {@link #translate} is called
+     * on the given executor, services with an asynchronous client can
+     * override it.
+     *
+     * @param sourceText the text to be translated.
+     * @param sourceLang the language of the text to be translated.
+     * @param targetLang the target language for translating the text.
+     * @param executor the executor on which blocking work can be done.
+     * @return the translated string of the text, once translated.
+     */
+    default CompletableFuture<String> translateAsync(
+        String sourceText, String sourceLang, String targetLang, Executor executor)
+    {
+        return CompletableFuture.supplyAsync(() -> translate(sourceText, sourceLang, targetLang), executor);
+    }
+
+    /**
+     * Translates the given text from the source language to several target
+     * languages. By default every target language is translated on its own,
+     * services whose API takes several target languages in one call should
+     * override it.
+     *
+     * @param sourceText the text to be translated.
+     * @param sourceLang the language of the text to be translated.
+     * @param targetLangs the target languages for translating the text.
+     * @return the translated strings of the text, by target language.
+     */
+    default Map<String, String> translate(String sourceText, String sourceLang, Collection<String> targetLangs)
+    {
+        Map<String, String> translations = new LinkedHashMap<>();
+        for (String targetLang : targetLangs)
+        {
+            translations.put(targetLang, translate(sourceText, sourceLang, targetLang));
+        }
+
+        return translations;
+    }
+
+    /**
+     * Translates the given text from the source language to several target
+     * languages without blocking the caller. By default every target
+     * language is translated on its own with
+     * {@link #translateAsync(String, String, String, Executor)}, so they
+     * complete independently. Services overriding
+     * {@link #translate(String, String, Collection)} should override it to
+     * make a single call.
+     *
+     * @param sourceText the text to be translated.
+     * @param sourceLang the language of the text to be translated.
+     * @param targetLangs the target languages for translating the text.
+     * @param executor the executor on which blocking work can be done.
+     * @return the translated strings of the text, by target language, once
+     * translated.
+     */
+    default Map<String, CompletableFuture<String>> translateAsync(
+        String sourceText, String sourceLang, Collection<String> targetLangs, Executor executor)
+    {
+        Map<String, CompletableFuture<String>> translations = new LinkedHashMap<>();
+        for (String targetLang : targetLangs)
+        {
+            translations.put(targetLang, translateAsync(sourceText, sourceLang, targetLang, executor));
+        }
+
+        return translations;
+    }
 }
@@ -0,0 +1,518 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.jitsi.jigasi.*;
+import org.jitsi.jigasi.stats.*;
+import org.jitsi.utils.concurrent.*;
+import org.jitsi.utils.logging.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Transcribes the audio of a {@link Participant} with a service which is
+ * given fragments of audio, see
+ * {@link TranscriptionService#sendSingleRequest}, instead of a stream. The
+ * audio is cut into utterances on the pauses detected by a
+ * {@link SilenceFilter}, and the utterances are transcribed in parallel on a
+ * bounded pool shared by all participants. The results are handed over in
+ * the order of the utterances.
+ * <p>
+ * The services are expected to give the results of a request before
+ * {@link TranscriptionService#sendSingleRequest} returns, results given
+ * later are dropped. The results are handed over without holding a lock,
+ * by one thread at a time.
+ */
+public class UtteranceBatcher
+{
+    /**
+     * The logger of this class.
+     */
+    private final static Logger logger = Logger.getLogger(UtteranceBatcher.class);
+
+    /**
+     * The pool on which the utterances of all participants are transcribed.
+     * Created lazily by {@link #getDispatchPool()}.
+     */
+    private static ExecutorService dispatchPool;
+
+    /**
+     * The service transcribing the utterances.
+     */
+    private final TranscriptionService service;
+
+    /**
+     * The executor on which the utterances are transcribed.
+     */
+    private final Executor dispatchExecutor;
+
+    /**
+     * Receives the results, with the request they are the result of.
+     */
+    private final BiConsumer<TranscriptionRequest, TranscriptionResult> resultConsumer;
+
+    /**
+     * Detects the speech in the audio.
+     */
+    private final SilenceFilter vad;
+
+    /**
+     * The number of bytes of silence ending an utterance.
+     */
+    private final int silenceBytes;
+
+    /**
+     * The number of bytes after which an utterance is cut, even when the
+     * participant is still speaking.
+     */
+    private final int maxUtteranceBytes;
+
+    /**
+     * The audio of the current utterance.
+     */
+    private byte[] utterance = new byte[0];
+
+    /**
+     * The number of bytes in {@link #utterance}.
+     */
+    private int utteranceLength = 0;
+
+    /**
+     * The number of bytes of silence at the end of {@link #utterance}.
+     */
+    private int trailingSilenceBytes = 0;
+
+    /**
+     * Whether the previous utterance was cut while the participant was
+     * speaking, so the next one continues it without a preroll.
+     */
+    private boolean cutInSpeech = false;
+
+    /**
+     * The sequence number of the next dispatched utterance. Guarded by
+     * {@link #completed}.
+     */
+    private long nextSequence = 0;
+
+    /**
+     * The sequence number of the next utterance whose results are handed
+     * over. Guarded by {@link #completed}.
+     */
+    private long nextToDeliver = 0;
+
+    /**
+     * The transcribed utterances waiting for the ones dispatched before
+     * them, by sequence number.
+     */
+    private final Map<Long, Transcribed> completed = new HashMap<>();
+
+    /**
+     * The tasks to run once every dispatched utterance was handed over.
+     * Guarded by {@link #completed}.
+     */
+    private final List<Runnable> drainedTasks = new ArrayList<>();
+
+    /**
+     * The utterances whose results are next to be handed over, in order.
+     * Guarded by {@link #completed}.
+     */
+    private final Queue<Transcribed> deliverable = new ArrayDeque<>();
+
+    /**
+     * Whether a thread is handing over the results. Guarded by
+     * {@link #completed}.
+     */
+    private boolean delivering = false;
+
+    /**
+     * Creates new batcher.
+     *
+     * @param audioHz the sample rate of the audio
+     * @param silenceMs the time in ms of silence ending an utterance
+     * @param maxUtteranceMs the maximum length in ms of an utterance
+     * @param service the service transcribing the utterances
+     * @param resultConsumer receives the results in the order of the
+     * utterances
+     */
+    public UtteranceBatcher(int audioHz,
+                            int silenceMs,
+                            int maxUtteranceMs,
+                            TranscriptionService service,
+                            BiConsumer<TranscriptionRequest, TranscriptionResult> resultConsumer)
+    {
+        this(audioHz, silenceMs, maxUtteranceMs, service, getDispatchPool(), resultConsumer);
+    }
+
+    /**
+     * Creates new batcher.
+     *
+     * @param audioHz the sample rate of the audio
+     * @param silenceMs the time in ms of silence ending an utterance
+     * @param maxUtteranceMs the maximum length in ms of an utterance
+     * @param service the service transcribing the utterances
+     * @param dispatchExecutor the executor on which the utterances are
+     * transcribed
+     * @param resultConsumer receives the results in the order of the
+     * utterances
+     */
+    UtteranceBatcher(int audioHz,
+                     int silenceMs,
+                     int maxUtteranceMs,
+                     TranscriptionService service,
+                     Executor dispatchExecutor,
+                     BiConsumer<TranscriptionRequest, TranscriptionResult> resultConsumer)
+    {
+        int bytesPerMs = audioHz / 1000 * 2;
+
+        this.vad = new SilenceFilter(audioHz);
+        this.silenceBytes = silenceMs * bytesPerMs;
+        this.maxUtteranceBytes = maxUtteranceMs * bytesPerMs;
+        this.service = service;
+        this.dispatchExecutor = dispatchExecutor;
+        this.resultConsumer = resultConsumer;
+    }
+
+    /**
+     * Gives a segment of audio of the participant. Must not be called
+     * concurrently.
+     *
+     * @param audio the audio, signed 16 bit little endian PCM
+     * @return the audio of the utterance ended by this segment, or null
+     */
+    public byte[] giveSegment(byte[] audio)
+    {
+        vad.giveSegment(audio);
+        boolean speech = !vad.shouldFilter();
+
+        if (utteranceLength == 0)
+        {
+            if (!speech)
+            {
+                cutInSpeech = false;
+                return null;
+            }
+
+            // start with the window in which the speech was detected
+            append(cutInSpeech ? audio : vad.getSpeechWindow());
+            trailingSilenceBytes = 0;
+        }
+        else
+        {
+            append(audio);
+            trailingSilenceBytes = speech ? 0 : trailingSilenceBytes + audio.length;
+        }
+
+        if (trailingSilenceBytes >= silenceBytes)
+        {
+            cutInSpeech = false;
+            return flush();
+        }
+        if (utteranceLength >= maxUtteranceBytes)
+        {
+            cutInSpeech = speech;
+            return flush();
+        }
+
+        return null;
+    }
+
+    /**
+     * Ends the current utterance. Must not be called concurrently with
+     * {@link #giveSegment(byte[])}.
+     *
+     * @return the audio of the utterance, or null when there is none
+     */
+    public byte[] flush()
+    {
+        if (utteranceLength == 0)
+        {
+            return null;
+        }
+
+        byte[] audio = Arrays.copyOf(utterance, utteranceLength);
+        utteranceLength = 0;
+        trailingSilenceBytes = 0;
+
+        return audio;
+    }
+
+    /**
+     * Appends audio to the current utterance.
+     *
+     * @param audio the audio
+     */
+    private void append(byte[] audio)
+    {
+        if (utteranceLength + audio.length > utterance.length)
+        {
+            utterance = Arrays.copyOf(utterance, Math.max(utteranceLength + audio.length, utterance.length * 2));
+        }
+
+        System.arraycopy(audio, 0, utterance, utteranceLength, audio.length);
+        utteranceLength += audio.length;
+    }
+
+    /**
+     * Queues the transcription of an utterance.
+     *
+     * @param request the request holding the audio of the utterance
+     */
+    public void dispatch(TranscriptionRequest request)
+    {
+        long sequence;
+        synchronized (completed)
+        {
+            sequence = nextSequence++;
+        }
+
+        try
+        {
+            dispatchExecutor.execute(() -> transcribe(sequence, request));
+        }
+        catch (RejectedExecutionException e)
+        {
+            logger.error("Failed to queue an utterance", e);
+            complete(sequence, request, Collections.emptyList());
+        }
+    }
+
+    /**
+     * Transcribes an utterance. Runs on the {@link #dispatchPool}.
+     *
+     * @param sequence the sequence number of the utterance
+     * @param request the request holding the audio of the utterance
+     */
+    private void transcribe(long sequence, TranscriptionRequest request)
+    {
+        ResultCollector results = new ResultCollector();
+        try
+        {
+            request.markSent();
+            service.sendSingleRequest(request, results);
+        }
+        catch (Exception e)
+        {
+            Statistics.incrementTotalTranscriberSendErrors();
+            logger.error("Failed to transcribe an utterance", e);
+        }
+        finally
+        {
+            complete(sequence, request, results.close());
+        }
+    }
+
+    /**
+     * Hands over the results of an utterance, and of the utterances after it
+     * which were waiting for it.
+     *
+     * @param sequence the sequence number of the utterance
+     * @param request the request holding the audio of the utterance
+     * @param results the results of the utterance, empty when it failed
+     */
+    private void complete(long sequence, TranscriptionRequest request, List<TranscriptionResult> results)
+    {
+        synchronized (completed)
+        {
+            completed.put(sequence, new Transcribed(request, results));
+
+            Transcribed next;
+            while ((next = completed.remove(nextToDeliver)) != null)
+            {
+                nextToDeliver++;
+                deliverable.add(next);
+            }
+
+            if (delivering)
+            {
+                // handed over by the thread delivering the earlier ones
+                return;
+            }
+            delivering = true;
+        }
+
+        deliver();
+    }
+
+    /**
+     * Hands over the {@link #deliverable} results until there are none left,
+     * then runs the {@link #drainedTasks} when every dispatched utterance was
+     * handed over.
+     */
+    private void deliver()
+    {
+        while (true)
+        {
+            List<Transcribed> toDeliver;
+            List<Runnable> drained = null;
+            synchronized (completed)
+            {
+                if (deliverable.isEmpty())
+                {
+                    delivering = false;
+
+                    if (nextToDeliver == nextSequence && !drainedTasks.isEmpty())
+                    {
+                        drained = new ArrayList<>(drainedTasks);
+                        drainedTasks.clear();
+                    }
+                }
+
+                toDeliver = new ArrayList<>(deliverable);
+                deliverable.clear();
+            }
+
+            if (toDeliver.isEmpty())
+            {
+                if (drained != null)
+                {
+                    drained.forEach(Runnable::run);
+                }
+                return;
+            }
+
+            for (Transcribed next : toDeliver)
+            {
+                for (TranscriptionResult result : next.results)
+                {
+                    try
+                    {
+                        resultConsumer.accept(next.request, result);
+                    }
+                    catch (Exception e)
+                    {
+                        logger.error("Failed to hand over a result", e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a task once the results of every utterance dispatched so far were
+     * handed over, right away when there are none left.
+     *
+     * @param task the task
+     */
+    public void whenDrained(Runnable task)
+    {
+        synchronized (completed)
+        {
+            if (nextToDeliver != nextSequence || delivering)
+            {
+                drainedTasks.add(task);
+                return;
+            }
+        }
+
+        task.run();
+    }
+
+    /**
+     * Returns the pool shared by all batchers, creating it if needed.
+     *
+     * @return the pool on which the utterances are transcribed
+     */
+    private static synchronized ExecutorService getDispatchPool()
+    {
+        if (dispatchPool == null)
+        {
+            int parallelism = JigasiBundleActivator.getConfigurationService()
+                .getInt(Transcriber.P_NAME_BATCH_PARALLELISM, Transcriber.BATCH_PARALLELISM_DEFAULT_VALUE);
+
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                parallelism, parallelism,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("jigasi-transcriber-batch", true));
+            pool.allowCoreThreadTimeOut(true);
+
+            dispatchPool = pool;
+        }
+
+        return dispatchPool;
+    }
+
+    /**
+     * Collects the results given by the service while it transcribes an
+     * utterance, which may be given on another thread. The results given
+     * once it is closed are dropped.
+     */
+    private static class ResultCollector
+        implements Consumer<TranscriptionResult>
+    {
+        /**
+         * The results, null once closed.
+         */
+        private List<TranscriptionResult> results = new ArrayList<>();
+
+        @Override
+        public synchronized void accept(TranscriptionResult result)
+        {
+            if (results == null)
+            {
+                logger.warn("Dropped a result given after the request returned");
+                return;
+            }
+
+            results.add(result);
+        }
+
+        /**
+         * Stops collecting the results.
+         *
+         * @return the results collected
+         */
+        synchronized List<TranscriptionResult> close()
+        {
+            List<TranscriptionResult> collected = results;
+            results = null;
+
+            return collected;
+        }
+    }
+
+    /**
+     * A transcribed utterance.
+     */
+    private static class Transcribed
+    {
+        /**
+         * The request holding the audio of the utterance.
+         */
+        private final TranscriptionRequest request;
+
+        /**
+         * The results of the utterance.
+         */
+        private final List<TranscriptionResult> results;
+
+        /**
+         * Creates new transcribed utterance.
+         *
+         * @param request the request
+         * @param results the results
+         */
+        Transcribed(TranscriptionRequest request, List<TranscriptionResult> results)
+        {
+            this.request = request;
+            this.results = results;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.eclipse.jetty.websocket.api.*;
+import org.eclipse.jetty.websocket.api.annotations.*;
+import org.jitsi.jigasi.stats.*;
+import org.jitsi.utils.logging.*;
+
+import java.net.*;
+import java.time.*;
+
+/**
+ * A websocket to a Vosk server, which carries the audio of a single
+ * participant. It is connected by the {@link VoskConnectionPool} before it is
+ * handed to a participant, so the participant does not wait for the
+ * handshake, and gives the messages of the server to its {@link Handler}.
+ */
+@WebSocket
+public class VoskConnection
+{
+    /**
+     * The logger for this class
+     */
+    private final static Logger logger = Logger.getLogger(VoskConnection.class);
+
+    /**
+     * The idle timeout of the websocket. A kept connection which times out
+     * is replaced by the {@link VoskConnectionPool}.
+     */
+    private final static int IDLE_TIMEOUT_SECONDS = 300;
+
+    /**
+     * Receives the events of the connection once it is used by a
+     * participant.
+     */
+    interface Handler
+    {
+        /**
+         * The connection was opened.
+         */
+        void onConnect();
+
+        /**
+         * A message was received from the server.
+         *
+         * @param message the message
+         */
+        void onMessage(String message);
+
+        /**
+         * The connection was closed.
+         */
+        void onClose();
+    }
+
+    /**
+     * The URL of the Vosk server.
+     */
+    private final String url;
+
+    /**
+     * The websocket session, null until connected.
+     */
+    private volatile Session session;
+
+    /**
+     * Whether the connection was closed or failed to connect.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * The handler of the events, null while the connection is kept by the
+     * pool.
+     */
+    private volatile Handler handler;
+
+    /**
+     * Creates new connection, see {@link #connect()}.
+     *
+     * @param url the URL of the Vosk server
+     */
+    VoskConnection(String url)
+    {
+        this.url = url;
+    }
+
+    /**
+     * Starts connecting, without waiting for the handshake.
+     */
+    void connect()
+    {
+        try
+        {
+            VoskConnectionPool.getWebSocketClient().connect(this, new URI(url))
+                .whenComplete((session, t) ->
+                {
+                    if (t != null)
+                    {
+                        Statistics.incrementTotalTranscriberConnectionErrors();
+                        logger.error("Failed connecting to " + url, t);
+                        onClose(-1, t.getMessage());
+                    }
+                });
+        }
+        catch (Exception e)
+        {
+            Statistics.incrementTotalTranscriberConnectionErrors();
+            logger.error("Failed connecting to " + url, e);
+            onClose(-1, e.getMessage());
+        }
+    }
+
+    @OnWebSocketOpen
+    public void onConnect(Session session)
+    {
+        // kept connections may wait a while for a participant
+        session.setIdleTimeout(Duration.ofSeconds(IDLE_TIMEOUT_SECONDS));
+        this.session = session;
+        VoskConnectionPool.connected(this);
+
+        Handler handler = this.handler;
+        if (handler != null)
+        {
+            handler.onConnect();
+        }
+    }
+
+    @OnWebSocketClose
+    public void onClose(int statusCode, String reason)
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        closed = true;
+        session = null;
+
+        Handler handler = this.handler;
+        if (handler != null)
+        {
+            handler.onClose();
+        }
+        else
+        {
+            VoskConnectionPool.discard(this);
+        }
+    }
+
+    @OnWebSocketMessage
+    public void onMessage(String message)
+    {
+        Handler handler = this.handler;
+        if (handler != null)
+        {
+            handler.onMessage(message);
+        }
+    }
+
+    @OnWebSocketError
+    public void onError(Throwable cause)
+    {
+        logger.error("Error on the websocket to " + url, cause);
+    }
+
+    /**
+     * Sets the handler of the events of this connection.
+     *
+     * @param handler the handler
+     */
+    void setHandler(Handler handler)
+    {
+        this.handler = handler;
+    }
+
+    /**
+     * @return the websocket session, or null when not connected yet or
+     * already closed.
+     */
+    Session getSession()
+    {
+        return session;
+    }
+
+    /**
+     * @return the URL of the Vosk server.
+     */
+    String getUrl()
+    {
+        return url;
+    }
+
+    /**
+     * @return whether the connection was closed or failed to connect.
+     */
+    boolean isClosed()
+    {
+        return closed;
+    }
+}
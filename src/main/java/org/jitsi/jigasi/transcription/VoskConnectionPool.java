@@ -0,0 +1,303 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.eclipse.jetty.websocket.client.*;
+import org.jitsi.jigasi.*;
+import org.jitsi.utils.concurrent.*;
+import org.jitsi.utils.logging.*;
+import org.json.simple.*;
+import org.json.simple.parser.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Hands out the {@link VoskConnection}s used by the participants. The
+ * language routing table of {@link VoskTranscriptionService#WEBSOCKET_URL} is
+ * parsed once, all connections share one jetty client, and
+ * {@link #P_NAME_WARM_CONNECTIONS} connections per Vosk server are kept
+ * connected ahead, so a participant which starts speaking does not wait for
+ * the handshake. A kept connection which is closed, by its idle timeout or
+ * by the server, is replaced, waiting longer after each connection which
+ * failed so a server which is down is not hammered.
+ */
+public class VoskConnectionPool
+{
+    /**
+     * The config key of the number of connections kept connected ahead for
+     * every Vosk server.
+     */
+    public final static String P_NAME_WARM_CONNECTIONS
+        = "org.jitsi.jigasi.transcription.vosk.warm_connections";
+
+    /**
+     * The default number of connections kept connected ahead for every Vosk
+     * server.
+     */
+    public final static int WARM_CONNECTIONS_DEFAULT_VALUE = 1;
+
+    /**
+     * The time in ms after which a closed kept connection is replaced.
+     */
+    private final static long MIN_REFILL_DELAY_MS = 1000;
+
+    /**
+     * The maximum time in ms after which a closed kept connection is
+     * replaced, when the connections keep failing.
+     */
+    private final static long MAX_REFILL_DELAY_MS = 60000;
+
+    /**
+     * The logger for this class
+     */
+    private final static Logger logger = Logger.getLogger(VoskConnectionPool.class);
+
+    /**
+     * The number of connections kept connected ahead for every Vosk server.
+     */
+    private final static int warmConnections = JigasiBundleActivator.getConfigurationService()
+        .getInt(P_NAME_WARM_CONNECTIONS, WARM_CONNECTIONS_DEFAULT_VALUE);
+
+    /**
+     * The configured websocket URL, or the language routing table.
+     */
+    private final static String websocketUrlConfig = JigasiBundleActivator.getConfigurationService()
+        .getString(VoskTranscriptionService.WEBSOCKET_URL, VoskTranscriptionService.DEFAULT_WEBSOCKET_URL);
+
+    /**
+     * The URL of the Vosk server of every language, or null when all
+     * languages use the same server.
+     */
+    private final static Map<String, String> routes = parseRoutes(websocketUrlConfig);
+
+    /**
+     * The connections kept connected ahead, by URL.
+     */
+    private final static Map<String, Deque<VoskConnection>> warm = new HashMap<>();
+
+    /**
+     * The time in ms after which the next closed kept connection is replaced,
+     * by URL. Doubled for every connection closed without a connection
+     * opening in between.
+     */
+    private final static Map<String, Long> refillDelays = new HashMap<>();
+
+    /**
+     * The URLs whose kept connections are about to be replaced.
+     */
+    private final static Set<String> refillsScheduled = new HashSet<>();
+
+    /**
+     * The timer replacing the closed kept connections.
+     */
+    private final static ScheduledExecutorService refillTimer = Executors.newSingleThreadScheduledExecutor(
+        new CustomizableThreadFactory("jigasi-vosk-pool", true));
+
+    /**
+     * The jetty client shared by all connections, started on first use.
+     */
+    private static WebSocketClient webSocketClient;
+
+    /**
+     * Parses the language routing table.
+     *
+     * @param config the configured websocket URL
+     * @return the URL of every language, or null when the config is a single
+     * URL or cannot be parsed
+     */
+    private static Map<String, String> parseRoutes(String config)
+    {
+        if (!config.trim().startsWith("{"))
+        {
+            return null;
+        }
+
+        Map<String, String> routes = new HashMap<>();
+        try
+        {
+            JSONObject languageMap = (JSONObject) new JSONParser().parse(config);
+            for (Object language : languageMap.keySet())
+            {
+                Object url = languageMap.get(language);
+                if (url instanceof String)
+                {
+                    routes.put((String) language, (String) url);
+                }
+            }
+        }
+        catch (ParseException e)
+        {
+            logger.error("Cannot parse the Vosk language routing table: " + config, e);
+        }
+
+        return routes;
+    }
+
+    /**
+     * @return whether the config is a language routing table.
+     */
+    static boolean supportsLanguageRouting()
+    {
+        return routes != null;
+    }
+
+    /**
+     * Get the URL of the Vosk server of a language.
+     *
+     * @param language the language, or null for the default one
+     * @return the URL, or null when the language is not routed
+     */
+    static String getWebsocketUrl(String language)
+    {
+        if (routes == null)
+        {
+            return websocketUrlConfig;
+        }
+
+        String url = routes.get(language != null ? language : "en");
+        if (url == null)
+        {
+            logger.error("No websocket URL configured for language " + language);
+        }
+
+        return url;
+    }
+
+    /**
+     * @return the jetty client used by all connections, starting it if needed.
+     */
+    static synchronized WebSocketClient getWebSocketClient()
+        throws Exception
+    {
+        if (webSocketClient == null)
+        {
+            WebSocketClient client = new WebSocketClient();
+            client.start();
+            webSocketClient = client;
+        }
+
+        return webSocketClient;
+    }
+
+    /**
+     * Connects the connections kept ahead for every Vosk server.
+     */
+    static synchronized void warmUp()
+    {
+        if (routes == null)
+        {
+            fill(websocketUrlConfig);
+        }
+        else
+        {
+            new HashSet<>(routes.values()).forEach(VoskConnectionPool::fill);
+        }
+    }
+
+    /**
+     * Gets a connection to a Vosk server, one which is already connected if
+     * possible, and starts connecting its replacement.
+     *
+     * @param url the URL of the Vosk server
+     * @return the connection, which may still be connecting
+     */
+    static synchronized VoskConnection acquire(String url)
+    {
+        VoskConnection connection = null;
+        Deque<VoskConnection> connections = warm.get(url);
+        while (connections != null && !connections.isEmpty() && connection == null)
+        {
+            VoskConnection candidate = connections.pollFirst();
+            if (!candidate.isClosed())
+            {
+                connection = candidate;
+            }
+        }
+
+        if (connection == null)
+        {
+            connection = new VoskConnection(url);
+            connection.connect();
+        }
+
+        fill(url);
+
+        return connection;
+    }
+
+    /**
+     * Removes a kept connection which was closed, and schedules its
+     * replacement.
+     *
+     * @param connection the connection
+     */
+    static synchronized void discard(VoskConnection connection)
+    {
+        String url = connection.getUrl();
+        Deque<VoskConnection> connections = warm.get(url);
+        if (connections != null)
+        {
+            connections.remove(connection);
+        }
+
+        long delayMs = refillDelays.getOrDefault(url, MIN_REFILL_DELAY_MS);
+        refillDelays.put(url, Math.min(delayMs * 2, MAX_REFILL_DELAY_MS));
+
+        if (refillsScheduled.add(url))
+        {
+            refillTimer.schedule(() ->
+            {
+                synchronized (VoskConnectionPool.class)
+                {
+                    refillsScheduled.remove(url);
+                    fill(url);
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Records that a connection to a Vosk server was opened, so the next
+     * closed kept connection is replaced right away again.
+     *
+     * @param connection the connection
+     */
+    static synchronized void connected(VoskConnection connection)
+    {
+        refillDelays.remove(connection.getUrl());
+    }
+
+    /**
+     * Starts connecting connections to a Vosk server until
+     * {@link #warmConnections} are kept.
+     *
+     * @param url the URL of the Vosk server
+     */
+    private static void fill(String url)
+    {
+        Deque<VoskConnection> connections = warm.computeIfAbsent(url, k -> new ArrayDeque<>());
+        // a connection which fails right away is discarded, do not retry it
+        for (int missing = warmConnections - connections.size(); missing > 0; missing--)
+        {
+            VoskConnection connection = new VoskConnection(url);
+            connections.addLast(connection);
+            connection.connect();
+        }
+    }
+}
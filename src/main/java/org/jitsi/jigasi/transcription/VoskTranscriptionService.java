@@ -19,16 +19,15 @@ package org.jitsi.jigasi.transcription;
 
 import org.eclipse.jetty.websocket.api.*;
 import org.eclipse.jetty.websocket.api.annotations.*;
-import org.eclipse.jetty.websocket.client.*;
 import org.json.simple.*;
 import org.json.simple.parser.*;
 import org.jitsi.jigasi.*;
+import org.jitsi.jigasi.stats.*;
 import org.jitsi.utils.logging.*;
 
 import javax.media.format.*;
 import java.io.*;
 import java.net.*;
-import java.nio.*;
 import java.time.*;
 import java.util.*;
 import java.util.concurrent.*;
@@ -64,45 +63,27 @@ public class VoskTranscriptionService
 
     public final static String DEFAULT_WEBSOCKET_URL = "ws://localhost:2700";
 
-    private final static String EOF_MESSAGE = "{\"eof\" : 1}";
-
     /**
-     * The config value of the websocket to the speech-to-text service.
+     * The config key of the maximum ms of audio held while the websocket of a
+     * participant connects. The oldest audio is dropped beyond it.
      */
-    private String websocketUrlConfig;
+    public final static String P_NAME_PREROLL_MS
+            = "org.jitsi.jigasi.transcription.vosk.preroll_ms";
 
     /**
-     * The URL of the websocket to the speech-to-text service.
+     * The default maximum ms of audio held while connecting.
      */
-    private String websocketUrl;
+    public final static int PREROLL_MS_DEFAULT_VALUE = 3000;
+
+    private final static String EOF_MESSAGE = "{\"eof\" : 1}";
 
     private final JSONParser jsonParser = new JSONParser();
 
     /**
-     * Assigns the websocketUrl to use to websocketUrl by reading websocketUrlConfig;
+     * The maximum ms of audio held while the websocket of a participant
+     * connects.
      */
-    private void generateWebsocketUrl(Participant participant)
-        throws org.json.simple.parser.ParseException
-    {
-        if (!supportsLanguageRouting())
-        {
-            websocketUrl = websocketUrlConfig;
-            return;
-        }
-
-        org.json.simple.parser.JSONParser jsonParser = new org.json.simple.parser.JSONParser();
-        Object obj = jsonParser.parse(websocketUrlConfig);
-        org.json.simple.JSONObject languageMap = (org.json.simple.JSONObject) obj;
-        String language = participant.getSourceLanguage() != null ? participant.getSourceLanguage() : "en";
-        Object urlObject = languageMap.get(language);
-        if (!(urlObject instanceof String))
-        {
-            logger.error("No websocket URL configured for language " + language);
-            websocketUrl = null;
-            return;
-        }
-        websocketUrl = (String) urlObject;
-    }
+    private final int prerollMs;
 
     /**
      * Create a TranscriptionService which will send audio to the VOSK service
@@ -110,8 +91,27 @@ public class VoskTranscriptionService
      */
     public VoskTranscriptionService()
     {
-        websocketUrlConfig = JigasiBundleActivator.getConfigurationService()
-                .getString(WEBSOCKET_URL, DEFAULT_WEBSOCKET_URL);
+        prerollMs = JigasiBundleActivator.getConfigurationService()
+                .getInt(P_NAME_PREROLL_MS, PREROLL_MS_DEFAULT_VALUE);
+        VoskConnectionPool.warmUp();
+    }
+
+    /**
+     * Builds the message which configures the recognizer of a websocket.
+     *
+     * @param sampleRate the sample rate of the audio
+     * @return the message
+     */
+    @SuppressWarnings("unchecked")
+    private static String getConfigMessage(double sampleRate)
+    {
+        JSONObject config = new JSONObject();
+        config.put("sample_rate", sampleRate);
+
+        JSONObject message = new JSONObject();
+        message.put("config", config);
+
+        return message.toJSONString();
     }
 
     /**
@@ -127,7 +127,7 @@ public class VoskTranscriptionService
      */
     public boolean supportsLanguageRouting()
     {
-        return websocketUrlConfig.trim().startsWith("{");
+        return VoskConnectionPool.supportsLanguageRouting();
     }
 
     /**
@@ -154,10 +154,9 @@ public class VoskTranscriptionService
             }
             Instant timeRequestReceived = Instant.now();
 
-            WebSocketClient ws = new WebSocketClient();
+            String websocketUrl = VoskConnectionPool.getWebsocketUrl(request.getLocale().getLanguage());
             VoskWebsocketSession socket = new VoskWebsocketSession(request);
-            ws.start();
-            ws.connect(socket, new URI(websocketUrl));
+            VoskConnectionPool.getWebSocketClient().connect(socket, new URI(websocketUrl));
             socket.awaitClose();
             resultConsumer.accept(
                     new TranscriptionResult(
@@ -181,9 +180,13 @@ public class VoskTranscriptionService
     {
         try
         {
-            generateWebsocketUrl(participant);
+            String websocketUrl = VoskConnectionPool.getWebsocketUrl(participant.getSourceLanguage());
+            if (websocketUrl == null)
+            {
+                throw new IllegalArgumentException("No websocket URL for " + participant.getSourceLanguage());
+            }
             VoskWebsocketStreamingSession streamingSession = new VoskWebsocketStreamingSession(
-                    participant.getDebugName());
+                    participant.getDebugName(), VoskConnectionPool.acquire(websocketUrl));
             streamingSession.transcriptionTag = participant.getTranslationLanguage();
             if (streamingSession.transcriptionTag == null)
             {
@@ -213,11 +216,11 @@ public class VoskTranscriptionService
      * A Transcription session for transcribing streams, handles
      * the lifecycle of websocket
      */
-    @WebSocket
     public class VoskWebsocketStreamingSession
-        implements StreamingRecognitionSession
+        implements StreamingRecognitionSession, VoskConnection.Handler
     {
-        private Session session;
+        /* The websocket to the Vosk server, handed out by the pool */
+        private final VoskConnection connection;
         /* The name of the participant */
         private final String debugName;
         /* The sample rate of the audio stream we collect from the first request */
@@ -239,28 +242,69 @@ public class VoskTranscriptionService
          */
         private UUID uuid = UUID.randomUUID();
 
-        VoskWebsocketStreamingSession(String debugName)
-            throws Exception
+        /**
+         * The requests received while the websocket connects, oldest first,
+         * sent in order once it is open.
+         */
+        private final Deque<TranscriptionRequest> preroll = new ArrayDeque<>();
+
+        /**
+         * The ms of audio in {@link #preroll}.
+         */
+        private long prerollHeldMs = 0;
+
+        /**
+         * Whether {@link #end()} was called while the websocket connects.
+         */
+        private boolean ending = false;
+
+        VoskWebsocketStreamingSession(String debugName, VoskConnection connection)
         {
             this.debugName = debugName;
-            WebSocketClient ws = new WebSocketClient();
-            ws.start();
-            ws.connect(this, new URI(websocketUrl));
+            this.connection = connection;
+            connection.setHandler(this);
+
+            // the connection may have opened before it had a handler
+            if (connection.getSession() != null)
+            {
+                onConnect();
+            }
         }
 
-        @OnWebSocketClose
-        public void onClose(int statusCode, String reason)
+        @Override
+        public synchronized void onConnect()
         {
-            this.session = null;
+            Session session = connection.getSession();
+            if (session == null)
+            {
+                return;
+            }
+
+            flushPreroll(session);
+            if (ending)
+            {
+                ending = false;
+                sendEof(session);
+            }
         }
 
-        @OnWebSocketOpen
-        public void onConnect(Session session)
+        @Override
+        public synchronized void onClose()
         {
-            this.session = session;
+            // ended() reports the closed connection, a new session is created for the next audio
+            if (logger.isDebugEnabled())
+            {
+                logger.debug(debugName + ": websocket closed");
+            }
+
+            if (!preroll.isEmpty())
+            {
+                Statistics.incrementTotalTranscriberPrerollDroppedMillis(prerollHeldMs);
+                clearPreroll();
+            }
         }
 
-        @OnWebSocketMessage
+        @Override
         public void onMessage(String msg)
         {
             try
@@ -319,40 +363,126 @@ public class VoskTranscriptionService
             }
         }
 
-        @OnWebSocketError
-        public void onError(Throwable cause)
+        public synchronized void sendRequest(TranscriptionRequest request)
         {
-            logger.error("Error while streaming audio data to transcription service" , cause);
+            Session session = connection.getSession();
+            if (session == null)
+            {
+                if (!connection.isClosed())
+                {
+                    hold(request);
+                }
+                return;
+            }
+
+            flushPreroll(session);
+            send(session, request);
         }
 
-        public void sendRequest(TranscriptionRequest request)
+        /**
+         * Sends a request on the open websocket, configuring the recognizer
+         * with the first one.
+         *
+         * @param session the websocket
+         * @param request the request
+         */
+        private void send(Session session, TranscriptionRequest request)
         {
             try
             {
                 if (sampleRate < 0)
                 {
                     sampleRate = request.getFormat().getSampleRate();
-                    session.sendText("{\"config\" : {\"sample_rate\" : " + sampleRate + " }}", Callback.NOOP);
+                    session.sendText(getConfigMessage(sampleRate), Callback.from(() -> {}, this::sendFailed));
                 }
-                ByteBuffer audioBuffer = ByteBuffer.wrap(request.getAudio());
-                session.sendBinary(audioBuffer, Callback.NOOP);
+                // the audio is sent asynchronously, keep it until the send completes
+                request.retain();
+                session.sendBinary(
+                    request.getAudioBuffer(),
+                    Callback.from(request::releaseSent, t ->
+                    {
+                        request.release();
+                        sendFailed(t);
+                    }));
             }
             catch (Exception e)
             {
-                logger.error("Error to send websocket request for participant " + debugName, e);
+                sendFailed(e);
             }
         }
 
-        public void addTranscriptionListener(TranscriptionListener listener)
+        /**
+         * Counts and logs a failed send.
+         *
+         * @param t the cause
+         */
+        private void sendFailed(Throwable t)
         {
-            listeners.add(listener);
+            Statistics.incrementTotalTranscriberSendErrors();
+            logger.error("Error to send websocket request for participant " + debugName, t);
         }
 
-        public void end()
+        /**
+         * Holds a request until the websocket is open, dropping the oldest
+         * audio beyond {@link #prerollMs}.
+         *
+         * @param request the request
+         */
+        private void hold(TranscriptionRequest request)
+        {
+            preroll.addLast(request.retain());
+            prerollHeldMs += Math.max(0, request.getDurationInMs());
+
+            while (preroll.size() > 1 && prerollHeldMs > prerollMs)
+            {
+                TranscriptionRequest dropped = preroll.removeFirst();
+                long droppedMs = Math.max(0, dropped.getDurationInMs());
+                prerollHeldMs -= droppedMs;
+                Statistics.incrementTotalTranscriberPrerollDroppedMillis(droppedMs);
+                dropped.release();
+            }
+        }
+
+        /**
+         * Sends the requests held while the websocket connected, in order.
+         *
+         * @param session the websocket
+         */
+        private void flushPreroll(Session session)
+        {
+            TranscriptionRequest request;
+            while ((request = preroll.pollFirst()) != null)
+            {
+                send(session, request);
+                request.release();
+            }
+            prerollHeldMs = 0;
+        }
+
+        /**
+         * Releases the requests held while the websocket connected.
+         */
+        private void clearPreroll()
+        {
+            TranscriptionRequest request;
+            while ((request = preroll.pollFirst()) != null)
+            {
+                request.release();
+            }
+            prerollHeldMs = 0;
+        }
+
+        /**
+         * Tells the recognizer that the audio ended, after which the server
+         * closes the websocket.
+         *
+         * @param session the websocket
+         */
+        private void sendEof(Session session)
         {
             try
             {
-                session.sendText(EOF_MESSAGE, Callback.NOOP);
+                session.sendText(EOF_MESSAGE, Callback.from(() -> {}, this::sendFailed));
             }
             catch (Exception e)
             {
@@ -360,9 +490,29 @@ public class VoskTranscriptionService
             }
         }
 
+        public void addTranscriptionListener(TranscriptionListener listener)
+        {
+            listeners.add(listener);
+        }
+
+        public synchronized void end()
+        {
+            Session session = connection.getSession();
+            if (session != null)
+            {
+                flushPreroll(session);
+                sendEof(session);
+            }
+            else if (!connection.isClosed())
+            {
+                // finish once connected
+                ending = true;
+            }
+        }
+
         public boolean ended()
         {
-            return session == null;
+            return connection.isClosed();
         }
     }
 
@@ -398,9 +548,8 @@ public class VoskTranscriptionService
         public void onConnect(Session session)
         {
             AudioFormat format = request.getFormat();
-            session.sendText("{\"config\" : {\"sample_rate\" : " + format.getSampleRate() + "}}", Callback.NOOP);
-            ByteBuffer audioBuffer = ByteBuffer.wrap(request.getAudio());
-            session.sendBinary(audioBuffer, Callback.NOOP);
+            session.sendText(getConfigMessage(format.getSampleRate()), Callback.NOOP);
+            session.sendBinary(request.getAudioBuffer(), Callback.NOOP);
             session.sendText(EOF_MESSAGE, Callback.NOOP);
         }
 
@@ -0,0 +1,1067 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.eclipse.jetty.websocket.api.*;
+import org.eclipse.jetty.websocket.api.annotations.*;
+import org.eclipse.jetty.websocket.client.*;
+import org.jitsi.jigasi.*;
+import org.jitsi.jigasi.stats.*;
+import org.jitsi.jigasi.util.Util;
+import org.jitsi.utils.logging2.*;
+import org.json.simple.*;
+import org.json.simple.parser.*;
+
+import java.net.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A websocket connection to the Whisper streaming service, carrying the audio
+ * of the participants of one or more rooms ({@link WhisperWebsocket}s). Every
+ * audio frame starts with a <tt>participantId|lang</tt> header, which is also
+ * used to route the results back to the room of the participant.
+ * <p>
+ * When {@link #P_NAME_WIRE_FORMAT} is <tt>v2</tt>, a <tt>hello</tt> text
+ * message offering the compact format is sent once connected. If the service
+ * answers with the same message, every participant gets a slot id, announced
+ * together with its language in a <tt>participant</tt> text message, and
+ * again only when the language changes. The audio frames then start with a
+ * 3 bytes header (the format version and the slot id) which is sent together
+ * with the audio without copying it. Until the service accepted the compact
+ * format, the string header is used.
+ * <p>
+ * At most {@link #maxInFlightFrames} frames are handed to jetty at a time,
+ * the rest waits in a queue bounded by {@link #maxQueuedBytes}. When the
+ * service is too slow and the queue is full, the oldest audio is dropped, so
+ * a slow backend cannot make us buffer without limit.
+ * When the audio is sent as Opus, the encoding is requested in the URL of the
+ * connection and every frame holds a single Opus packet.
+ * The jetty WebSocketClient process messages in a single thread.
+ */
+@WebSocket
+public class WhisperConnection
+{
+    private final static Logger logger = new LoggerImpl(WhisperConnection.class.getName());
+
+    /**
+     * The config key of the maximum number of audio frames sent to jetty
+     * which were not written to the network yet.
+     */
+    public final static String P_NAME_MAX_IN_FLIGHT_FRAMES
+        = "org.jitsi.jigasi.transcription.whisper.max_in_flight_frames";
+
+    /**
+     * The default value of {@link #P_NAME_MAX_IN_FLIGHT_FRAMES}.
+     */
+    public final static int MAX_IN_FLIGHT_FRAMES_DEFAULT_VALUE = 8;
+
+    /**
+     * The config key of the maximum number of bytes of audio waiting to be
+     * sent on a connection.
+     */
+    public final static String P_NAME_MAX_QUEUED_BYTES
+        = "org.jitsi.jigasi.transcription.whisper.max_queued_bytes";
+
+    /**
+     * The default value of {@link #P_NAME_MAX_QUEUED_BYTES}.
+     */
+    public final static int MAX_QUEUED_BYTES_DEFAULT_VALUE = 2 * 1024 * 1024;
+
+    /**
+     * The config key of the {@link OverflowPolicy} to use when the service
+     * does not keep up with the audio.
+     */
+    public final static String P_NAME_OVERFLOW_POLICY
+        = "org.jitsi.jigasi.transcription.whisper.overflow_policy";
+
+    /**
+     * The config key of the wire format to offer to the service, <tt>v1</tt>
+     * (the default) for the string header or <tt>v2</tt> for the compact one.
+     */
+    public final static String P_NAME_WIRE_FORMAT
+        = "org.jitsi.jigasi.transcription.whisper.wire_format";
+
+    /**
+     * What to do with the queued audio when the in-flight window is full.
+     */
+    public enum OverflowPolicy
+    {
+        /**
+         * Queue every frame, dropping the oldest ones when the queue is full.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Append the audio to a frame of the same participant which is still
+         * queued, so fewer and bigger frames are sent to a slow service. The
+         * oldest frames are still dropped when the queue is full.
+         */
+        COALESCE
+    }
+
+    /**
+     * The size of the header of every audio frame, holding
+     * <tt>participant_id|language</tt> in UTF-8. The audio of a participant
+     * whose header does not fit is dropped.
+     */
+    private final static int HEADER_SIZE = 60;
+
+    /**
+     * The version of the compact wire format, first byte of its frames.
+     */
+    private final static byte WIRE_FORMAT_V2 = 2;
+
+    /**
+     * The size of the header of the compact wire format.
+     */
+    private final static int V2_HEADER_SIZE = 3;
+
+    /**
+     * The maximum slot id which fits in the compact header.
+     */
+    private final static int MAX_SLOT_ID = 0xFFFF;
+
+    /**
+     * Message to send when closing the connection
+     */
+    private final static ByteBuffer EOF_MESSAGE = ByteBuffer.wrap(new byte[1]);
+
+    private static final int maxRetryAttempts = 3;
+
+    private final static long CONNECTION_TIMEOUT_MS = 15000L;
+
+    /**
+     * The config value of the websocket to the speech-to-text
+     * service.
+     */
+    private final static String websocketUrlConfig;
+
+    private final static String privateKey;
+
+    private final static String privateKeyName;
+
+    private final static String jwtAudience;
+
+    private final static int maxInFlightFrames;
+
+    private final static int maxQueuedBytes;
+
+    private final static OverflowPolicy overflowPolicy;
+
+    /**
+     * Whether to offer the compact wire format to the service.
+     */
+    private final static boolean offerV2;
+
+    static
+    {
+        jwtAudience = JigasiBundleActivator.getConfigurationService()
+                .getString(WhisperWebsocket.JWT_AUDIENCE, "jitsi");
+        privateKey = JigasiBundleActivator.getConfigurationService()
+                .getString(WhisperWebsocket.PRIVATE_KEY, "");
+        privateKeyName = JigasiBundleActivator.getConfigurationService()
+                .getString(WhisperWebsocket.PRIVATE_KEY_NAME, "");
+        if (privateKey.isEmpty() || privateKeyName.isEmpty())
+        {
+            logger.warn("org.jitsi.jigasi.transcription.whisper.private_key_name or " +
+                    "org.jitsi.jigasi.transcription.whisper.private_key are empty." +
+                    "Will not generate a JWT for skynet/streaming-whisper.");
+        }
+
+        String wsUrlConfig = JigasiBundleActivator.getConfigurationService()
+                .getString(WhisperWebsocket.WEBSOCKET_URL, WhisperWebsocket.DEFAULT_WEBSOCKET_URL);
+        if (wsUrlConfig.endsWith("/"))
+        {
+            websocketUrlConfig = wsUrlConfig.substring(0, wsUrlConfig.length() - 1);
+        }
+        else
+        {
+            websocketUrlConfig = wsUrlConfig;
+        }
+        logger.info("Websocket transcription streaming endpoint: " + websocketUrlConfig);
+
+        maxInFlightFrames = Math.max(1, JigasiBundleActivator.getConfigurationService()
+                .getInt(P_NAME_MAX_IN_FLIGHT_FRAMES, MAX_IN_FLIGHT_FRAMES_DEFAULT_VALUE));
+        maxQueuedBytes = JigasiBundleActivator.getConfigurationService()
+                .getInt(P_NAME_MAX_QUEUED_BYTES, MAX_QUEUED_BYTES_DEFAULT_VALUE);
+
+        String policy = JigasiBundleActivator.getConfigurationService()
+                .getString(P_NAME_OVERFLOW_POLICY, OverflowPolicy.DROP_OLDEST.name());
+        OverflowPolicy configuredPolicy;
+        try
+        {
+            configuredPolicy = OverflowPolicy.valueOf(policy.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e)
+        {
+            logger.warn("Unknown " + P_NAME_OVERFLOW_POLICY + " " + policy + ", using DROP_OLDEST");
+            configuredPolicy = OverflowPolicy.DROP_OLDEST;
+        }
+        overflowPolicy = configuredPolicy;
+
+        offerV2 = "v2".equalsIgnoreCase(JigasiBundleActivator.getConfigurationService()
+                .getString(P_NAME_WIRE_FORMAT, "v1").trim());
+    }
+
+    /**
+     * The jetty client shared by all connections, started on first use.
+     */
+    private static WebSocketClient webSocketClient;
+
+    /**
+     * The Connection ID to the Whisper Service
+     */
+    private final String connectionId = UUID.randomUUID().toString();
+
+    /**
+     * The URL of the websocket to the speech-to-text service.
+     */
+    private final String websocketUrl = websocketUrlConfig + "/" + connectionId
+        + (WhisperTranscriptionService.SEND_OPUS ? "?encoding=" + AbstractTranscriptionService.ENCODING_OPUS : "");
+
+    /**
+     * Whether this connection can carry the audio of more than one room.
+     */
+    private final boolean shared;
+
+    /**
+     * The rooms using this connection.
+     */
+    private final Set<WhisperWebsocket> channels = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The room of every participant id sent on this connection, used to route
+     * the results.
+     */
+    private final Map<String, WhisperWebsocket> routes = new ConcurrentHashMap<>();
+
+    /**
+     * The participant ids whose header did not fit in {@link #HEADER_SIZE},
+     * so the error is logged once per participant.
+     */
+    private final Set<String> oversizedIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The audio frames waiting for the in-flight window to open.
+     */
+    private final Deque<AudioFrame> pending = new ArrayDeque<>();
+
+    /**
+     * The number of bytes in {@link #pending}.
+     */
+    private long queuedBytes = 0;
+
+    /**
+     * The number of frames handed to jetty and not written yet.
+     */
+    private int inFlight = 0;
+
+    private volatile Session wsSession;
+
+    /**
+     * Whether the service accepted the compact wire format on the current
+     * session.
+     */
+    private volatile boolean v2Accepted = false;
+
+    /**
+     * The slots of the participants on the current session, when using the
+     * compact wire format. Only accessed with {@link #sendLock} held.
+     */
+    private final Map<String, Slot> slots = new HashMap<>();
+
+    /**
+     * The next slot id to give out on the current session.
+     */
+    private int nextSlotId = 0;
+
+    /**
+     * Held while handing a frame to jetty, so the parts of a frame and the
+     * messages announcing its participant are not interleaved with another
+     * frame.
+     */
+    private final Object sendLock = new Object();
+
+    /**
+     * Whether a connect is scheduled or running.
+     */
+    private boolean connecting = false;
+
+    private final JSONParser jsonParser = new JSONParser();
+
+    /**
+     * Creates new connection, {@link #connect()} must be called to open it.
+     *
+     * @param shared whether this connection can carry the audio of more than
+     * one room.
+     */
+    WhisperConnection(boolean shared)
+    {
+        this.shared = shared;
+    }
+
+    /**
+     * @return the jetty client used by all connections, starting it if needed.
+     */
+    private static synchronized WebSocketClient getWebSocketClient()
+        throws Exception
+    {
+        if (webSocketClient == null)
+        {
+            WebSocketClient client = new WebSocketClient();
+            client.start();
+            webSocketClient = client;
+        }
+
+        return webSocketClient;
+    }
+
+    /**
+     * @return whether this connection can carry the audio of more than one
+     * room.
+     */
+    boolean isShared()
+    {
+        return shared;
+    }
+
+    /**
+     * Adds a room using this connection.
+     *
+     * @param channel the room
+     */
+    void addChannel(WhisperWebsocket channel)
+    {
+        channels.add(channel);
+    }
+
+    /**
+     * Removes a room which stopped using this connection.
+     *
+     * @param channel the room
+     * @return whether no more rooms are using this connection
+     */
+    boolean removeChannel(WhisperWebsocket channel)
+    {
+        channels.remove(channel);
+        routes.values().removeIf(c -> c == channel);
+
+        return channels.isEmpty();
+    }
+
+    /**
+     * @return the number of rooms using this connection.
+     */
+    int getChannelCount()
+    {
+        return channels.size();
+    }
+
+    /**
+     * Routes the results for the given participant id to a room.
+     *
+     * @param wireId the participant id used on this connection
+     * @param channel the room of the participant
+     */
+    void register(String wireId, WhisperWebsocket channel)
+    {
+        routes.put(wireId, channel);
+    }
+
+    /**
+     * Stops routing results for the given participant id.
+     *
+     * @param wireId the participant id used on this connection
+     */
+    void unregister(String wireId)
+    {
+        routes.remove(wireId);
+        oversizedIds.remove(wireId);
+
+        synchronized (sendLock)
+        {
+            slots.remove(wireId);
+        }
+    }
+
+    /**
+     * Connect to the websocket in a new thread so we do not block Smack.
+     */
+    synchronized void connect()
+    {
+        if (connecting)
+        {
+            return;
+        }
+        connecting = true;
+
+        WhisperWebsocket.threadPool.submit(this::connectInternal);
+    }
+
+    /**
+     * Connect to the websocket, retry up to maxRetryAttempts
+     * with exponential backoff in case of failure
+     */
+    private void connectInternal()
+    {
+        int attempt = 0;
+        float multiplier = 1.5f;
+        long waitTime = 1000L;
+        boolean isConnected = false;
+        wsSession = null;
+        // avoid executing if meeting ended (we are not running) while we were reconnecting
+        while (attempt < maxRetryAttempts && isRunning() && !isConnected)
+        {
+            try
+            {
+                logger.info("Connecting to " + websocketUrl);
+                ClientUpgradeRequest upgradeRequest = new ClientUpgradeRequest();
+                if (!privateKey.isEmpty() && !privateKeyName.isEmpty())
+                {
+                    upgradeRequest.setHeader("Authorization", "Bearer " +
+                        Util.generateAsapToken(privateKey, privateKeyName, jwtAudience, "jigasi"));
+                }
+                CompletableFuture<Session> futureSession
+                    = getWebSocketClient().connect(this, new URI(websocketUrl), upgradeRequest);
+                Session session = futureSession.orTimeout(CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS).get();
+                session.setIdleTimeout(Duration.ofSeconds(300));
+                synchronized (sendLock)
+                {
+                    slots.clear();
+                    nextSlotId = 0;
+                }
+                synchronized (this)
+                {
+                    inFlight = 0;
+                    v2Accepted = false;
+                    wsSession = session;
+                }
+                if (offerV2)
+                {
+                    JSONObject hello = new JSONObject();
+                    hello.put("type", "hello");
+                    hello.put("protocol", 2);
+                    session.sendText(hello.toJSONString(), Callback.NOOP);
+                }
+                isConnected = true;
+                logger.info("Successfully connected to " + websocketUrl);
+                break;
+            }
+            catch (Exception e)
+            {
+                Statistics.incrementTotalTranscriberConnectionErrors();
+                int remaining = maxRetryAttempts - attempt;
+                waitTime *= multiplier;
+                logger.error("Failed connecting to " + websocketUrl + ". Retrying in "
+                        + waitTime/1000 + "seconds for another " + remaining + " times.", e);
+            }
+            attempt++;
+            synchronized (this)
+            {
+                try
+                {
+                    wait(waitTime);
+                }
+                catch (InterruptedException ignored) {}
+            }
+        }
+
+        synchronized (this)
+        {
+            connecting = false;
+        }
+
+        if (!isConnected)
+        {
+            Statistics.incrementTotalTranscriberConnectionErrors();
+            logger.error("Failed connecting to " + websocketUrl + ". Nothing to do.");
+        }
+    }
+
+    /**
+     * Drops the current session, if any, and connects again unless no room
+     * uses this connection anymore.
+     */
+    synchronized void reconnect()
+    {
+        if (connecting || !isRunning())
+        {
+            return;
+        }
+
+        Statistics.incrementTotalTranscriberConnectionRetries();
+
+        Session session = wsSession;
+        wsSession = null;
+        dropPending();
+        if (session != null && session.isOpen())
+        {
+            session.disconnect();
+        }
+
+        connect();
+    }
+
+    /**
+     * Closes this connection, telling the service there will be no more
+     * audio.
+     */
+    void close()
+    {
+        Session session;
+        synchronized (this)
+        {
+            session = wsSession;
+            dropPending();
+        }
+
+        if (session == null)
+        {
+            return;
+        }
+
+        // not in the middle of the parts of an audio frame
+        synchronized (sendLock)
+        {
+            session.sendBinary(EOF_MESSAGE.duplicate(), Callback.from(
+                () -> {},
+                cause -> logger.error("Error while finalizing websocket connection " + connectionId, cause)));
+        }
+
+        session.disconnect();
+    }
+
+    @OnWebSocketClose
+    public void onClose(int statusCode, String reason)
+    {
+        Session session = wsSession;
+        logger.error("Websocket " + connectionId + " closed: " + statusCode + " reason:" + reason
+            + " isRunning: " + isRunning() + " isOpen:" + (session != null && session.isOpen()));
+
+        synchronized (this)
+        {
+            if (isRunning())
+            {
+                // let's try to reconnect
+                if ((session != null && !session.isOpen()) || (statusCode > 1000 && statusCode < 2000))
+                {
+                    reconnect();
+
+                    return;
+                }
+            }
+
+            wsSession = null;
+            dropPending();
+        }
+    }
+
+    @OnWebSocketMessage
+    public void onMessage(String msg)
+    {
+        try
+        {
+            JSONObject obj = (JSONObject)jsonParser.parse(msg);
+            if ("hello".equals(obj.get("type")))
+            {
+                Object protocol = obj.get("protocol");
+                v2Accepted = offerV2 && protocol instanceof Number && ((Number) protocol).intValue() == 2;
+                logger.info("Whisper service " + (v2Accepted ? "accepted" : "refused") + " the compact format on "
+                    + connectionId);
+                return;
+            }
+
+            String wireId = (String)obj.get("participant_id");
+            WhisperWebsocket channel = wireId != null ? routes.get(wireId) : null;
+
+            if (channel == null)
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Received result for unknown participant " + wireId);
+                }
+                return;
+            }
+
+            channel.onResult(wireId, obj);
+        }
+        catch (ParseException e)
+        {
+            logger.error("Error parsing message: " + msg, e);
+        }
+    }
+
+    @OnWebSocketError
+    public void onError(Throwable cause)
+    {
+        if (!ended() && isRunning())
+        {
+            Statistics.incrementTotalTranscriberSendErrors();
+            logger.error("Error while streaming audio data to transcription service.", cause);
+        }
+    }
+
+    /**
+     * Sends audio, or queues it when the in-flight window is full.
+     *
+     * @param wireId the participant id used on this connection
+     * @param language the language of the audio
+     * @param audio the audio
+     * @param onComplete called exactly once, when the audio is no longer used,
+     * which can be before this method returns
+     * @param onSent called when jetty wrote the audio, after the time it
+     * waited in the queue, never when it was dropped
+     * @return false if the connection is not open and nothing was sent
+     */
+    boolean sendAudio(String wireId, String language, ByteBuffer audio, Runnable onComplete, Runnable onSent)
+    {
+        Session session;
+        AudioFrame toSend = null;
+        boolean compact;
+
+        synchronized (this)
+        {
+            session = wsSession;
+            if (session == null || !session.isOpen())
+            {
+                onComplete.run();
+                return false;
+            }
+
+            compact = v2Accepted;
+            ByteBuffer payload = null;
+            if (!compact)
+            {
+                payload = buildPayload(wireId, language, audio);
+                if (payload == null)
+                {
+                    onComplete.run();
+                    return true;
+                }
+            }
+            AudioFrame frame = compact
+                ? new AudioFrame(wireId, language, audio, onComplete)
+                : new AudioFrame(wireId, language, payload, audio.remaining());
+            frame.onSent = onSent;
+
+            if (inFlight < maxInFlightFrames && pending.isEmpty())
+            {
+                inFlight++;
+                toSend = frame;
+            }
+            else
+            {
+                enqueue(frame);
+            }
+        }
+
+        if (!compact)
+        {
+            // the audio was copied in the payload
+            onComplete.run();
+        }
+
+        if (toSend != null)
+        {
+            send(session, toSend);
+        }
+
+        return true;
+    }
+
+    /**
+     * Queues a frame which cannot be sent yet, applying the
+     * {@link #overflowPolicy}. Must be called with the lock held.
+     */
+    private void enqueue(AudioFrame frame)
+    {
+        boolean coalesced = false;
+
+        // Opus packets cannot be merged
+        if (overflowPolicy == OverflowPolicy.COALESCE && !WhisperTranscriptionService.SEND_OPUS)
+        {
+            Iterator<AudioFrame> it = pending.descendingIterator();
+            while (it.hasNext())
+            {
+                AudioFrame queued = it.next();
+                if (queued.wireId.equals(frame.wireId))
+                {
+                    if (Objects.equals(queued.language, frame.language) && queued.compact == frame.compact)
+                    {
+                        queued.append(frame);
+                        coalesced = true;
+                    }
+                    // never reorder the audio of a participant
+                    break;
+                }
+            }
+        }
+
+        if (!coalesced)
+        {
+            pending.add(frame);
+        }
+
+        queuedBytes += frame.audioLength;
+        Statistics.addTranscriberWhisperQueuedBytes(frame.audioLength);
+
+        while (queuedBytes > maxQueuedBytes && !pending.isEmpty())
+        {
+            AudioFrame dropped = pending.poll();
+            queuedBytes -= dropped.audioLength;
+            Statistics.addTranscriberWhisperQueuedBytes(-dropped.audioLength);
+            Statistics.incrementTotalTranscriberWhisperDroppedFrames();
+            dropped.complete();
+
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Dropped " + dropped.audioLength + " bytes of audio for " + dropped.wireId
+                    + ", Whisper service is not keeping up");
+            }
+        }
+    }
+
+    /**
+     * Hands a frame to jetty.
+     */
+    private void send(Session session, AudioFrame frame)
+    {
+        Callback callback = Callback.from(
+            () ->
+            {
+                frame.sent();
+                frame.complete();
+                onFrameSent(session);
+            },
+            cause ->
+            {
+                Statistics.incrementTotalTranscriberSendErrors();
+                logger.error("Failed sending audio for " + frame.wireId + ". " + cause);
+                frame.complete();
+                onFrameSent(session);
+            });
+
+        synchronized (sendLock)
+        {
+            if (!frame.compact)
+            {
+                session.sendBinary(frame.payload, callback);
+                return;
+            }
+
+            Slot slot = getSlot(session, frame);
+            if (slot == null)
+            {
+                // out of slots, fall back to the string header
+                ByteBuffer payload = buildPayload(frame.wireId, frame.language, frame.payload);
+                if (payload != null)
+                {
+                    session.sendBinary(payload, callback);
+                }
+                else
+                {
+                    // dropped, not sent
+                    frame.complete();
+                    onFrameSent(session);
+                }
+                return;
+            }
+
+            // gather the header and the audio in a single message, without copying the audio
+            session.sendPartialBinary(slot.header.duplicate(), false, Callback.NOOP);
+            session.sendPartialBinary(frame.payload, true, callback);
+        }
+    }
+
+    /**
+     * Gets the slot of the participant of a frame, announcing it to the
+     * service when it is new or its language changed. Must be called with
+     * {@link #sendLock} held.
+     *
+     * @return the slot, or null if there is no free slot id
+     */
+    private Slot getSlot(Session session, AudioFrame frame)
+    {
+        Slot slot = slots.get(frame.wireId);
+        if (slot == null)
+        {
+            if (nextSlotId > MAX_SLOT_ID)
+            {
+                return null;
+            }
+
+            slot = new Slot(nextSlotId++);
+            slots.put(frame.wireId, slot);
+        }
+
+        if (!slot.announced || !Objects.equals(slot.language, frame.language))
+        {
+            JSONObject announce = new JSONObject();
+            announce.put("type", "participant");
+            announce.put("slot", slot.id);
+            announce.put("participant_id", frame.wireId);
+            announce.put("language", frame.language);
+            session.sendText(announce.toJSONString(), Callback.NOOP);
+
+            slot.language = frame.language;
+            slot.announced = true;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Called when jetty is done with a frame, sends the next queued one.
+     *
+     * @param session the session the frame was sent on
+     */
+    private void onFrameSent(Session session)
+    {
+        AudioFrame next;
+        synchronized (this)
+        {
+            if (session != wsSession)
+            {
+                // the window was reset when the session was replaced
+                return;
+            }
+
+            inFlight--;
+
+            next = pending.poll();
+            if (next == null)
+            {
+                return;
+            }
+
+            queuedBytes -= next.audioLength;
+            Statistics.addTranscriberWhisperQueuedBytes(-next.audioLength);
+            inFlight++;
+        }
+
+        send(session, next);
+    }
+
+    /**
+     * Drops all queued audio. Must be called with the lock held.
+     */
+    private void dropPending()
+    {
+        if (!pending.isEmpty())
+        {
+            Statistics.addTranscriberWhisperQueuedBytes(-queuedBytes);
+            pending.forEach(AudioFrame::complete);
+            pending.clear();
+            queuedBytes = 0;
+        }
+    }
+
+    /**
+     * Builds a frame with the string header, copying the audio.
+     *
+     * @return the frame, or null if the header does not fit in
+     * {@link #HEADER_SIZE}, in which case the audio is dropped
+     */
+    private ByteBuffer buildPayload(String wireId, String language, ByteBuffer audio)
+    {
+        byte[] header = (wireId + "|" + language).getBytes(StandardCharsets.UTF_8);
+        if (header.length > HEADER_SIZE)
+        {
+            Statistics.incrementTotalTranscriberSendErrors();
+            if (oversizedIds.add(wireId))
+            {
+                logger.error("Dropping the audio of " + wireId + ", its header is longer than " + HEADER_SIZE
+                    + " bytes: " + header.length);
+            }
+            return null;
+        }
+
+        ByteBuffer fullPayload = ByteBuffer.allocate(audio.remaining() + HEADER_SIZE);
+        fullPayload.put(header);
+        fullPayload.position(HEADER_SIZE);
+        fullPayload.put(audio.duplicate()).rewind();
+        return fullPayload;
+    }
+
+    /**
+     * @return whether the connection is not open.
+     */
+    boolean ended()
+    {
+        return wsSession == null;
+    }
+
+    /**
+     * We consider this connection running while rooms are using it.
+     *
+     * @return true if operational.
+     */
+    private boolean isRunning()
+    {
+        return !channels.isEmpty();
+    }
+
+    /**
+     * An audio frame waiting to be sent.
+     */
+    private static class AudioFrame
+    {
+        private final String wireId;
+
+        private final String language;
+
+        /**
+         * Whether this frame uses the compact wire format, in which case the
+         * payload is only the audio, not copied.
+         */
+        private final boolean compact;
+
+        private ByteBuffer payload;
+
+        private int audioLength;
+
+        /**
+         * Called when the audio of a compact frame is no longer used.
+         */
+        private Runnable onComplete;
+
+        /**
+         * Called when the frame was written, or null.
+         */
+        private Runnable onSent;
+
+        /**
+         * Creates a frame with the string header.
+         */
+        private AudioFrame(String wireId, String language, ByteBuffer payload, int audioLength)
+        {
+            this.wireId = wireId;
+            this.language = language;
+            this.compact = false;
+            this.payload = payload;
+            this.audioLength = audioLength;
+        }
+
+        /**
+         * Creates a frame in the compact wire format.
+         */
+        private AudioFrame(String wireId, String language, ByteBuffer audio, Runnable onComplete)
+        {
+            this.wireId = wireId;
+            this.language = language;
+            this.compact = true;
+            this.payload = audio;
+            this.audioLength = audio.remaining();
+            this.onComplete = onComplete;
+        }
+
+        /**
+         * Appends the audio of another frame of the same participant and
+         * format to this frame.
+         */
+        private void append(AudioFrame other)
+        {
+            ByteBuffer otherAudio = other.payload.duplicate();
+            if (!compact)
+            {
+                // keep a single string header
+                otherAudio.position(otherAudio.position() + HEADER_SIZE);
+            }
+            ByteBuffer merged = ByteBuffer.allocate(payload.remaining() + other.audioLength);
+            merged.put(payload.duplicate()).put(otherAudio).rewind();
+            payload = merged;
+            audioLength += other.audioLength;
+
+            Runnable sent = onSent;
+            Runnable otherSent = other.onSent;
+            onSent = sent == null ? otherSent : otherSent == null ? sent : () ->
+            {
+                sent.run();
+                otherSent.run();
+            };
+            other.onSent = null;
+
+            // the audio was copied
+            complete();
+            other.complete();
+        }
+
+        /**
+         * Tells that the frame was written, once.
+         */
+        private void sent()
+        {
+            Runnable r = onSent;
+            onSent = null;
+            if (r != null)
+            {
+                r.run();
+            }
+        }
+
+        /**
+         * Releases the audio of a compact frame, once.
+         */
+        private void complete()
+        {
+            Runnable r = onComplete;
+            onComplete = null;
+            if (r != null)
+            {
+                r.run();
+            }
+        }
+    }
+
+    /**
+     * The slot of a participant in the compact wire format.
+     */
+    private static class Slot
+    {
+        private final int id;
+
+        /**
+         * The header of the frames of this slot, shared by all of them.
+         */
+        private final ByteBuffer header;
+
+        /**
+         * The language last announced for this slot.
+         */
+        private String language;
+
+        /**
+         * Whether this slot was announced to the service.
+         */
+        private boolean announced = false;
+
+        private Slot(int id)
+        {
+            this.id = id;
+            this.header = ByteBuffer.allocate(V2_HEADER_SIZE)
+                .put(WIRE_FORMAT_V2)
+                .putShort((short) id)
+                .flip()
+                .asReadOnlyBuffer();
+        }
+    }
+}
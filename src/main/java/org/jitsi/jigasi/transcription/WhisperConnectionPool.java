@@ -0,0 +1,100 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.jitsi.jigasi.*;
+
+import java.util.*;
+
+/**
+ * Hands out the {@link WhisperConnection}s used by the rooms. By default
+ * every room gets its own connection. When
+ * {@link #P_NAME_CONNECTION_POOL_SIZE} is set, all rooms on this node share
+ * at most that many connections, a new room using the least loaded one.
+ */
+public class WhisperConnectionPool
+{
+    /**
+     * The config key of the maximum number of connections shared by all rooms.
+     * 0 or less means one connection per room.
+     */
+    public final static String P_NAME_CONNECTION_POOL_SIZE
+        = "org.jitsi.jigasi.transcription.whisper.connection_pool_size";
+
+    /**
+     * The maximum number of shared connections, 0 to not share connections.
+     */
+    private final static int poolSize = JigasiBundleActivator.getConfigurationService()
+        .getInt(P_NAME_CONNECTION_POOL_SIZE, 0);
+
+    /**
+     * The shared connections which are in use.
+     */
+    private final static List<WhisperConnection> connections = new ArrayList<>();
+
+    /**
+     * Gets a connection for a room, connecting it if needed.
+     *
+     * @param channel the room
+     * @return the connection the room must use
+     */
+    static synchronized WhisperConnection acquire(WhisperWebsocket channel)
+    {
+        WhisperConnection connection;
+
+        if (poolSize <= 0)
+        {
+            connection = new WhisperConnection(false);
+        }
+        else if (connections.size() < poolSize)
+        {
+            connection = new WhisperConnection(true);
+            connections.add(connection);
+        }
+        else
+        {
+            connection = connections.stream()
+                .min(Comparator.comparingInt(WhisperConnection::getChannelCount))
+                .get();
+        }
+
+        connection.addChannel(channel);
+        if (connection.ended())
+        {
+            connection.connect();
+        }
+
+        return connection;
+    }
+
+    /**
+     * Releases the connection of a room, closing it when no other room uses
+     * it.
+     *
+     * @param connection the connection
+     * @param channel the room
+     */
+    static synchronized void release(WhisperConnection connection, WhisperWebsocket channel)
+    {
+        if (connection.removeChannel(channel))
+        {
+            connections.remove(connection);
+            connection.close();
+        }
+    }
+}
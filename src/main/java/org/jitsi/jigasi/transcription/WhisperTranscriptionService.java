@@ -22,7 +22,7 @@ import org.jitsi.jigasi.*;
 import org.jitsi.jigasi.stats.*;
 import org.jitsi.utils.logging2.*;
 
-import java.nio.*;
+import java.util.*;
 import java.util.function.*;
 
 /**
@@ -44,6 +44,19 @@ public class WhisperTranscriptionService
      */
     private final static String WHISPER_WS_CONNECTION_KEY = "whisper_ws_connection";
 
+    /**
+     * The config key of the encoding of the audio sent to the Whisper server,
+     * {@link #ENCODING_PCM} (the default) or {@link #ENCODING_OPUS} when the
+     * server can decode the Opus packets itself.
+     */
+    public final static String P_NAME_AUDIO_ENCODING = "org.jitsi.jigasi.transcription.whisper.audio_encoding";
+
+    /**
+     * Whether the audio is sent to the Whisper server as Opus.
+     */
+    final static boolean SEND_OPUS = ENCODING_OPUS.equalsIgnoreCase(
+        JigasiBundleActivator.getConfigurationService().getString(P_NAME_AUDIO_ENCODING, ENCODING_PCM).trim());
+
     @Override
     public AudioMixerMediaDevice getMediaDevice(ReceiveStreamBufferListener listener)
     {
@@ -61,6 +74,12 @@ public class WhisperTranscriptionService
         return true;
     }
 
+    @Override
+    public Set<String> getAcceptedEncodings()
+    {
+        return SEND_OPUS ? Collections.singleton(ENCODING_OPUS) : super.getAcceptedEncodings();
+    }
+
     /**
      * No configuration required yet
      */
@@ -107,7 +126,7 @@ public class WhisperTranscriptionService
     @Override
     public boolean supportsFragmentTranscription()
     {
-        return true;
+        return false;
     }
 
     @Override
@@ -137,6 +156,12 @@ public class WhisperTranscriptionService
 
         private final String roomId;
 
+        /**
+         * Whether this session was ended, the connection stays open while
+         * other participants of the room use it.
+         */
+        private volatile boolean ended = false;
+
         WhisperWebsocketStreamingSession(Participant participant)
         {
             this.participant = participant;
@@ -158,7 +183,7 @@ public class WhisperTranscriptionService
             CallContext ctx = this.participant.getCallContext();
             WhisperWebsocket socket = (WhisperWebsocket)ctx.getData(WHISPER_WS_CONNECTION_KEY);
 
-            if (socket == null)
+            if (socket == null || socket.isReleased())
             {
                 logger.info("Creating a new websocket connection.");
                 socket = new WhisperWebsocket(ctx.getLogger());
@@ -179,10 +204,13 @@ public class WhisperTranscriptionService
                 logger.warn("Trying to send buffer without a connection.");
                 return;
             }
+            // the audio can be sent asynchronously, keep it until it is no longer used
+            request.retain();
             try
             {
-                ByteBuffer audioBuffer = ByteBuffer.wrap(request.getAudio());
-                wsClient.sendAudio(participantId, participant, audioBuffer);
+                // the audio may wait in the queue of the shared connection
+                wsClient.sendAudio(
+                    participantId, participant, request.getAudioBuffer(), request::release, request::markSent);
             }
             catch (Exception e)
             {
@@ -198,12 +226,13 @@ public class WhisperTranscriptionService
 
         public void end()
         {
+            ended = true;
             wsClient.disconnectParticipant(this.participantId, allDisconnected -> {});
         }
 
         public boolean ended()
         {
-            return wsClient.ended();
+            return ended || wsClient.ended();
         }
     }
 }
@@ -18,46 +18,33 @@
 package org.jitsi.jigasi.transcription;
 
 import com.fasterxml.uuid.*;
-import org.eclipse.jetty.websocket.api.*;
-import org.eclipse.jetty.websocket.api.annotations.*;
-import org.eclipse.jetty.websocket.client.*;
-import org.jitsi.jigasi.*;
 import org.jitsi.jigasi.stats.*;
 import org.jitsi.jigasi.util.Util;
 import org.jitsi.utils.logging2.*;
 import org.json.simple.*;
-import org.json.simple.parser.*;
 
-import java.io.*;
-import java.net.*;
 import java.nio.*;
 import java.time.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.function.*;
 
 /**
- * This holds the websocket that is used to send audio data to the Whisper.
- * This is one WhisperWebsocket per room.
- * The jetty WebSocketClient process messages in a single thread.
+ * This holds the participants of a room whose audio is sent to Whisper.
+ * This is one WhisperWebsocket per room. The audio is sent on a
+ * {@link WhisperConnection}, which can be shared with other rooms, see
+ * {@link WhisperConnectionPool}.
  */
-@WebSocket
 public class WhisperWebsocket
 {
-    private final static Logger classLogger = new LoggerImpl(WhisperWebsocket.class.getName());
+    private final Map<String, Participant> participants = new ConcurrentHashMap<>();
 
-    private Session wsSession;
+    private final Map<String, Set<TranscriptionListener>> participantListeners = new ConcurrentHashMap<>();
 
-    private Map<String, Participant> participants = new ConcurrentHashMap<>();
-
-    private Map<String, Set<TranscriptionListener>> participantListeners = new ConcurrentHashMap<>();
-
-    private Map<String, Instant> participantTranscriptionStarts = new ConcurrentHashMap<>();
-
-    private Map<String, UUID> participantTranscriptionIds= new ConcurrentHashMap<>();
-
-    private static final int maxRetryAttempts = 3;
+    private final Map<String, Instant> participantTranscriptionStarts = new ConcurrentHashMap<>();
 
+    private final Map<String, UUID> participantTranscriptionIds= new ConcurrentHashMap<>();
 
     /* Transcription language requested by the user who started the transcription */
     public String transcriptionTag = "en-US";
@@ -91,72 +78,31 @@ public class WhisperWebsocket
     public final static String DEFAULT_WEBSOCKET_URL = "ws://localhost:8000/ws";
 
     /**
-     * Message to send when closing the connection
+     * The thread pool to serve all connect, disconnect ore reconnect operations.
      */
-    private final static ByteBuffer EOF_MESSAGE = ByteBuffer.wrap(new byte[1]);
+    static final ExecutorService threadPool = Util.createNewThreadPool("jigasi-whisper-ws");
 
     /**
-     * The config value of the websocket to the speech-to-text
-     * service.
+     * Used to make the participant ids of the rooms sharing a connection
+     * unique.
      */
-    private final static String websocketUrlConfig;
+    private static final AtomicInteger channelIds = new AtomicInteger();
 
     /**
-     * The URL of the websocket to the speech-to-text service.
+     * The prefix added to the participant ids of this room on a shared
+     * connection.
      */
-    private String websocketUrl;
+    private String wirePrefix = "";
 
     /**
-     * The Connection ID to the Whisper Service
+     * The connection the audio of this room is sent on.
      */
-    private final String connectionId = UUID.randomUUID().toString();
-
-    private final static String privateKey;
-
-    private final static String privateKeyName;
-
-    private final static String jwtAudience;
-
-    private WebSocketClient ws;
-
-    private boolean reconnecting = false;
-
-    private final static long CONNECTION_TIMEOUT_MS = 15000L;
-
-    static
-    {
-        jwtAudience = JigasiBundleActivator.getConfigurationService()
-                .getString(JWT_AUDIENCE, "jitsi");
-        privateKey = JigasiBundleActivator.getConfigurationService()
-                .getString(PRIVATE_KEY, "");
-        privateKeyName = JigasiBundleActivator.getConfigurationService()
-                .getString(PRIVATE_KEY_NAME, "");
-        if (privateKey.isEmpty() || privateKeyName.isEmpty())
-        {
-            classLogger.warn("org.jitsi.jigasi.transcription.whisper.private_key_name or " +
-                    "org.jitsi.jigasi.transcription.whisper.private_key are empty." +
-                    "Will not generate a JWT for skynet/streaming-whisper.");
-        }
-
-        String wsUrlConfig = JigasiBundleActivator.getConfigurationService()
-                .getString(WEBSOCKET_URL, DEFAULT_WEBSOCKET_URL);
-        if (wsUrlConfig.endsWith("/"))
-        {
-            websocketUrlConfig = wsUrlConfig.substring(0, wsUrlConfig.length() - 1);
-        }
-        else
-        {
-            websocketUrlConfig = wsUrlConfig;
-        }
-        classLogger.info("Websocket transcription streaming endpoint: " + websocketUrlConfig);
-    }
+    private WhisperConnection connection;
 
     /**
-     * The thread pool to serve all connect, disconnect ore reconnect operations.
+     * Whether all participants left and the connection was released.
      */
-    private static final ExecutorService threadPool = Util.createNewThreadPool("jigasi-whisper-ws");
-
-    private final JSONParser jsonParser = new JSONParser();
+    private boolean released = false;
 
     public WhisperWebsocket(Logger parentLogger)
     {
@@ -164,194 +110,45 @@ public class WhisperWebsocket
     }
 
     /**
-     * Creates a connection url by concatenating the websocket
-     * url with the Connection Id;
+     * Gets a connection for this room, connecting it in a new thread so we
+     * do not block Smack.
      */
-    private void generateWebsocketUrl()
+    synchronized void connect()
     {
-        websocketUrl = websocketUrlConfig + "/" + connectionId;
-        if (logger.isDebugEnabled())
+        connection = WhisperConnectionPool.acquire(this);
+        if (connection.isShared())
         {
-            logger.debug(" Whisper URL: " + websocketUrl);
+            wirePrefix = Integer.toString(channelIds.incrementAndGet(), Character.MAX_RADIX) + "-";
         }
     }
 
     /**
-     * Connect to the websocket in a new thread so we do not block Smack.
+     * @return the id used on the connection for the given participant.
      */
-    void connect()
-    {
-        threadPool.submit(this::connectInternal);
-    }
-
-    /**
-     * Connect to the websocket, retry up to maxRetryAttempts
-     * with exponential backoff in case of failure
-     */
-    private void connectInternal()
-    {
-        int attempt = 0;
-        float multiplier = 1.5f;
-        long waitTime = 1000L;
-        boolean isConnected = false;
-        wsSession = null;
-        WebSocketClient localWs = null;
-        // avoid executing if meeting ended (we are not running) while we were reconnecting
-        while (attempt < maxRetryAttempts && !(reconnecting && !isRunning()) && !isConnected)
-        {
-            try
-            {
-                generateWebsocketUrl();
-                logger.info("Connecting to " + websocketUrl);
-                ClientUpgradeRequest upgradeRequest = new ClientUpgradeRequest();
-                if (!privateKey.isEmpty() && !privateKeyName.isEmpty())
-                {
-                    upgradeRequest.setHeader("Authorization", "Bearer " +
-                        Util.generateAsapToken(privateKey, privateKeyName, jwtAudience, "jigasi"));
-                }
-                localWs = new WebSocketClient();
-                localWs.start();
-                CompletableFuture<Session> futureSession = localWs.connect(this, new URI(websocketUrl), upgradeRequest);
-                wsSession = futureSession.orTimeout(CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS).get();
-                wsSession.setIdleTimeout(Duration.ofSeconds(300));
-                ws = localWs;
-                isConnected = true;
-                reconnecting = false;
-                logger.info("Successfully connected to " + websocketUrl);
-                break;
-            }
-            catch (Exception e)
-            {
-                if (localWs != null)
-                {
-                    stopWsClient(localWs);
-                    localWs = null;
-                }
-                Statistics.incrementTotalTranscriberConnectionErrors();
-                int remaining = maxRetryAttempts - attempt;
-                waitTime *= multiplier;
-                logger.error("Failed connecting to " + websocketUrl + ". Retrying in "
-                        + waitTime/1000 + "seconds for another " + remaining + " times.", e);
-            }
-            attempt++;
-            synchronized (this)
-            {
-                try
-                {
-                    wait(waitTime);
-                }
-                catch (InterruptedException ignored) {}
-            }
-        }
-
-        if (!isConnected)
-        {
-            Statistics.incrementTotalTranscriberConnectionErrors();
-            logger.error("Failed connecting to " + websocketUrl + ". Nothing to do.");
-        }
-    }
-
-    private void stopWsClient(WebSocketClient webSocketClient)
-    {
-        try
-        {
-            webSocketClient.stop();
-        }
-        catch (Exception e)
-        {
-            logger.error("Error stopping failed WebSocketClient", e);
-        }
-    }
-
-    private synchronized void reconnect()
+    private String getWireId(String participantId)
     {
-        if (reconnecting && !isRunning())
-        {
-            return;
-        }
-        reconnecting = true;
-
-        Statistics.incrementTotalTranscriberConnectionRetries();
-
-        threadPool.submit(() ->
-        {
-            this.stopWebSocketClient();
-
-            this.connectInternal();
-        });
-    }
-
-    @OnWebSocketClose
-    public synchronized void onClose(int statusCode, String reason)
-    {
-        logger.error("Websocket closed: " + statusCode + " reason:" + reason
-            + " isRunning: " + isRunning() + " isOpen:" + (wsSession != null && wsSession.isOpen()));
-
-        if (isRunning())
-        {
-            // let's try to reconnect
-            if ((wsSession != null && !wsSession.isOpen()) || (statusCode > 1000 && statusCode < 2000))
-            {
-                reconnect();
-
-                return;
-            }
-        }
-
-        wsSession = null;
-        participants = null;
-        participantListeners = null;
-        participantTranscriptionStarts = null;
-        participantTranscriptionIds = null;
-
-        threadPool.submit(this::stopWebSocketClient);
+        return wirePrefix + participantId;
     }
 
     /**
-     * Stop the websocket client.
-     * Make sure this is executed in a different thread than the one
-     * the websocket client is running in (the onMessage, onError or onClose callbacks).
+     * Handles a result received on the connection for a participant of this
+     * room.
+     *
+     * @param wireId the id of the participant used on the connection
+     * @param obj the result
      */
-    private void stopWebSocketClient()
-    {
-        try
-        {
-            if (ws != null)
-            {
-                ws.stop();
-                ws = null;
-            }
-        }
-        catch (Exception e)
-        {
-            logger.error("Error while stopping WebSocketClient", e);
-        }
-    }
-
-
-    @OnWebSocketMessage
-    public void onMessage(String msg)
-    {
-        try
-        {
-            this.onMessageInternal(msg);
-        }
-        catch (ParseException e)
-        {
-            logger.error("Error parsing message: " + msg, e);
-        }
-    }
-
-    private void onMessageInternal(String msg)
-        throws ParseException
+    void onResult(String wireId, JSONObject obj)
     {
         boolean partial = true;
         String result;
 
-        JSONObject obj = (JSONObject)jsonParser.parse(msg);
         String msgType = (String)obj.get("type");
-        String participantId = (String)obj.get("participant_id");
+        String participantId = wireId.substring(wirePrefix.length());
         Participant participant = participants.get(participantId);
+        if (participant == null)
+        {
+            return;
+        }
         if (msgType.equals("final"))
         {
             partial = false;
@@ -407,113 +204,85 @@ public class WhisperWebsocket
         }
     }
 
-
-
-    @OnWebSocketError
-    public void onError(Throwable cause)
-    {
-        if (!ended() && isRunning())
-        {
-            Statistics.incrementTotalTranscriberSendErrors();
-            logger.error("Error while streaming audio data to transcription service.", cause);
-        }
-    }
-
     private String getLanguage(Participant participant)
     {
         String lang = participant.getTranslationLanguage();
-        if (logger.isDebugEnabled())
-        {
-            logger.debug("Translation language is " + lang);
-        }
         if (lang == null)
         {
             lang = participant.getSourceLanguage();
         }
-        if (logger.isDebugEnabled())
-        {
-            logger.debug("Returned language is " + lang);
-        }
         return lang;
     }
 
-    private ByteBuffer buildPayload(String participantId, Participant participant, ByteBuffer audio)
-    {
-        ByteBuffer header = ByteBuffer.allocate(60);
-        int lenAudio = audio.remaining();
-        ByteBuffer fullPayload = ByteBuffer.allocate(lenAudio + 60);
-        String headerStr = participantId + "|" + this.getLanguage(participant);
-        header.put(headerStr.getBytes()).rewind();
-        fullPayload.put(header).put(audio).rewind();
-        return fullPayload;
-    }
-
     /**
-     * Disconnect a participant from the transcription service, executing that in a new thread so we do not block Smack.
+     * Disconnect a participant from the transcription service. The
+     * participant is removed right away, such that a session created for it
+     * afterwards registers again, while releasing the connection is executed
+     * in a new thread so we do not block Smack.
      * @param participantId the participant to disconnect.
      * @param callback the callback to execute when the last participant is disconnected and session is closed.
      */
     public void disconnectParticipant(String participantId, Consumer<Boolean> callback)
     {
-        threadPool.submit(() -> this.disconnectParticipantInternal(participantId, callback));
+        synchronized (this)
+        {
+            if (!released && participants.remove(participantId) != null)
+            {
+                participantListeners.remove(participantId);
+                connection.unregister(getWireId(participantId));
+                logger.info("Disconnected " + participantId);
+            }
+        }
+
+        threadPool.submit(() -> this.releaseIfEmpty(callback));
     }
 
-    private void disconnectParticipantInternal(String participantId, Consumer<Boolean> callback)
+    private void releaseIfEmpty(Consumer<Boolean> callback)
     {
         synchronized (this)
         {
-            if (ended() && !isRunning())
+            if (released)
             {
                 callback.accept(true);
                 return;
             }
 
-            if (participants.containsKey(participantId))
-            {
-                participants.remove(participantId);
-                participantListeners.remove(participantId);
-                logger.info("Disconnected " + participantId);
-            }
-
             if (participants.isEmpty())
             {
                 logger.info("All participants have left, disconnecting from Whisper transcription server.");
 
-                wsSession.sendBinary(EOF_MESSAGE, Callback.from(
-                    () -> {},
-                    cause -> logger.error("Error while finalizing websocket connection for participant "
-                            + participantId, cause)));
-
-                wsSession.disconnect();
+                released = true;
+                WhisperConnectionPool.release(connection, this);
                 callback.accept(true);
+                return;
             }
 
             callback.accept(false);
         }
     }
 
-    public void sendAudio(String participantId, Participant participant, ByteBuffer audio)
+    /**
+     * Sends the audio of a participant.
+     *
+     * @param participantId the id of the participant
+     * @param participant the participant
+     * @param audio the audio
+     * @param onComplete called exactly once, when the audio is no longer used
+     * @param onSent called when the audio was written to the connection
+     */
+    public void sendAudio(String participantId, Participant participant, ByteBuffer audio, Runnable onComplete,
+        Runnable onSent)
     {
         if (logger.isDebugEnabled())
         {
             logger.debug("Sending audio for " + participantId);
         }
         addParticipantIfNotExists(participantId, participant);
-        if (wsSession == null || !wsSession.isOpen())
+        if (!connection.sendAudio(getWireId(participantId), getLanguage(participant), audio, onComplete, onSent))
         {
             Statistics.incrementTotalTranscriberSendErrors();
             logger.error("Failed sending audio for " + participantId + ". Attempting to reconnect.");
-            reconnect();
-        }
-        else
-        {
-            wsSession.sendBinary(buildPayload(participantId, participant, audio), Callback.from(
-                () -> {},
-                cause ->
-                {
-                    Statistics.incrementTotalTranscriberSendErrors();
-                    logger.error("Failed sending audio for " + participantId + ". " + cause);
-                }));
+            connection.reconnect();
         }
     }
 
@@ -525,6 +294,7 @@ public class WhisperWebsocket
             {
                 participants.put(participantId, participant);
                 participantListeners.put(participantId, new HashSet<>());
+                connection.register(getWireId(participantId), this);
             }
         }
     }
@@ -532,8 +302,11 @@ public class WhisperWebsocket
     public void addListener(TranscriptionListener listener, Participant participant)
     {
         String participantId = participant.getDebugName().split("/")[1];
-        addParticipantIfNotExists(participantId, participant);
-        participantListeners.get(participantId).add(listener);
+        synchronized (this)
+        {
+            addParticipantIfNotExists(participantId, participant);
+            participantListeners.get(participantId).add(listener);
+        }
     }
 
     public void setTranscriptionTag(String tsTag)
@@ -543,17 +316,15 @@ public class WhisperWebsocket
 
     public boolean ended()
     {
-        return wsSession == null;
+        return released || connection.ended();
     }
 
     /**
-     * We consider this websocket transcription running when there are participants.
-     * While reconnecting we still have participants. After disconnectParticipantInternal where we clean
-     * all participants and close the socket we are no longer running, and we should not try to reconnect.
-     * @return true if operational.
+     * @return whether all participants left and this room does not use a
+     * connection anymore.
      */
-    private boolean isRunning()
+    public synchronized boolean isReleased()
     {
-        return participants != null && !participants.isEmpty();
+        return released;
     }
 }
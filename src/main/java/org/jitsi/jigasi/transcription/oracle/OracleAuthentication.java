@@ -0,0 +1,172 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jitsi.jigasi.transcription.oracle;
+
+import com.oracle.bmc.*;
+import com.oracle.bmc.auth.*;
+import com.oracle.bmc.http.signing.*;
+import org.jitsi.utils.logging.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+
+/**
+ * The OCI credentials shared by all the transcription sessions. The
+ * authentication provider is created once, reading the configuration file or
+ * falling back to the instance principal, instead of for every participant,
+ * and the headers signing the connection to a URI are reused for
+ * {@link #SIGNATURE_REUSE_MS}, well within the clock skew accepted by OCI.
+ * <p>
+ * The instance principal provider refreshes its security token by itself.
+ * {@link #invalidate()} drops the credentials, e.g. after a failed connect,
+ * so that the next session reads them again.
+ */
+public class OracleAuthentication
+{
+    /**
+     * The logger for this class
+     */
+    private final static Logger logger = Logger.getLogger(OracleAuthentication.class);
+
+    /**
+     * The time in ms for which the headers signing a connection are reused.
+     */
+    private final static long SIGNATURE_REUSE_MS = 60000;
+
+    /**
+     * The credentials in use, null until first needed.
+     */
+    private static OracleAuthentication current;
+
+    /**
+     * The authentication provider.
+     */
+    private final BasicAuthenticationDetailsProvider provider;
+
+    /**
+     * The signer created from {@link #provider}.
+     */
+    private final RequestSigner requestSigner;
+
+    /**
+     * The signed headers of the latest connections, by URI.
+     */
+    private final Map<URI, SignedHeaders> signedHeaders = new HashMap<>();
+
+    private OracleAuthentication(BasicAuthenticationDetailsProvider provider)
+    {
+        this.provider = provider;
+        this.requestSigner = DefaultRequestSigner.createRequestSigner(provider);
+    }
+
+    /**
+     * Gets the shared credentials, creating them if needed.
+     *
+     * @param configFilePath the OCI configuration file, the instance
+     * principal is used when it cannot be read
+     * @return the credentials
+     */
+    public static synchronized OracleAuthentication get(String configFilePath)
+    {
+        if (current == null)
+        {
+            current = new OracleAuthentication(createProvider(configFilePath));
+        }
+
+        return current;
+    }
+
+    /**
+     * Drops the shared credentials, the next session creates them again.
+     */
+    public static synchronized void invalidate()
+    {
+        current = null;
+    }
+
+    /**
+     * Creates the authentication provider.
+     *
+     * @param configFilePath the OCI configuration file
+     * @return the provider
+     */
+    private static BasicAuthenticationDetailsProvider createProvider(String configFilePath)
+    {
+        try
+        {
+            return new ConfigFileAuthenticationDetailsProvider(ConfigFileReader.parse(configFilePath));
+        }
+        catch (IOException e)
+        {
+            logger.warn("Error while reading OCI configuration file, trying to use the instance's principal", e);
+        }
+
+        // try to use the Oracle instance principal provider if the config file is not available
+        return new InstancePrincipalsAuthenticationDetailsProvider.
+                InstancePrincipalsAuthenticationDetailsProviderBuilder().
+                build();
+    }
+
+    /**
+     * @return the authentication provider.
+     */
+    public BasicAuthenticationDetailsProvider getProvider()
+    {
+        return provider;
+    }
+
+    /**
+     * Gets the headers signing a connection to a URI, signing it again when
+     * the latest signature is older than {@link #SIGNATURE_REUSE_MS}.
+     *
+     * @param uri the URI
+     * @return a copy of the signed headers
+     */
+    public synchronized Map<String, String> sign(URI uri)
+    {
+        long now = System.currentTimeMillis();
+        SignedHeaders signed = signedHeaders.get(uri);
+        if (signed == null || now - signed.signedAt > SIGNATURE_REUSE_MS)
+        {
+            signedHeaders.values().removeIf(s -> now - s.signedAt > SIGNATURE_REUSE_MS);
+
+            signed = new SignedHeaders(requestSigner.signRequest(uri, "GET", new HashMap<>(), null), now);
+            signedHeaders.put(uri, signed);
+        }
+
+        return new HashMap<>(signed.headers);
+    }
+
+    /**
+     * Headers signing a request and when they were signed.
+     */
+    private static class SignedHeaders
+    {
+        private final Map<String, String> headers;
+
+        private final long signedAt;
+
+        private SignedHeaders(Map<String, String> headers, long signedAt)
+        {
+            this.headers = headers;
+            this.signedAt = signedAt;
+        }
+    }
+}
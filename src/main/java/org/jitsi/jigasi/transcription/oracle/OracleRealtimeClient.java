@@ -23,8 +23,6 @@ import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.ser.*;
 import com.fasterxml.jackson.databind.ser.impl.*;
 import com.oracle.bmc.aispeech.model.*;
-import com.oracle.bmc.auth.*;
-import com.oracle.bmc.http.signing.*;
 import org.eclipse.jetty.websocket.api.*;
 import org.eclipse.jetty.websocket.api.annotations.*;
 import org.eclipse.jetty.websocket.client.*;
@@ -44,9 +42,13 @@ public class OracleRealtimeClient
     private Session session;
     private boolean isConnected;
     private final OracleRealtimeClientListener listener;
-    private WebSocketClient client;
 
-    private final BasicAuthenticationDetailsProvider authenticationDetailsProvider;
+    /**
+     * The jetty client shared by all connections, started on first use.
+     */
+    private static WebSocketClient webSocketClient;
+
+    private final OracleAuthentication authentication;
     private URI destUri;
 
     private final FilterProvider filters = new SimpleFilterProvider()
@@ -71,15 +73,31 @@ public class OracleRealtimeClient
      */
     public OracleRealtimeClient(
             OracleRealtimeClientListener listener,
-            BasicAuthenticationDetailsProvider authenticationDetailsProvider,
+            OracleAuthentication authentication,
             String compartmentId)
     {
         this.isConnected = false;
         this.listener = listener;
-        this.authenticationDetailsProvider = authenticationDetailsProvider;
+        this.authentication = authentication;
         this.compartmentId = compartmentId;
     }
 
+    /**
+     * @return the jetty client used by all connections, starting it if needed.
+     */
+    private static synchronized WebSocketClient getWebSocketClient()
+        throws Exception
+    {
+        if (webSocketClient == null)
+        {
+            WebSocketClient client = new WebSocketClient();
+            client.start();
+            webSocketClient = client;
+        }
+
+        return webSocketClient;
+    }
+
     /**
      * the onClose event handler.
      *
@@ -95,14 +113,6 @@ public class OracleRealtimeClient
             logger.info("Session closed by " + closedBy + ", reason = " + reason + ", status code = " + statusCode);
             isConnected = false;
             this.session = null;
-            try
-            {
-                this.client.stop();
-            }
-            catch (Exception e)
-            {
-                logger.error("Error while stopping the OCI transcription client: ", e);
-            }
             //The listener can implement their own closing logic
             this.listener.onClose(statusCode, reason);
         });
@@ -203,8 +213,6 @@ public class OracleRealtimeClient
     {
         try
         {
-            this.client = new WebSocketClient(); // TODO Should be global
-            client.start();
             final String customizationsJson = objectMapper.writeValueAsString(parameters.getCustomizations());
             String queryParameter = "";
             if (parameters.getIsAckEnabled() != null)
@@ -229,7 +237,7 @@ public class OracleRealtimeClient
             logger.info("Connecting to " + destUri);
             final ClientUpgradeRequest request = new ClientUpgradeRequest();
             request.setHeader("Content-Type", parameters.getEncoding());
-            this.session = client.connect(this, destUri, request).get(10, TimeUnit.SECONDS);
+            this.session = getWebSocketClient().connect(this, destUri, request).get(10, TimeUnit.SECONDS);
         }
         catch (Exception e)
         {
@@ -238,6 +246,31 @@ public class OracleRealtimeClient
         }
     }
 
+    /**
+     * Opens a connection to the specified remote on the thread pool of the
+     * clients, without blocking the caller.
+     *
+     * @param server     the URL string of server
+     * @param port       the port to connect
+     * @param parameters other additional connection parameters
+     * @return completed once connected, or exceptionally with an
+     * {@link OracleServiceDisruptionException} when the connection failed
+     */
+    public CompletableFuture<Void> openAsync(String server, int port, RealtimeParameters parameters)
+    {
+        return CompletableFuture.runAsync(() ->
+        {
+            try
+            {
+                open(server, port, parameters);
+            }
+            catch (OracleServiceDisruptionException e)
+            {
+                throw new CompletionException(e);
+            }
+        }, threadPool);
+    }
+
     /**
      * Checks the connection status.
      *
@@ -256,22 +289,60 @@ public class OracleRealtimeClient
      * @throws IOException                If errors happens on sending
      */
     public void sendAudioData(byte[] audioBytes) throws OracleServiceDisruptionException, IOException
+    {
+        sendAudioData(ByteBuffer.wrap(audioBytes), () -> {});
+    }
+
+    /**
+     * Sends the audio data to remote without copying it.
+     *
+     * @param audio the audio data, which must not be modified until
+     * <tt>onComplete</tt> is called
+     * @param onComplete called exactly once, when the audio is no longer used
+     * @throws OracleServiceDisruptionException If session is closed
+     * @throws IOException                If errors happens on sending
+     */
+    public void sendAudioData(ByteBuffer audio, Runnable onComplete)
+        throws OracleServiceDisruptionException, IOException
+    {
+        sendAudioData(audio, onComplete, onComplete);
+    }
+
+    /**
+     * Sends the audio data to remote without copying it.
+     *
+     * @param audio the audio data, which must not be modified until
+     * <tt>onSent</tt> or <tt>onFailed</tt> is called
+     * @param onSent called when the audio was sent
+     * @param onFailed called when the audio could not be sent, exactly one of
+     * the callbacks is called once
+     * @throws OracleServiceDisruptionException If session is closed
+     * @throws IOException                If errors happens on sending
+     */
+    public void sendAudioData(ByteBuffer audio, Runnable onSent, Runnable onFailed)
+        throws OracleServiceDisruptionException, IOException
     {
         if (this.session == null)
         {
+            onFailed.run();
             throw new OracleServiceDisruptionException("Session has been closed, cannot send audio anymore");
         }
         if (this.isConnected)
         {
             synchronized (this)
             {
-                this.session.sendBinary(ByteBuffer.wrap(audioBytes), Callback.from(
-                    () -> {},
-                    cause -> logger.error("Error while sending audio data: ", cause)));
+                this.session.sendBinary(audio, Callback.from(
+                    onSent,
+                    cause ->
+                    {
+                        onFailed.run();
+                        logger.error("Error while sending audio data: ", cause);
+                    }));
             }
         }
         else
         {
+            onFailed.run();
             logger.error("Websocket not connected.");
         }
     }
@@ -284,23 +355,13 @@ public class OracleRealtimeClient
         if (this.session != null)
         {
             this.session.close();
-            try
-            {
-                this.client.stop();
-            }
-            catch (Exception e)
-            {
-                logger.error("RealtimeSDK client could not be stopped.", e);
-            }
             this.isConnected = false;
         }
     }
 
     private void sendCreds(String compartmentId)
     {
-        final RequestSigner requestSigner = DefaultRequestSigner.createRequestSigner(authenticationDetailsProvider);
-        final Map<String, List<String>> headers = new HashMap<>();
-        final Map<String, String> newHeaders = requestSigner.signRequest(destUri, "GET", headers, null);
+        final Map<String, String> newHeaders = authentication.sign(destUri);
         newHeaders.put("uri", destUri.toString());
 
         final RealtimeMessageAuthenticationCredentials authenticationMessage = RealtimeMessageAuthenticationCredentials
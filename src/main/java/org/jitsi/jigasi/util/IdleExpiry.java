@@ -0,0 +1,179 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.util;
+
+import org.jitsi.utils.concurrent.*;
+import org.jitsi.utils.logging.Logger;
+
+import java.util.concurrent.*;
+
+/**
+ * Runs a task once something was not used for a given time, e.g. to end a
+ * streaming session which no longer receives audio.
+ * <p>
+ * All instances share a single timer thread. Marking an instance as used,
+ * with {@link #touch()}, only moves its deadline forward: the scheduled
+ * check notices the new deadline when it runs and schedules itself again
+ * for the remaining time, so frequent use costs neither a thread nor a
+ * rescheduling.
+ */
+public class IdleExpiry
+{
+    /**
+     * The logger.
+     */
+    private final static Logger logger = Logger.getLogger(IdleExpiry.class);
+
+    /**
+     * The timer shared by all instances.
+     */
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+        new CustomizableThreadFactory("jigasi-idle-expiry", true));
+
+    /**
+     * The time after which the instance expires when not touched.
+     */
+    private final long timeoutNanos;
+
+    /**
+     * The task run on expiry, on the timer thread, so it must be quick.
+     */
+    private final Runnable onExpired;
+
+    /**
+     * The time, in {@link System#nanoTime()}, at which this instance
+     * expires.
+     */
+    private volatile long deadline;
+
+    /**
+     * Whether this instance expired or was cancelled.
+     */
+    private volatile boolean done = false;
+
+    /**
+     * The scheduled check.
+     */
+    private ScheduledFuture<?> future;
+
+    /**
+     * Starts a new expiry.
+     *
+     * @param timeoutMs the time in ms after which the task is run when
+     * {@link #touch()} is not called
+     * @param onExpired the task, run once on the timer thread, so it must be
+     * quick
+     * @return the new instance
+     */
+    public static IdleExpiry start(long timeoutMs, Runnable onExpired)
+    {
+        IdleExpiry expiry = new IdleExpiry(timeoutMs, onExpired);
+        expiry.schedule(expiry.timeoutNanos);
+
+        return expiry;
+    }
+
+    private IdleExpiry(long timeoutMs, Runnable onExpired)
+    {
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        this.onExpired = onExpired;
+        this.deadline = System.nanoTime() + timeoutNanos;
+    }
+
+    /**
+     * Postpones the expiry by the whole timeout from now.
+     */
+    public void touch()
+    {
+        deadline = System.nanoTime() + timeoutNanos;
+    }
+
+    /**
+     * Stops this instance, the task will not be run anymore.
+     */
+    public void cancel()
+    {
+        done = true;
+
+        synchronized (this)
+        {
+            if (future != null)
+            {
+                future.cancel(false);
+                future = null;
+            }
+        }
+    }
+
+    /**
+     * @return whether the task was run or this instance cancelled.
+     */
+    public boolean isDone()
+    {
+        return done;
+    }
+
+    /**
+     * Schedules the check of the deadline.
+     */
+    private synchronized void schedule(long delayNanos)
+    {
+        if (done)
+        {
+            return;
+        }
+
+        try
+        {
+            future = timer.schedule(this::check, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            logger.warn("Cannot schedule idle expiry", e);
+        }
+    }
+
+    /**
+     * Runs the task if the deadline passed, otherwise checks again at the
+     * deadline.
+     */
+    private void check()
+    {
+        if (done)
+        {
+            return;
+        }
+
+        long remaining = deadline - System.nanoTime();
+        if (remaining > 0)
+        {
+            schedule(remaining);
+            return;
+        }
+
+        done = true;
+        try
+        {
+            onExpired.run();
+        }
+        catch (Throwable t)
+        {
+            logger.error("Error running idle expiry task", t);
+        }
+    }
+}
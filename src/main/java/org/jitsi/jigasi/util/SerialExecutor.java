@@ -0,0 +1,284 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.util;
+
+import org.jitsi.utils.logging.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * An {@link Executor} which runs the submitted tasks one at a time, in the
+ * order they were submitted, on a shared delegate {@link Executor}.
+ * <p>
+ * Many instances can share the same (bounded) thread pool: tasks of one
+ * instance never run concurrently and are never reordered, while tasks of
+ * different instances run in parallel. At most one thread of the delegate is
+ * used by an instance at any given time, and after {@link #MAX_TASKS_PER_RUN}
+ * tasks the thread is given back to the delegate, so that a busy instance
+ * cannot starve the others when the pool is bounded.
+ * <p>
+ * The number of waiting tasks can be bounded, in which case new tasks are
+ * rejected with a {@link RejectedExecutionException} once the queue is full.
+ * When the delegate rejects a drain, the waiting tasks are dropped and
+ * reported to the drop listener.
+ */
+public class SerialExecutor
+    implements Executor
+{
+    /**
+     * The logger.
+     */
+    private final static Logger logger = Logger.getLogger(SerialExecutor.class);
+
+    /**
+     * The maximum number of tasks executed in a row before rescheduling the
+     * remaining ones on the delegate executor.
+     */
+    private static final int MAX_TASKS_PER_RUN = 16;
+
+    /**
+     * The executor which actually runs the tasks.
+     */
+    private final Executor delegate;
+
+    /**
+     * The maximum number of tasks waiting to be executed.
+     */
+    private final int maxQueueSize;
+
+    /**
+     * Notified of the number of accepted tasks which were dropped because the
+     * delegate rejected them, or null.
+     */
+    private final IntConsumer dropListener;
+
+    /**
+     * The tasks waiting to be executed.
+     */
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    /**
+     * Whether a drain of {@link #tasks} is currently scheduled or running on
+     * the delegate executor.
+     */
+    private boolean scheduled = false;
+
+    /**
+     * Whether this executor was shut down and will not accept new tasks.
+     */
+    private boolean shutdown = false;
+
+    /**
+     * Creates new serial executor.
+     * @param delegate the executor which will run the tasks.
+     */
+    public SerialExecutor(Executor delegate)
+    {
+        this(delegate, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Creates new serial executor with a bounded queue.
+     * @param delegate the executor which will run the tasks.
+     * @param maxQueueSize the maximum number of tasks waiting to be executed.
+     * @param dropListener notified of the number of accepted tasks which were
+     * dropped because the delegate rejected them, or null.
+     */
+    public SerialExecutor(Executor delegate, int maxQueueSize, IntConsumer dropListener)
+    {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.maxQueueSize = maxQueueSize;
+        this.dropListener = dropListener;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws RejectedExecutionException when this executor was shut down or
+     * its queue is full.
+     */
+    @Override
+    public void execute(Runnable task)
+    {
+        execute(task, true);
+    }
+
+    /**
+     * Executes a task even when the queue is full, for the few tasks which
+     * must not be dropped, e.g. the ones releasing resources.
+     *
+     * @param task the task
+     * @throws RejectedExecutionException when this executor was shut down.
+     */
+    public void executeUnbounded(Runnable task)
+    {
+        execute(task, false);
+    }
+
+    /**
+     * Queues a task.
+     *
+     * @param task the task
+     * @param bounded whether the task is rejected when the queue is full
+     */
+    private void execute(Runnable task, boolean bounded)
+    {
+        Objects.requireNonNull(task, "task");
+
+        synchronized (tasks)
+        {
+            if (shutdown)
+            {
+                throw new RejectedExecutionException("SerialExecutor was shut down");
+            }
+            if (bounded && tasks.size() >= maxQueueSize)
+            {
+                throw new RejectedExecutionException("SerialExecutor queue is full");
+            }
+
+            tasks.add(task);
+
+            if (scheduled)
+            {
+                return;
+            }
+
+            scheduled = true;
+        }
+
+        schedule(true);
+    }
+
+    /**
+     * Schedules {@link #drain()} on the delegate executor, dropping the queued
+     * tasks if the delegate rejects it.
+     *
+     * @param submitted whether the last queued task was just submitted by the
+     * caller, which is told about its rejection by the exception instead of
+     * the drop listener
+     */
+    private void schedule(boolean submitted)
+    {
+        try
+        {
+            delegate.execute(this::drain);
+        }
+        catch (RejectedExecutionException e)
+        {
+            int dropped;
+            synchronized (tasks)
+            {
+                dropped = submitted ? tasks.size() - 1 : tasks.size();
+                tasks.clear();
+                scheduled = false;
+            }
+
+            if (dropListener != null && dropped > 0)
+            {
+                dropListener.accept(dropped);
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the queued tasks until the queue is empty or
+     * {@link #MAX_TASKS_PER_RUN} tasks were executed, in which case the rest
+     * is rescheduled.
+     */
+    private void drain()
+    {
+        for (int i = 0; i < MAX_TASKS_PER_RUN; i++)
+        {
+            Runnable task;
+            synchronized (tasks)
+            {
+                task = tasks.poll();
+                if (task == null)
+                {
+                    scheduled = false;
+                    return;
+                }
+            }
+
+            try
+            {
+                task.run();
+            }
+            catch (Throwable t)
+            {
+                logger.error("Error executing task", t);
+            }
+        }
+
+        synchronized (tasks)
+        {
+            if (tasks.isEmpty())
+            {
+                scheduled = false;
+                return;
+            }
+        }
+
+        try
+        {
+            schedule(false);
+        }
+        catch (RejectedExecutionException e)
+        {
+            logger.warn("Dropping queued tasks, executor rejected them");
+        }
+    }
+
+    /**
+     * Stops accepting new tasks. Tasks which are already queued will still
+     * be executed.
+     */
+    public void shutdown()
+    {
+        synchronized (tasks)
+        {
+            shutdown = true;
+        }
+    }
+
+    /**
+     * @return whether this executor was shut down.
+     */
+    public boolean isShutdown()
+    {
+        synchronized (tasks)
+        {
+            return shutdown;
+        }
+    }
+
+    /**
+     * @return the number of tasks waiting to be executed.
+     */
+    public int getQueueSize()
+    {
+        synchronized (tasks)
+        {
+            return tasks.size();
+        }
+    }
+}
@@ -41,6 +41,7 @@ import java.security.spec.*;
 import java.util.*;
 
 import java.math.*;
+import java.nio.*;
 import java.security.*;
 import java.util.concurrent.*;
 
@@ -396,4 +397,59 @@ public class Util
 
         return builder.compact();
     }
+
+    /**
+     * Computes the duration of an Opus packet from its TOC byte, see
+     * RFC 6716 section 3.1.
+     *
+     * @param packet the Opus packet
+     * @return the duration of the audio in the packet in microseconds, or -1
+     * when the packet is malformed
+     */
+    public static int getOpusPacketDurationMicros(ByteBuffer packet)
+    {
+        if (packet.remaining() < 1)
+        {
+            return -1;
+        }
+
+        int toc = packet.get(packet.position()) & 0xFF;
+        int config = toc >> 3;
+        int frameMicros;
+        if (config < 12)
+        {
+            // SILK only, 10, 20, 40 or 60 ms
+            frameMicros = new int[] { 10000, 20000, 40000, 60000 }[config & 3];
+        }
+        else if (config < 16)
+        {
+            // hybrid, 10 or 20 ms
+            frameMicros = (config & 1) == 0 ? 10000 : 20000;
+        }
+        else
+        {
+            // CELT only, 2.5, 5, 10 or 20 ms
+            frameMicros = 2500 << (config & 3);
+        }
+
+        int frames;
+        switch (toc & 3)
+        {
+            case 0:
+                frames = 1;
+                break;
+            case 1:
+            case 2:
+                frames = 2;
+                break;
+            default:
+                if (packet.remaining() < 2)
+                {
+                    return -1;
+                }
+                frames = packet.get(packet.position() + 1) & 0x3F;
+        }
+
+        return frames * frameMicros;
+    }
 }
@@ -32,10 +32,30 @@ import org.osgi.framework.launch.*;
  */
 public class OSGiHandler
 {
+    /**
+     * The framework started by the first test class, shared by the test
+     * classes running in the same JVM.
+     */
+    private static Framework framework;
+
     private BundleContext bc;
 
     public Framework init()
         throws InterruptedException, BundleException
+    {
+        synchronized (OSGiHandler.class)
+        {
+            if (framework == null)
+            {
+                framework = start();
+            }
+        }
+        bc = framework.getBundleContext();
+        return framework;
+    }
+
+    private static Framework start()
+        throws InterruptedException, BundleException
     {
         System.setProperty(
             "net.java.sip.communicator.impl.configuration.USE_PROPFILE_CONFIG",
@@ -49,11 +69,9 @@ public class OSGiHandler
         );
 
         JigasiBundleConfig.setSystemPropertyDefaults();
-        var fw = Main.start(List.of(
+        return Main.start(List.of(
             MockSipActivator.class,
             MockProtocolProviderFactoriesActivator.class));
-        bc = fw.getBundleContext();
-        return fw;
     }
 
     public static class MockSipActivator
@@ -0,0 +1,128 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import com.google.cloud.speech.v1.*;
+import com.google.protobuf.*;
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.nio.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares copying the audio of the participants into the Google streaming
+ * requests with wrapping it, as {@link GoogleCloudTranscriptionService}
+ * does. Every request is written to a stream, as gRPC does when sending it,
+ * so the comparison includes the cost of the serialization.
+ * <p>
+ * This is a benchmark which is not run with the tests, run it with
+ * <tt>mvn test -Dtest=GoogleAudioBytesBenchmarkTest
+ * -Djunit.jupiter.conditions.deactivate=org.junit.*DisabledCondition</tt>.
+ */
+@Disabled("benchmark, run manually")
+public class GoogleAudioBytesBenchmarkTest
+{
+    /**
+     * The size of a flush of 500 ms of 48 kHz audio.
+     */
+    private static final int AUDIO_SIZE = 48000;
+
+    /**
+     * The number of iterations run before measuring.
+     */
+    private static final int WARMUP_ITERATIONS = 20000;
+
+    /**
+     * The number of iterations measured.
+     */
+    private static final int ITERATIONS = 100000;
+
+    @Test
+    public void testCopyAndWrap()
+        throws IOException
+    {
+        ByteBuffer audio = ByteBuffer.wrap(new byte[AUDIO_SIZE]);
+        CountingOutputStream out = new CountingOutputStream();
+
+        run(audio, out, WARMUP_ITERATIONS, true);
+        run(audio, out, WARMUP_ITERATIONS, false);
+
+        out.count = 0;
+        report("copyFrom", run(audio, out, ITERATIONS, true));
+        long copiedBytes = out.count;
+
+        out.count = 0;
+        report("unsafeWrap", run(audio, out, ITERATIONS, false));
+
+        // both paths send the same messages
+        assertEquals(copiedBytes, out.count);
+    }
+
+    /**
+     * Builds and serializes requests.
+     *
+     * @return the time it took, in ns
+     */
+    private static long run(ByteBuffer audio, OutputStream out, int iterations, boolean copy)
+        throws IOException
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+        {
+            ByteString audioBytes = copy
+                ? ByteString.copyFrom(audio.duplicate())
+                : UnsafeByteOperations.unsafeWrap(audio.duplicate());
+
+            StreamingRecognizeRequest.newBuilder()
+                .setAudioContent(audioBytes)
+                .build()
+                .writeTo(out);
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long nanos)
+    {
+        System.out.printf("%-10s %8.2f us/request%n", name, nanos / 1000.0 / ITERATIONS);
+    }
+
+    /**
+     * Counts what is written and drops it, like a socket which is always
+     * ready.
+     */
+    private static class CountingOutputStream
+        extends OutputStream
+    {
+        private long count;
+
+        @Override
+        public void write(int b)
+        {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            count += len;
+        }
+    }
+}
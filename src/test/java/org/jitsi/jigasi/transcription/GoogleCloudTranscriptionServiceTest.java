@@ -0,0 +1,90 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import com.google.protobuf.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the removal of the words transcribed by both streams when a
+ * Google stream is replaced, and for the audio of the requests.
+ */
+public class GoogleCloudTranscriptionServiceTest
+{
+    @Test
+    public void testRepeatedWordsAreDropped()
+    {
+        assertEquals("are you",
+            GoogleCloudTranscriptionService.dropRepeatedWords("hello there how", "How are you"));
+        assertEquals("and more",
+            GoogleCloudTranscriptionService.dropRepeatedWords("one, two three.", "two three and more"));
+    }
+
+    /**
+     * The speaker said "I said that that is right", the new stream
+     * transcribed the first "that" again.
+     */
+    @Test
+    public void testOverlappedWordBeforeRepeatedWordIsDropped()
+    {
+        assertEquals("that is right",
+            GoogleCloudTranscriptionService.dropRepeatedWords("I said that", "That, that is right"));
+    }
+
+    /**
+     * The speaker said "I said that that is right", the new stream did not
+     * transcribe the first "that" again. A word repeated by the speaker can
+     * not be told apart from a word transcribed by both streams.
+     */
+    @Test
+    public void testWordRepeatedBySpeakerIsDropped()
+    {
+        assertEquals("is right",
+            GoogleCloudTranscriptionService.dropRepeatedWords("I said that", "that is right"));
+    }
+
+    @Test
+    public void testOtherWordsAreKept()
+    {
+        assertEquals("how are you",
+            GoogleCloudTranscriptionService.dropRepeatedWords("hello there", "how are you"));
+        assertEquals("how are you",
+            GoogleCloudTranscriptionService.dropRepeatedWords("", "how are you"));
+        assertEquals("",
+            GoogleCloudTranscriptionService.dropRepeatedWords("hello", ""));
+    }
+
+    @Test
+    public void testWrappedAudioSharesTheBuffer()
+    {
+        byte[] audio = {1, 2, 3};
+        TranscriptionRequest request = new TranscriptionRequest(audio, null, Locale.US);
+
+        ByteString wrapped = GoogleCloudTranscriptionService.getAudioBytes(request);
+        // the buffer goes back to its pool and is reused, so the request is
+        // held while gRPC may read it
+        audio[0] = 9;
+
+        assertEquals(9, wrapped.byteAt(0));
+        assertEquals(3, wrapped.size());
+    }
+}
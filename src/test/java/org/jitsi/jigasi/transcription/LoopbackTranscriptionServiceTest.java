@@ -0,0 +1,103 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.junit.jupiter.api.*;
+
+import javax.media.format.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LoopbackTranscriptionService}.
+ */
+public class LoopbackTranscriptionServiceTest
+{
+    private static final AudioFormat FORMAT = new AudioFormat(
+        AudioFormat.LINEAR, 16000, 16, 1, AudioFormat.LITTLE_ENDIAN, AudioFormat.SIGNED);
+
+    /**
+     * 100 ms of 16 kHz audio.
+     */
+    private static TranscriptionRequest request()
+    {
+        return new TranscriptionRequest(new byte[3200], FORMAT, Locale.US);
+    }
+
+    @Test
+    public void testCadence()
+        throws InterruptedException
+    {
+        LoopbackTranscriptionService service = new LoopbackTranscriptionService(0, 200, 600, 5, 0.9);
+        LoopbackTranscriptionService.LoopbackStreamingSession session
+            = service.new LoopbackStreamingSession("en-US");
+
+        List<TranscriptionResult> results = new CopyOnWriteArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        session.addTranscriptionListener(new TranscriptionListener()
+        {
+            @Override
+            public void notify(TranscriptionResult result)
+            {
+                results.add(result);
+            }
+
+            @Override
+            public void completed()
+            {
+                completed.countDown();
+            }
+
+            @Override
+            public void failed(FailureReason reason)
+            {
+            }
+        });
+
+        for (int i = 0; i < 7; i++)
+        {
+            session.sendRequest(request());
+        }
+        session.end();
+
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertTrue(session.ended());
+
+        // partials at 200 and 400 ms, a final at 600 ms, the last 100 ms when ending
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isInterim());
+        assertTrue(results.get(1).isInterim());
+        assertEquals(0.9, results.get(0).getStability());
+        assertFalse(results.get(2).isInterim());
+        assertFalse(results.get(3).isInterim());
+        assertEquals(results.get(0).getMessageID(), results.get(2).getMessageID());
+        assertNotEquals(results.get(2).getMessageID(), results.get(3).getMessageID());
+
+        assertEquals("lorem", text(results.get(0)));
+        assertEquals("lorem ipsum", text(results.get(1)));
+        assertEquals("lorem ipsum dolor", text(results.get(2)));
+        assertEquals("sit", text(results.get(3)));
+    }
+
+    private static String text(TranscriptionResult result)
+    {
+        return result.getAlternatives().iterator().next().getTranscription();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.jitsi.jigasi.*;
+import org.jitsi.service.configuration.*;
+import org.jitsi.utils.logging2.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the streaming sessions of a {@link Participant}.
+ */
+public class ParticipantTest
+{
+    private static final int IDLE_TIMEOUT_MS = 200;
+
+    private static final String TRANSLATION_SERVICE_PROP = "org.jitsi.jigasi.transcription.translationService";
+
+    @BeforeAll
+    public static void setUpClass()
+        throws Exception
+    {
+        new OSGiHandler().init();
+
+        long start = System.nanoTime();
+        while (JigasiBundleActivator.getConfigurationService() == null)
+        {
+            if (System.nanoTime() - start > TimeUnit.SECONDS.toNanos(10))
+            {
+                fail("Failed to start framework");
+            }
+            Thread.sleep(100);
+        }
+
+        ConfigurationService config = JigasiBundleActivator.getConfigurationService();
+        config.setProperty(Transcriber.P_NAME_SESSION_IDLE_TIMEOUT_MS, IDLE_TIMEOUT_MS);
+        config.setProperty(TRANSLATION_SERVICE_PROP, NoTranslationService.class.getName());
+    }
+
+    @AfterAll
+    public static void tearDownClass()
+    {
+        ConfigurationService config = JigasiBundleActivator.getConfigurationService();
+        config.removeProperty(Transcriber.P_NAME_SESSION_IDLE_TIMEOUT_MS);
+        config.removeProperty(TRANSLATION_SERVICE_PROP);
+    }
+
+    /**
+     * A participant which went idle in a room whose sessions share a
+     * connection, as the Whisper sessions do, receives its results again
+     * once it speaks, and the audio which resumed it is sent.
+     */
+    @Test
+    public void testIdleParticipantOfSharedRoom()
+        throws Exception
+    {
+        SharedRoomService service = new SharedRoomService();
+        Transcriber transcriber = new Transcriber(
+            service, new CallContext(this), new LoggerImpl(ParticipantTest.class.getName()));
+
+        Participant idle = new Participant(transcriber, "idle", false);
+        Participant active = new Participant(transcriber, "active", false);
+        idle.joined();
+        active.joined();
+
+        idle.giveEncodedAudio(new byte[80]);
+        waitFor(() -> service.requests(idle) == 1);
+
+        // the room is still used by the other participant, the session of
+        // the idle participant is not ended by its connection
+        waitFor(() -> !service.isRegistered(idle));
+        assertTrue(service.isRegistered(active));
+
+        idle.giveEncodedAudio(new byte[80]);
+        waitFor(() -> service.requests(idle) == 2);
+
+        assertTrue(service.isListening(idle, idle));
+        assertTrue(service.isListening(active, active));
+
+        idle.left();
+        active.left();
+    }
+
+    private static void waitFor(BooleanSupplier condition)
+        throws InterruptedException
+    {
+        long start = System.nanoTime();
+        while (!condition.getAsBoolean())
+        {
+            if (System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MS * 10))
+            {
+                fail("Timed out");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * The sessions of a room share one connection, which is only ended once
+     * all participants left. Ending a session unregisters its participant
+     * and its listeners, sending audio registers it again without them.
+     */
+    private static class SharedRoomService
+        extends AbstractTranscriptionService
+    {
+        private final Map<Participant, Set<TranscriptionListener>> listeners = new HashMap<>();
+
+        private final Map<Participant, Integer> requests = new HashMap<>();
+
+        synchronized boolean isRegistered(Participant participant)
+        {
+            return listeners.containsKey(participant);
+        }
+
+        synchronized boolean isListening(Participant participant, TranscriptionListener listener)
+        {
+            return listeners.getOrDefault(participant, Collections.emptySet()).contains(listener);
+        }
+
+        synchronized int requests(Participant participant)
+        {
+            return requests.getOrDefault(participant, 0);
+        }
+
+        @Override
+        public boolean supportsFragmentTranscription()
+        {
+            return false;
+        }
+
+        @Override
+        public void sendSingleRequest(TranscriptionRequest request, Consumer<TranscriptionResult> resultConsumer)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean supportsStreamRecognition()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean supportsLanguageRouting()
+        {
+            return false;
+        }
+
+        @Override
+        public StreamingRecognitionSession initStreamingSession(Participant participant)
+        {
+            return new StreamingRecognitionSession()
+            {
+                @Override
+                public void sendRequest(TranscriptionRequest request)
+                {
+                    synchronized (SharedRoomService.this)
+                    {
+                        listeners.computeIfAbsent(participant, p -> new HashSet<>());
+                        requests.merge(participant, 1, Integer::sum);
+                    }
+                }
+
+                @Override
+                public void end()
+                {
+                    synchronized (SharedRoomService.this)
+                    {
+                        listeners.remove(participant);
+                    }
+                }
+
+                @Override
+                public boolean ended()
+                {
+                    synchronized (SharedRoomService.this)
+                    {
+                        return listeners.isEmpty();
+                    }
+                }
+
+                @Override
+                public void addTranscriptionListener(TranscriptionListener listener)
+                {
+                    synchronized (SharedRoomService.this)
+                    {
+                        listeners.computeIfAbsent(participant, p -> new HashSet<>()).add(listener);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isConfiguredProperly()
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Keeps the {@link Transcriber} from creating the default translation
+     * service.
+     */
+    public static class NoTranslationService
+        implements TranslationService
+    {
+        @Override
+        public String translate(String sourceText, String sourceLang, String targetLang)
+        {
+            return sourceText;
+        }
+    }
+}
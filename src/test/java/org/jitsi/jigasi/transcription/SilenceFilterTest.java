@@ -0,0 +1,80 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SilenceFilter}. Only quiet audio is given, which is
+ * decided without loading the native vad.
+ */
+public class SilenceFilterTest
+{
+    private static final int SEGMENT_BYTES = 960 * 2;
+
+    private static byte[] segment(int value)
+    {
+        byte[] audio = new byte[SEGMENT_BYTES];
+        for (int i = 0; i < audio.length; i += 2)
+        {
+            audio[i] = (byte) value;
+            audio[i + 1] = (byte) (value >> 8);
+        }
+        return audio;
+    }
+
+    @Test
+    public void testSilenceIsFiltered()
+    {
+        SilenceFilter filter = new SilenceFilter();
+
+        for (int i = 0; i < 20; i++)
+        {
+            filter.giveSegment(segment(0));
+            assertTrue(filter.shouldFilter());
+            assertFalse(filter.newSpeech());
+        }
+    }
+
+    @Test
+    public void testWindowIsOldestFirst()
+    {
+        SilenceFilter filter = new SilenceFilter();
+
+        filter.giveSegment(segment(1));
+        filter.giveSegment(segment(2));
+        byte[] partial = filter.getSpeechWindow();
+        assertEquals(2 * SEGMENT_BYTES, partial.length);
+        assertEquals(1, partial[0]);
+        assertEquals(2, partial[partial.length - 2]);
+
+        for (int i = 3; i <= 12; i++)
+        {
+            filter.giveSegment(segment(i));
+        }
+        byte[] window = filter.getSpeechWindow();
+        assertEquals(10 * SEGMENT_BYTES, window.length);
+        for (int i = 0; i < 10; i++)
+        {
+            assertEquals(3 + i, window[i * SEGMENT_BYTES]);
+            assertEquals(0, window[i * SEGMENT_BYTES + 1]);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link TranslationCache}.
+ */
+public class TranslationCacheTest
+{
+    @Test
+    public void testKeyIsNormalized()
+    {
+        TranslationCache cache = new TranslationCache(10, 1000);
+        cache.put("Can you  hear me ", "en", "fr", "Tu m'entends");
+
+        assertEquals("Tu m'entends", cache.get("Can you hear me", "en", "fr"));
+        assertNull(cache.get("Can you hear me", "en", "de"));
+        assertNull(cache.get("Can you hear me", "es", "fr"));
+    }
+
+    @Test
+    public void testCaseIsKept()
+    {
+        TranslationCache cache = new TranslationCache(10, 1000);
+        cache.put("Tell US", "en", "fr", "Dis aux USA");
+
+        assertNull(cache.get("tell us", "en", "fr"));
+        assertEquals("Dis aux USA", cache.get("Tell US", "en", "fr"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted()
+    {
+        TranslationCache cache = new TranslationCache(2, 1000);
+        cache.put("yes", "en", "fr", "oui");
+        cache.put("no", "en", "fr", "non");
+
+        // yes is now more recently used than no
+        assertEquals("oui", cache.get("yes", "en", "fr"));
+        cache.put("okay", "en", "fr", "d'accord");
+
+        assertEquals(2, cache.size());
+        assertEquals("oui", cache.get("yes", "en", "fr"));
+        assertNull(cache.get("no", "en", "fr"));
+        assertEquals("d'accord", cache.get("okay", "en", "fr"));
+    }
+
+    @Test
+    public void testExpired()
+    {
+        AtomicLong now = new AtomicLong();
+        TranslationCache cache = new TranslationCache(10, 1000, now::get);
+        cache.put("yes", "en", "fr", "oui");
+
+        now.set(TimeUnit.MILLISECONDS.toNanos(999));
+        assertEquals("oui", cache.get("yes", "en", "fr"));
+
+        now.set(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertNull(cache.get("yes", "en", "fr"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the translation of the interim results by the
+ * {@link TranslationManager}.
+ */
+public class TranslationManagerTest
+{
+    private static final long DEBOUNCE_MS = 200;
+
+    private final RecordingService service = new RecordingService();
+
+    private final List<String> published = new CopyOnWriteArrayList<>();
+
+    private TranslationManager manager;
+
+    @BeforeEach
+    public void setUp()
+    {
+        manager = new TranslationManager(service, 3000, true, 0.8, DEBOUNCE_MS);
+        manager.addLanguage("fr");
+        manager.addListener(translation -> published.add(translation.getTranslatedText()));
+    }
+
+    private static TranscriptionResult interim(UUID messageId, double stability, String text)
+    {
+        return new TranscriptionResult(
+            null, messageId, Instant.now(), true, "en", stability, new TranscriptionAlternative(text));
+    }
+
+    private static TranscriptionResult result(String text)
+    {
+        return new TranscriptionResult(
+            null, UUID.randomUUID(), Instant.now(), false, "en", 0, new TranscriptionAlternative(text));
+    }
+
+    private static void waitFor(BooleanSupplier condition)
+        throws InterruptedException
+    {
+        long start = System.nanoTime();
+        while (!condition.getAsBoolean())
+        {
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testStablePrefix()
+    {
+        assertEquals("hello", TranslationManager.getStablePrefix("hello wor"));
+        assertEquals("how are", TranslationManager.getStablePrefix(" how are yo "));
+        assertNull(TranslationManager.getStablePrefix("hello"));
+        assertNull(TranslationManager.getStablePrefix(""));
+    }
+
+    @Test
+    public void testStability()
+    {
+        manager.notify(interim(UUID.randomUUID(), 0.5, "not stable yet"));
+        assertTrue(service.texts.isEmpty());
+
+        // services other than Google give no stability
+        manager.notify(interim(UUID.randomUUID(), 0, "no stability given"));
+        assertEquals(List.of("no stability"), service.texts);
+    }
+
+    @Test
+    public void testDebounceAndSupersede()
+        throws InterruptedException
+    {
+        UUID messageId = UUID.randomUUID();
+
+        manager.notify(interim(messageId, 0.9, "one two"));
+        assertEquals(List.of("one"), service.texts);
+
+        manager.notify(interim(messageId, 0.9, "one two three"));
+        manager.notify(interim(messageId, 0.9, "one two three four"));
+        // a revised start is not translated
+        manager.notify(interim(messageId, 0.9, "one tree"));
+        assertEquals(1, service.texts.size());
+
+        // the latest result is translated once the debounce time is up
+        waitFor(() -> service.texts.size() == 2);
+        assertEquals(List.of("one", "one two three"), service.texts);
+
+        // the superseded translation is not published
+        waitFor(() -> service.translations.get(0).isCancelled());
+        service.translations.get(1).complete("un deux trois");
+        waitFor(() -> !published.isEmpty());
+        assertEquals(List.of("un deux trois"), published);
+    }
+
+    @Test
+    public void testInterimTranslationsAreNotCached()
+        throws InterruptedException
+    {
+        TranslationCache cache = new TranslationCache(10, 60000);
+        manager = new TranslationManager(new CachingTranslationService(service, cache, 100), 3000, true, 0.8, 0);
+        manager.addLanguage("fr");
+        manager.addListener(translation -> published.add(translation.getTranslatedText()));
+
+        manager.notify(interim(UUID.randomUUID(), 0.9, "hello world"));
+        service.translations.get(0).complete("bonjour");
+        waitFor(() -> published.size() == 1);
+        assertNull(cache.get("hello", null, "fr"));
+
+        manager.notify(result("hello"));
+        service.translations.get(1).complete("bonjour");
+        waitFor(() -> published.size() == 2);
+        assertEquals("bonjour", cache.get("hello", null, "fr"));
+
+        // the cached translation is published without asking the service
+        manager.notify(result("hello"));
+        waitFor(() -> published.size() == 3);
+        assertEquals(List.of("hello", "hello"), service.texts);
+    }
+
+    /**
+     * Records the texts to translate, the translations are completed by the
+     * test.
+     */
+    private static class RecordingService
+        implements TranslationService
+    {
+        private final List<String> texts = new CopyOnWriteArrayList<>();
+
+        private final List<CompletableFuture<String>> translations = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String translate(String sourceText, String sourceLang, String targetLang)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Map<String, CompletableFuture<String>> translateAsync(
+            String sourceText, String sourceLang, Collection<String> targetLangs, Executor executor)
+        {
+            texts.add(sourceText);
+
+            Map<String, CompletableFuture<String>> result = new LinkedHashMap<>();
+            for (String targetLang : targetLangs)
+            {
+                CompletableFuture<String> translation = new CompletableFuture<>();
+                translations.add(translation);
+                result.put(targetLang, translation);
+            }
+
+            return result;
+        }
+    }
+}
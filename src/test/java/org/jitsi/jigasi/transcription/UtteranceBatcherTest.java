@@ -0,0 +1,139 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.transcription;
+
+import org.junit.jupiter.api.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the hand over of the results of a {@link UtteranceBatcher}.
+ */
+public class UtteranceBatcherTest
+{
+    /**
+     * The transcriptions dispatched, run by the test in any order.
+     */
+    private final List<Runnable> dispatched = new ArrayList<>();
+
+    private final List<String> delivered = new ArrayList<>();
+
+    private UtteranceBatcher batcher;
+
+    @BeforeEach
+    public void setUp()
+    {
+        batcher = new UtteranceBatcher(
+            16000, 500, 10000, new EchoService(), dispatched::add,
+            (request, result) -> delivered.add(result.getAlternatives().iterator().next().getTranscription()));
+    }
+
+    /**
+     * A request whose audio starts with the given value, which is the
+     * transcript of the {@link EchoService}.
+     */
+    private static TranscriptionRequest request(int value)
+    {
+        return new TranscriptionRequest(new byte[] {(byte) value, 0}, null, Locale.US);
+    }
+
+    @Test
+    public void testResultsAreInOrderOfUtterances()
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            batcher.dispatch(request(i));
+        }
+
+        dispatched.get(2).run();
+        dispatched.get(1).run();
+        assertTrue(delivered.isEmpty());
+
+        dispatched.get(0).run();
+        assertEquals(List.of("0", "1", "2"), delivered);
+    }
+
+    @Test
+    public void testWhenDrained()
+    {
+        List<String> drained = new ArrayList<>();
+
+        batcher.whenDrained(() -> drained.add("idle"));
+        assertEquals(List.of("idle"), drained);
+
+        batcher.dispatch(request(0));
+        batcher.dispatch(request(1));
+        batcher.whenDrained(() -> drained.add("after " + delivered.size()));
+
+        dispatched.get(1).run();
+        assertEquals(List.of("idle"), drained);
+
+        dispatched.get(0).run();
+        assertEquals(List.of("idle", "after 2"), drained);
+    }
+
+    /**
+     * Gives the first byte of the audio as transcript.
+     */
+    private static class EchoService
+        implements TranscriptionService
+    {
+        @Override
+        public boolean supportsFragmentTranscription()
+        {
+            return true;
+        }
+
+        @Override
+        public void sendSingleRequest(TranscriptionRequest request, Consumer<TranscriptionResult> resultConsumer)
+        {
+            String transcript = String.valueOf(request.getAudioBuffer().get(0));
+            resultConsumer.accept(new TranscriptionResult(
+                null, UUID.randomUUID(), Instant.now(), false, "en", 0,
+                new TranscriptionAlternative(transcript)));
+        }
+
+        @Override
+        public boolean supportsStreamRecognition()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean supportsLanguageRouting()
+        {
+            return false;
+        }
+
+        @Override
+        public StreamingRecognitionSession initStreamingSession(Participant participant)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isConfiguredProperly()
+        {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Jigasi, the JItsi GAteway to SIP.
+ *
+ * Copyright @ 2026 - present 8x8, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jitsi.jigasi.util;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SerialExecutor}.
+ */
+public class SerialExecutorTest
+{
+    private ExecutorService pool;
+
+    @BeforeEach
+    public void setUp()
+    {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testOrderIsPreserved()
+        throws InterruptedException
+    {
+        SerialExecutor executor = new SerialExecutor(pool);
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1000);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            int idx = i;
+            executor.execute(() ->
+            {
+                if (running.incrementAndGet() > 1)
+                {
+                    overlapped.set(true);
+                }
+                executed.add(idx);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        for (int i = 0; i < 1000; i++)
+        {
+            assertEquals(i, executed.get(i));
+        }
+    }
+
+    @Test
+    public void testSlowQueueDoesNotBlockOthers()
+        throws InterruptedException
+    {
+        SerialExecutor slow = new SerialExecutor(pool);
+        SerialExecutor fast = new SerialExecutor(pool);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fastDone = new CountDownLatch(1);
+
+        slow.execute(() ->
+        {
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException ignored)
+            {}
+        });
+        fast.execute(fastDone::countDown);
+
+        assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+        assertEquals(0, fast.getQueueSize());
+
+        release.countDown();
+    }
+
+    @Test
+    public void testShutdownRejectsNewTasks()
+        throws InterruptedException
+    {
+        SerialExecutor executor = new SerialExecutor(pool);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(done::countDown);
+        executor.shutdown();
+
+        assertTrue(executor.isShutdown());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFullQueueRejectsNewTasks()
+        throws InterruptedException
+    {
+        SerialExecutor executor = new SerialExecutor(pool, 2, null);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+
+        executor.execute(() ->
+        {
+            started.countDown();
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException ignored)
+            {}
+            done.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        executor.execute(done::countDown);
+        executor.execute(() -> {});
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+        executor.executeUnbounded(done::countDown);
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejectedDrainReportsDroppedTasks()
+    {
+        AtomicInteger dropped = new AtomicInteger();
+        List<Runnable> drains = new ArrayList<>();
+        AtomicBoolean reject = new AtomicBoolean();
+        SerialExecutor executor = new SerialExecutor(command ->
+        {
+            if (reject.get())
+            {
+                throw new RejectedExecutionException();
+            }
+            drains.add(command);
+        }, Integer.MAX_VALUE, dropped::addAndGet);
+
+        for (int i = 0; i < 20; i++)
+        {
+            executor.execute(() -> {});
+        }
+
+        // the first run executes 16 tasks, the rest cannot be rescheduled
+        reject.set(true);
+        drains.get(0).run();
+
+        assertEquals(4, dropped.get());
+        assertEquals(0, executor.getQueueSize());
+
+        // the caller is told about its own task by the exception
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+        assertEquals(4, dropped.get());
+    }
+}